@@ -0,0 +1,23 @@
+package edacc.parameterspace.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the parameter space benchmarks with the GC profiler, which reports allocation rates
+ * (gc.alloc.rate.norm is the number of bytes allocated per operation).
+ *
+ * Run from the project root; an optional argument restricts the run to benchmarks matching
+ * the given regular expression, e.g. <code>ParameterGraphBenchmark.getNeighbourhood</code>.
+ */
+public class BenchmarkRunner {
+    public static void main(String... args) throws Exception {
+        Options options = new OptionsBuilder()
+                .include(args.length > 0 ? args[0] : "edacc.parameterspace.benchmark.*")
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
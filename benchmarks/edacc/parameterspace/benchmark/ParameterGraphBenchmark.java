@@ -0,0 +1,226 @@
+package edacc.parameterspace.benchmark;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import edacc.api.APIImpl;
+import edacc.parameterspace.ConfigurationBatch;
+import edacc.parameterspace.ConfigurationEncoder;
+import edacc.parameterspace.DeltaConfiguration;
+import edacc.parameterspace.Parameter;
+import edacc.parameterspace.ParameterConfiguration;
+import edacc.parameterspace.ParameterGraphGenerator;
+import edacc.parameterspace.graph.ConditionalParents;
+import edacc.parameterspace.graph.ParameterGraph;
+import edacc.util.MersenneTwister;
+import edacc.util.Pair;
+
+/**
+ * JMH benchmarks of the parameter graph operations used by configurators.
+ *
+ * Every benchmark runs on each of the bundled graphs and on synthetic graphs of growing size
+ * ("synthetic-n" has n parameters). The working directory has to be the project root so the
+ * bundled graphs can be found. See {@link BenchmarkRunner} for running the suite with the GC profiler.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ParameterGraphBenchmark {
+    private static final String TEST_DIR = "src/edacc/parameterspace/test/";
+
+    @Param({"cplex.graph", "sparrow_parameterspace.xml", "complex.xml", "jack.xml", "synthetic-100", "synthetic-1000", "synthetic-10000"})
+    public String graphName;
+
+    private ParameterGraph graph;
+    private Random rng;
+    private ParameterConfiguration config;
+    private ParameterConfiguration other;
+    private Map<Parameter, Float> standardDeviation;
+    private Map<Parameter, Float> samplesFactor;
+    private List<Parameter> orderedParameters;
+    private ConfigurationBatch batch;
+    private ConfigurationEncoder encoder;
+    private List<ParameterConfiguration> configs;
+    private double[] matrix;
+
+    @Setup
+    public void setUp() throws Exception {
+        if (graphName.startsWith("synthetic-")) {
+            graph = syntheticGraph(Integer.parseInt(graphName.substring("synthetic-".length())), 4711);
+        } else {
+            graph = new APIImpl().loadParameterGraphFromFile(TEST_DIR + graphName);
+        }
+        rng = new MersenneTwister(123456789);
+        config = graph.getRandomConfiguration(rng);
+        other = graph.getRandomConfiguration(rng);
+        standardDeviation = new HashMap<Parameter, Float>();
+        samplesFactor = new HashMap<Parameter, Float>();
+        for (Parameter p: graph.getParameterSet()) {
+            standardDeviation.put(p, 0.2f);
+            samplesFactor.put(p, 1.0f);
+        }
+        orderedParameters = new ArrayList<Parameter>(graph.getParameterSet());
+        batch = new ConfigurationBatch(graph.getParameterSet(), 100);
+        encoder = new ConfigurationEncoder(graph, orderedParameters);
+        configs = graph.sampleConfigurations(100, rng);
+        matrix = new double[configs.size() * encoder.getNumColumns()];
+        encoder.encode(configs, matrix);
+    }
+
+    @Benchmark
+    public ParameterConfiguration getRandomConfiguration() {
+        return graph.getRandomConfiguration(rng);
+    }
+
+    @Benchmark
+    public ParameterConfiguration getRandomConfigurationFast() {
+        return graph.getRandomConfigurationFast(rng);
+    }
+
+    /** 100 configurations per operation */
+    @Benchmark
+    public List<ParameterConfiguration> sampleConfigurations() {
+        return graph.sampleConfigurations(100, rng);
+    }
+
+    /** 100 configurations per operation */
+    @Benchmark
+    public ConfigurationBatch sampleConfigurationBatch() {
+        batch.clear();
+        graph.sampleConfigurations(100, rng, batch);
+        return batch;
+    }
+
+    @Benchmark
+    public List<ParameterConfiguration> getNeighbourhood() {
+        return graph.getNeighbourhood(config);
+    }
+
+    @Benchmark
+    public List<DeltaConfiguration> getNeighbourhoodDeltas() {
+        return graph.getNeighbourhoodDeltas(config);
+    }
+
+    @Benchmark
+    public void neighbourhoodIterator(Blackhole bh) {
+        Iterator<DeltaConfiguration> it = graph.neighbourhoodIterator(config);
+        while (it.hasNext()) bh.consume(it.next());
+    }
+
+    @Benchmark
+    public List<ParameterConfiguration> getConstrainedNeighbourhood() {
+        return graph.getConstrainedNeighbourhood(config);
+    }
+
+    @Benchmark
+    public List<ParameterConfiguration> getGaussianNeighbourhood() {
+        return graph.getGaussianNeighbourhood(config, rng, standardDeviation, 1, samplesFactor, true);
+    }
+
+    @Benchmark
+    public List<DeltaConfiguration> getGaussianNeighbourhoodDeltas() {
+        return graph.getGaussianNeighbourhoodDeltas(config, rng, standardDeviation, 1, samplesFactor, true);
+    }
+
+    @Benchmark
+    public List<ParameterConfiguration> getGaussianNeighbourhoodFast() {
+        return graph.getGaussianNeighbourhoodFast(config, rng, 0.2f, 1, true);
+    }
+
+    @Benchmark
+    public ParameterConfiguration getRandomNeighbour() {
+        return graph.getRandomNeighbour(config, rng);
+    }
+
+    @Benchmark
+    public ParameterConfiguration getGaussianRandomNeighbour() {
+        return graph.getGaussianRandomNeighbour(config, rng, standardDeviation, 1, true);
+    }
+
+    @Benchmark
+    public Pair<ParameterConfiguration, ParameterConfiguration> crossover() {
+        return graph.crossover(config, other, rng);
+    }
+
+    @Benchmark
+    public Pair<ParameterConfiguration, ParameterConfiguration> crossover2Point() {
+        return graph.crossover2Point(config, other, rng);
+    }
+
+    /** includes copying the configuration, mutation works in place */
+    @Benchmark
+    public ParameterConfiguration mutateParameterConfiguration() {
+        ParameterConfiguration mutated = new ParameterConfiguration(config);
+        graph.mutateParameterConfiguration(rng, mutated);
+        return mutated;
+    }
+
+    @Benchmark
+    public boolean validateParameterConfiguration() {
+        return graph.validateParameterConfiguration(config);
+    }
+
+    @Benchmark
+    public byte[] updateChecksum() {
+        config.updateChecksum();
+        return config.getChecksum();
+    }
+
+    @Benchmark
+    public Object[] conditionalParentsForRF() {
+        return graph.conditionalParentsForRF(orderedParameters);
+    }
+
+    /** 100 configurations per operation */
+    @Benchmark
+    public double[] encodeConfigurations() {
+        encoder.encode(configs, matrix);
+        return matrix;
+    }
+
+    /** activity of every column of 100 encoded configurations per operation */
+    @Benchmark
+    public int conditionalParentsIsActive() {
+        ConditionalParents cp = graph.getConditionalParents(orderedParameters);
+        int numColumns = cp.getNumColumns(), active = 0;
+        for (int offset = 0; offset < matrix.length; offset += numColumns) {
+            for (int c = 0; c < numColumns; c++) {
+                if (cp.isActive(c, matrix, offset)) active++;
+            }
+        }
+        return active;
+    }
+
+    /**
+     * Generates a graph with <code>numParameters</code> parameters of mixed domains, up to three
+     * levels of conditional parameters and up to two parents per conditional parameter.
+     */
+    static ParameterGraph syntheticGraph(int numParameters, long seed) {
+        ParameterGraphGenerator generator = new ParameterGraphGenerator();
+        generator.setNumParameters(numParameters);
+        generator.setMaxDepth(3);
+        generator.setMaxFanIn(2);
+        return generator.generate(new MersenneTwister(seed));
+    }
+}
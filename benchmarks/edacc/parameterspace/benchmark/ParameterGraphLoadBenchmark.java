@@ -0,0 +1,69 @@
+package edacc.parameterspace.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edacc.parameterspace.ParameterGraphGenerator;
+import edacc.parameterspace.graph.ParameterGraph;
+import edacc.parameterspace.graph.ParameterGraphBinary;
+
+/**
+ * JMH benchmarks of loading parameter graphs: building the adjacency lists of an unmarshalled graph and
+ * the whole load from XML and from the binary format as done by {@link ParameterGraph#load(java.io.InputStream)}.
+ *
+ * The graphs are synthetic graphs of {@link ParameterGraphBenchmark#syntheticGraph(int, long)}; with n
+ * parameters they have several times n nodes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ParameterGraphLoadBenchmark {
+    @Param({"100", "1000", "5000", "20000"})
+    public int numParameters;
+
+    private ParameterGraph graph;
+    private byte[] xml;
+    private byte[] binary;
+
+    @Setup
+    public void setUp() throws Exception {
+        graph = ParameterGraphBenchmark.syntheticGraph(numParameters, 4711);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ParameterGraphGenerator.writeXML(graph, out);
+        xml = out.toByteArray();
+        binary = ParameterGraphBinary.toByteArray(graph);
+    }
+
+    @Benchmark
+    public ParameterGraph buildAdjacencyList() {
+        graph.buildAdjacencyList();
+        return graph;
+    }
+
+    @Benchmark
+    public ParameterGraph loadXML() throws Exception {
+        return ParameterGraph.load(new ByteArrayInputStream(xml));
+    }
+
+    @Benchmark
+    public ParameterGraph loadBinary() throws Exception {
+        return ParameterGraphBinary.read(ByteBuffer.wrap(binary));
+    }
+}
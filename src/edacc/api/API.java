@@ -2,10 +2,14 @@ package edacc.api;
 
 import java.io.FileNotFoundException;
 import java.math.BigInteger;
+import java.sql.Timestamp;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.TimeUnit;
 
+import edacc.api.cache.CacheStats;
 import edacc.api.costfunctions.CostFunction;
 import edacc.model.Course;
 import edacc.model.ExperimentResult;
@@ -37,11 +41,51 @@ public interface API {
     public boolean connect(String hostname, int port, String database, String username, String password) throws Exception;
     public boolean connect(String hostname, int port, String database, String username, String passwd, boolean compress) throws Exception;
 
+    /**
+     * Establishes the database connection with a pool of at most <code>maxConnections</code> connections.
+     * Every thread that uses the API holds one connection of the pool, so this should be at least the
+     * number of threads calling the API concurrently.
+     *
+     * @param hostname
+     * @param port
+     * @param database
+     * @param username
+     * @param passwd
+     * @param compress
+     * @param maxConnections
+     * @return
+     */
+    public boolean connect(String hostname, int port, String database, String username, String passwd, boolean compress, int maxConnections) throws Exception;
+
     /**
      * Closes the database connection and clears internal caches.
      */
     public void disconnect();
 
+    /**
+     * Removes the configuration scenario, parameter graph and experiment of the given experiment and the
+     * job indexes of its solver configurations from the internal caches, so that they are loaded from the
+     * database again on their next use. The job poller of the experiment is dropped as well unless
+     * threads are waiting for jobs or completion listeners are registered.
+     * 
+     * @param idExperiment
+     */
+    public void invalidateExperiment(int idExperiment);
+
+    /**
+     * Removes the given solver binary from the internal cache.
+     * 
+     * @param idSolverBinary
+     */
+    public void invalidateSolverBinary(int idSolverBinary);
+
+    /**
+     * Returns the statistics of the internal caches.
+     * 
+     * @return map from the name of the cache to its statistics
+     */
+    public Map<String, CacheStats> getCacheStats();
+
     /**
      * Returns a canonical name of the given parameter configuration in the
      * context of the configuration experiment. This means only values that are
@@ -230,6 +274,19 @@ public interface API {
     public List<Integer> launchJob(int idExperiment, int idSolverConfig, int[] cpuTimeLimit, int[] wallClockTimeLimit, int numberRuns, int[] priority, Random rng)
             throws Exception;
 
+    /**
+     * Creates the given jobs, possibly of many different solver configurations, and marks them as
+     * ready for computation. The run numbers of all jobs are determined by one query and the jobs
+     * are inserted with multi-row INSERT statements, so launching e.g. a whole racing round costs a
+     * few round trips instead of several per job.
+     * 
+     * @param idExperiment ID of the experiment that should contain the jobs.
+     * @param jobs the jobs to create.
+     * @return List of unique database IDs, in the order of <code>jobs</code>
+     * @throws Exception
+     */
+    public List<Integer> launchJobs(int idExperiment, List<JobLaunch> jobs) throws Exception;
+
     /**
      * Returns the parameter configuration corresponding to the given solver
      * configuration in the DB.
@@ -390,6 +447,72 @@ public interface API {
      */
     public Map<Integer, ExperimentResult> getJobsByIDs(List<Integer> ids) throws Exception;
 
+    /**
+     * Returns the jobs of the experiment that were modified (e.g. changed their status or got a result)
+     * since the given watermark, in a single query that only reads the ID, solver configuration,
+     * status, result code, result time and cost of each job.
+     * 
+     * To poll for changes, start with <code>since = null</code> (which returns all jobs of the experiment)
+     * and pass the watermark of the previous result to the next call. The watermark lies slightly before
+     * the time of the query, so a job can be reported again by the next call without having changed.
+     * 
+     * @param idExperiment
+     * @param since watermark of the previous call or null
+     * @return the modified jobs and the watermark for the next call
+     * @throws Exception
+     */
+    public JobStatusUpdate getJobStatusUpdates(int idExperiment, Timestamp since) throws Exception;
+
+    /**
+     * Waits until at least one of the given jobs of the experiment has finished, i.e. its status is
+     * neither "not started" nor "running", or the timeout has elapsed.
+     * 
+     * All waiting threads and completion listeners of an experiment share one background thread that
+     * polls the database for modified jobs (see {@link #getJobStatusUpdates(int, Timestamp)}), so
+     * waiting doesn't cause additional queries per waiting thread. The poller holds one connection
+     * of the connection pool while it queries the database.
+     * 
+     * @param idExperiment
+     * @param jobIds IDs of jobs of the experiment
+     * @param timeout
+     * @param unit
+     * @return the finished jobs among <code>jobIds</code>, empty if the timeout elapsed first
+     * @throws Exception if polling the database or a completion listener of the experiment failed
+     */
+    public Map<Integer, JobStatus> awaitAny(int idExperiment, Collection<Integer> jobIds, long timeout, TimeUnit unit) throws Exception;
+
+    /**
+     * Waits until all of the given jobs of the experiment have finished or the timeout has elapsed,
+     * see {@link #awaitAny(int, Collection, long, TimeUnit)}.
+     * 
+     * @param idExperiment
+     * @param jobIds IDs of jobs of the experiment
+     * @param timeout
+     * @param unit
+     * @return the finished jobs among <code>jobIds</code>, which are all of them unless the timeout elapsed
+     * @throws Exception if polling the database or a completion listener of the experiment failed
+     */
+    public Map<Integer, JobStatus> awaitAll(int idExperiment, Collection<Integer> jobIds, long timeout, TimeUnit unit) throws Exception;
+
+    /**
+     * Registers a listener that is notified by the background poller of the experiment whenever
+     * a job of the experiment finishes from now on. Runtime exceptions thrown by the listener are
+     * passed on to the threads waiting for jobs of the experiment, see
+     * {@link #awaitAny(int, Collection, long, TimeUnit)}.
+     * 
+     * @param idExperiment
+     * @param listener
+     */
+    public void addJobCompletionListener(int idExperiment, JobCompletionListener listener);
+
+    /**
+     * Removes a listener registered by {@link #addJobCompletionListener(int, JobCompletionListener)}.
+     * 
+     * @param idExperiment
+     * @param listener
+     */
+    public void removeJobCompletionListener(int idExperiment, JobCompletionListener listener);
+
     /**
      * Returns the instances of the given experiment as list.
      * 
@@ -462,7 +585,8 @@ public interface API {
     public ParameterGraph loadParameterGraphFromDB(int idExperiment) throws Exception;
 
     /**
-     * Loads a parameter graph from a XML file.
+     * Loads a parameter graph from a XML file or a file in the binary format of
+     * {@link edacc.parameterspace.graph.ParameterGraphBinary}.
      * 
      * @param xmlFileName
      * @return
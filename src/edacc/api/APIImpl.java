@@ -1,23 +1,32 @@
 package edacc.api;
 
 import java.io.FileInputStream;
-import java.io.InputStream;
 import java.math.BigInteger;
 import java.security.MessageDigest;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.Statement;
+import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
-
-import javax.xml.bind.JAXBContext;
-import javax.xml.bind.JAXBException;
-import javax.xml.bind.Unmarshaller;
-
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import edacc.api.cache.Cache;
+import edacc.api.cache.CacheFactory;
+import edacc.api.cache.CacheStats;
+import edacc.api.cache.LRUCache;
+import edacc.api.cache.LRUCacheFactory;
 import edacc.api.costfunctions.Average;
 import edacc.api.costfunctions.CostFunction;
 import edacc.api.costfunctions.Median;
@@ -29,19 +38,92 @@ import edacc.parameterspace.graph.ParameterGraph;
 import edacc.parameterspace.ParameterConfiguration;
 
 /**
- * API implementation
+ * API implementation.
+ *
+ * The implementation can be used by several threads at the same time. Each thread gets its own
+ * database connection from the pool of the database connector, so the pool should be at least as
+ * large as the number of threads calling the API concurrently
+ * (see {@link #connect(String, int, String, String, String, boolean, int)}).
+ *
+ * Some DAOs of the EDACC model cache objects in static, unsynchronized maps. Calls of
+ * <code>ParameterDAO.getParameterFromSolverId</code>, <code>ParameterInstanceDAO.getBySolverConfig</code>,
+ * <code>StatusCodeDAO.getByStatusCode</code> and <code>ResultCodeDAO.getByResultCode</code> are therefore
+ * serialized by one lock that is shared by all instances. The job queries of <code>ExperimentResultDAO</code>
+ * look up the status and result codes internally and aren't serialized; connect() loads all codes of
+ * the database, so these lookups only read the caches afterwards.
  */
 public class APIImpl implements API {
     private static DatabaseConnector db = DatabaseConnector.getInstance();
+    // serializes the calls of DAOs with unsynchronized static caches, see the class comment
+    private static final Object DAO_LOCK = new Object();
+    /** default number of database connections, the connector assigns one connection to each thread */
+    public static final int DEFAULT_MAX_CONNECTIONS = 8;
+    /** default maximum number of objects of each of the internal caches */
+    public static final int DEFAULT_CACHE_SIZE = 256;
+    /**
+     * default maximum number of solver configs whose jobs are indexed, see
+     * {@link #APIImpl(CacheFactory, int)}
+     */
+    public static final int DEFAULT_RUN_INDEX_CACHE_SIZE = 4096;
     // internal configuration scenario cache
-    private Map<Integer, ConfigurationScenario> csCache = new HashMap<Integer, ConfigurationScenario>();
+    private final Cache<Integer, ConfigurationScenario> csCache;
     // internal parameter graph cache
-    private Map<Integer, ParameterGraph> pgCache = new HashMap<Integer, ParameterGraph>();
+    private final Cache<Integer, ParameterGraph> pgCache;
+    // internal cache of the parameter graphs of solvers by "idSolver:checksum", shared by experiments
+    private final Cache<String, ParameterGraph> solverGraphCache;
     // internal solver binaries cache
-    private Map<Integer, SolverBinaries> sbCache = new HashMap<Integer, SolverBinaries>();
+    private final Cache<Integer, SolverBinaries> sbCache;
     // internal experiment cache
-    private Map<Integer, Experiment> expCache = new HashMap<Integer, Experiment>();
+    private final Cache<Integer, Experiment> expCache;
+    // lock objects: experiment locks guard the cached course of the experiment (and loading the cached
+    // objects of the experiment), solver config locks the run numbers of new jobs of the solver config.
+    // A thread holding an experiment lock must not acquire a solver config lock. The locks are striped,
+    // so IDs share LOCK_STRIPES locks of each kind instead of having one lock each, see lock().
+    private static final int LOCK_STRIPES = 64;
+    private final Object[] experimentLocks = newLocks();
+    private final Object[] solverConfigLocks = newLocks();
+    // internal cache of the jobs of the solver configs by instance and seed, guarded by the solver config
+    // locks; evicted indexes are loaded from the database again. It doesn't come from the cache factory,
+    // as reloading an index reads all jobs of the solver config.
+    private final Cache<Integer, SolverConfigRuns> runIndexes;
+    // background job pollers by experiment
+    private final ConcurrentMap<Integer, JobPoller> pollers = new ConcurrentHashMap<Integer, JobPoller>();
     
+    /**
+     * Creates an API whose caches hold up to {@link #DEFAULT_CACHE_SIZE} objects each, which don't expire.
+     */
+    public APIImpl() {
+        this(new LRUCacheFactory(DEFAULT_CACHE_SIZE, 0, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Creates an API with caches of the given factory, e.g. to limit the time a long-running process
+     * uses configuration scenarios and parameter graphs that may have changed in the database.
+     * The jobs of up to {@link #DEFAULT_RUN_INDEX_CACHE_SIZE} solver configs are indexed.
+     * @param cacheFactory
+     */
+    public APIImpl(CacheFactory cacheFactory) {
+        this(cacheFactory, DEFAULT_RUN_INDEX_CACHE_SIZE);
+    }
+
+    /**
+     * Creates an API with caches of the given factory and the given limit of the job indexes.
+     * The jobs of the solver configs are indexed by instance and seed to find the next runs of a
+     * solver config without reading all of its jobs on every launch. Indexes are evicted when the
+     * limit is exceeded or invalidated by {@link #invalidateExperiment(int)}, but they don't expire,
+     * so the limit should be at least the number of solver configs a configurator races at a time.
+     * @param cacheFactory
+     * @param runIndexCacheSize maximum number of solver configs whose jobs are indexed, 0 for no limit
+     */
+    public APIImpl(CacheFactory cacheFactory, int runIndexCacheSize) {
+        csCache = cacheFactory.createCache("configurationScenarios");
+        pgCache = cacheFactory.createCache("parameterGraphs");
+        solverGraphCache = cacheFactory.createCache("solverParameterGraphs");
+        sbCache = cacheFactory.createCache("solverBinaries");
+        expCache = cacheFactory.createCache("experiments");
+        runIndexes = new LRUCache<Integer, SolverConfigRuns>(runIndexCacheSize, 0, TimeUnit.SECONDS);
+    }
+
     public static final String[] constSolverParameters = {"instance", "seed", "tempdir", "db_host", "db_port", "db_db", "db_username", "db_password"};
     /**
      * Checks if the given parameter name is a 'magic' solver parameter.
@@ -59,30 +141,104 @@ public class APIImpl implements API {
     
     
     
-    public synchronized boolean connect(String hostname, int port, String database, String username, String password)
+    public boolean connect(String hostname, int port, String database, String username, String password)
             throws Exception {
     	return connect(hostname, port, database, username, password, false);
     }
     
-    public synchronized boolean connect(String hostname, int port, String database, String username, String password, boolean compress)
+    public boolean connect(String hostname, int port, String database, String username, String password, boolean compress)
             throws Exception {
-        db.connect(hostname, port, username, database, password, false, compress, 8, false, false);
+        return connect(hostname, port, database, username, password, compress, DEFAULT_MAX_CONNECTIONS);
+    }
+
+    public boolean connect(String hostname, int port, String database, String username, String password, boolean compress,
+            int maxConnections) throws Exception {
+        if (maxConnections < 1) throw new IllegalArgumentException("maxConnections has to be positive");
+        db.connect(hostname, port, username, database, password, false, compress, maxConnections, false, true);
+        if (db.isConnected())
+            loadCodes();
         return db.isConnected();
     }
 
-    public synchronized void disconnect() {
-        csCache.clear();
-        pgCache.clear();
-        sbCache.clear();
+    /**
+     * Loads all status and result codes of the database into the caches of their DAOs, so the job
+     * queries of other threads don't modify these caches.
+     */
+    private static void loadCodes() throws Exception {
+        synchronized (DAO_LOCK) {
+            StatusCodeDAO.getAll();
+            Statement st = db.getConn().createStatement();
+            try {
+                ResultSet rs = st.executeQuery("SELECT resultCode FROM ResultCodes");
+                while (rs.next())
+                    ResultCodeDAO.getByResultCode(rs.getInt(1));
+                rs.close();
+            } finally {
+                st.close();
+            }
+        }
+    }
+
+    public void disconnect() {
+        for (JobPoller poller: pollers.values())
+            poller.stop();
+        pollers.clear();
+        csCache.invalidateAll();
+        pgCache.invalidateAll();
+        solverGraphCache.invalidateAll();
+        sbCache.invalidateAll();
+        expCache.invalidateAll();
+        runIndexes.invalidateAll();
         db.disconnect();
     }
 
-    public synchronized String getCanonicalName(int idExperiment, ParameterConfiguration config) throws Exception {
+    public void invalidateExperiment(int idExperiment) {
+        synchronized (lock(experimentLocks, idExperiment)) {
+            csCache.invalidate(idExperiment);
+            pgCache.invalidate(idExperiment);
+            expCache.invalidate(idExperiment);
+        }
+        List<Integer> solverConfigIds;
+        try {
+            solverConfigIds = getSolverConfigurations(idExperiment);
+        } catch (Exception e) {
+            solverConfigIds = null;
+        }
+        if (solverConfigIds == null) {
+            // the solver configs are unknown, drop all indexes, they are loaded again on demand
+            runIndexes.invalidateAll();
+        } else {
+            for (int idSolverConfig : solverConfigIds) {
+                synchronized (lock(solverConfigLocks, idSolverConfig)) {
+                    runIndexes.invalidate(idSolverConfig);
+                }
+            }
+        }
+        JobPoller poller = pollers.get(idExperiment);
+        if (poller != null && poller.retireIfIdle())
+            pollers.remove(idExperiment, poller);
+    }
+
+    public void invalidateSolverBinary(int idSolverBinary) {
+        sbCache.invalidate(idSolverBinary);
+    }
+
+    public Map<String, CacheStats> getCacheStats() {
+        Map<String, CacheStats> stats = new LinkedHashMap<String, CacheStats>();
+        stats.put("configurationScenarios", csCache.getStats());
+        stats.put("parameterGraphs", pgCache.getStats());
+        stats.put("solverParameterGraphs", solverGraphCache.getStats());
+        stats.put("solverBinaries", sbCache.getStats());
+        stats.put("experiments", expCache.getStats());
+        stats.put("solverConfigRuns", runIndexes.getStats());
+        return stats;
+    }
+
+    public String getCanonicalName(int idExperiment, ParameterConfiguration config) throws Exception {
         ConfigurationScenario cs = getConfigScenario(idExperiment);
         StringBuilder name = new StringBuilder();
+        // parameters are in ascending order of their name, see getConfigScenario
         List<ConfigurationScenarioParameter> params = cs.getParameters();
-        // sort parameters in ascending order of their name
-        Collections.sort(params);
         for (ConfigurationScenarioParameter param : params) {
             if (isMagicSolverParameter(param.getParameter().getName()))
                 continue;
@@ -119,7 +275,7 @@ public class APIImpl implements API {
         return name.toString();
     }
     
-    public synchronized List<edacc.parameterspace.Parameter> getConfigurableParameters(int idExperiment) throws Exception {
+    public List<edacc.parameterspace.Parameter> getConfigurableParameters(int idExperiment) throws Exception {
         ConfigurationScenario cs = getConfigScenario(idExperiment);
         List<edacc.parameterspace.Parameter> configurableParameters = new ArrayList<edacc.parameterspace.Parameter>();
         for (ConfigurationScenarioParameter param : cs.getParameters()) {
@@ -139,7 +295,7 @@ public class APIImpl implements API {
         return configurableParameters;
     }
 
-    public synchronized int createSolverConfig(int idExperiment, ParameterConfiguration config, String name) throws Exception {
+    public int createSolverConfig(int idExperiment, ParameterConfiguration config, String name) throws Exception {
         ConfigurationScenario cs = getConfigScenario(idExperiment);
         SolverBinaries solver_binary = getSolverBinary(cs.getIdSolverBinary());
 
@@ -155,7 +311,7 @@ public class APIImpl implements API {
         return solver_config.getId();
     }
     
-    public synchronized List<Integer> createSolverConfigs(int idExperiment, List<ParameterConfiguration> configs, List<String> names) throws Exception {
+    public List<Integer> createSolverConfigs(int idExperiment, List<ParameterConfiguration> configs, List<String> names) throws Exception {
         if (configs.size() != names.size()) {
             throw new IllegalArgumentException("Number of configs and names has to be the same");
         }
@@ -209,13 +365,12 @@ public class APIImpl implements API {
         return solverConfigIds;
     }
     
-    private synchronized String calculateParameterConfigHash(int idExperiment, ParameterConfiguration config) throws Exception {
+    private String calculateParameterConfigHash(int idExperiment, ParameterConfiguration config) throws Exception {
         ConfigurationScenario cs = getConfigScenario(idExperiment);
         MessageDigest md = MessageDigest.getInstance("SHA");
         // calculate the checksum of the parameter configuration in the context of the experiment's
         // configuration scenario, i.e. consider only configurable parameter values.
-        List<ConfigurationScenarioParameter> params = cs.getParameters();
-        Collections.sort(params);
+        List<ConfigurationScenarioParameter> params = cs.getParameters(); // sorted by name
         for (ConfigurationScenarioParameter param : params) {
             if (isMagicSolverParameter(param.getParameter().getName()))
                 continue;
@@ -243,7 +398,7 @@ public class APIImpl implements API {
         return toHex(md.digest());
     }
     
-    private synchronized List<ParameterInstance> createParameterInstancesList(int idExperiment, SolverConfiguration solver_config, ParameterConfiguration config) throws Exception {
+    private List<ParameterInstance> createParameterInstancesList(int idExperiment, SolverConfiguration solver_config, ParameterConfiguration config) throws Exception {
         ConfigurationScenario cs = getConfigScenario(idExperiment);
         List<ParameterInstance> parameter_instances = new ArrayList<ParameterInstance>();
         for (ConfigurationScenarioParameter param : cs.getParameters()) {
@@ -291,23 +446,29 @@ public class APIImpl implements API {
         return parameter_instances;
     }
 
-    public synchronized int launchJob(int idExperiment, int idSolverConfig, int idInstance, BigInteger seed, int cpuTimeLimit, int wallClockTimeLimit)
+    public int launchJob(int idExperiment, int idSolverConfig, int idInstance, BigInteger seed, int cpuTimeLimit, int wallClockTimeLimit)
             throws Exception {
         return launchJob(idExperiment, idSolverConfig, idInstance, seed, cpuTimeLimit, wallClockTimeLimit, 0);
     }
     
-    public synchronized int launchJob(int idExperiment, int idSolverConfig, int idInstance, BigInteger seed, int cpuTimeLimit, int wallClockTimeLimit,
+    public int launchJob(int idExperiment, int idSolverConfig, int idInstance, BigInteger seed, int cpuTimeLimit, int wallClockTimeLimit,
             int priority) throws Exception {
-        ExperimentResult job = ExperimentResultDAO.createExperimentResult(getCurrentMaxRun(idSolverConfig, idInstance) + 1,
-                priority, 0, StatusCode.NOT_STARTED, seed.intValue(), ResultCode.UNKNOWN, 0, 0, 0, idSolverConfig, idExperiment,
-                idInstance, null, cpuTimeLimit, -1, wallClockTimeLimit, -1);
-        ArrayList<ExperimentResult> l = new ArrayList<ExperimentResult>();
-        l.add(job);
-        ExperimentResultDAO.batchSave(l);
-        return job.getId();
+        synchronized (lock(solverConfigLocks, idSolverConfig)) {
+            ExperimentResult job = ExperimentResultDAO.createExperimentResult(getCurrentMaxRun(idSolverConfig, idInstance) + 1,
+                    priority, 0, StatusCode.NOT_STARTED, seed.intValue(), ResultCode.UNKNOWN, 0, 0, 0, idSolverConfig, idExperiment,
+                    idInstance, null, cpuTimeLimit, -1, wallClockTimeLimit, -1);
+            ArrayList<ExperimentResult> l = new ArrayList<ExperimentResult>();
+            l.add(job);
+            ExperimentResultDAO.batchSave(l);
+            SolverConfigRuns runs = runIndexes.get(idSolverConfig);
+            if (runs != null)
+                runs.add(idInstance, job.getSeed(), job.getId());
+            return job.getId();
+        }
     }
 
-    private synchronized void extendCourse(ConfigurationScenario cs, Random rng) throws Exception {
+    /** has to be called with the experiment lock held */
+    private void extendCourse(ConfigurationScenario cs, Random rng) throws Exception {
         List<Instance> instances = new ArrayList<Instance>();
         for (int i = 0; i < cs.getCourse().getInitialLength(); i++) {
             instances.add(cs.getCourse().get(i).instance);
@@ -329,42 +490,42 @@ public class APIImpl implements API {
         st.close();
     }
 
-    public synchronized int launchJob(int idExperiment, int idSolverConfig, int cpuTimeLimit, int wallClockTimeLimit, Random rng) throws Exception {
+    public int launchJob(int idExperiment, int idSolverConfig, int cpuTimeLimit, int wallClockTimeLimit, Random rng) throws Exception {
         return launchJob(idExperiment, idSolverConfig, cpuTimeLimit, wallClockTimeLimit, 0, rng);
     }
 
-    public synchronized int launchJob(int idExperiment, int idSolverConfig, int cpuTimeLimit, int wallClockTimeLimit, int priority, Random rng)
+    public int launchJob(int idExperiment, int idSolverConfig, int cpuTimeLimit, int wallClockTimeLimit, int priority, Random rng)
             throws Exception {
         ConfigurationScenario cs = getConfigScenario(idExperiment);
         if (cs == null)
             return 0;
-        List<ExperimentResult> jobs = ExperimentResultDAO.getAllBySolverConfiguration(SolverConfigurationDAO
-                .getSolverConfigurationById(idSolverConfig));
-        Course course = cs.getCourse();
-        int courseLength = 0;
-        for (int cix = 0; cix < course.getLength(); cix++) {
-            boolean matchingJob = false;
-            for (ExperimentResult er : jobs) {
-                matchingJob |= er.getInstanceId() == course.get(cix).instance.getId() && er.getSeed() == course.get(cix).seed;
+        synchronized (lock(solverConfigLocks, idSolverConfig)) {
+            SolverConfigRuns runs = getRunIndex(idSolverConfig);
+            InstanceSeed is;
+            synchronized (lock(experimentLocks, idExperiment)) {
+                // the cached scenario may have been evicted and reloaded in the meantime
+                cs = getConfigScenario(idExperiment);
+                Course course = cs.getCourse();
+                int courseLength = runs.getCourseProgress(course);
+                if (courseLength == course.getLength()) {
+                    extendCourse(cs, rng);
+                }
+                is = course.get(courseLength);
             }
-            if (!matchingJob) break;
-            courseLength++;
-        }
-        if (courseLength == course.getLength()) {
-            extendCourse(cs, rng);
+            return launchJob(idExperiment, idSolverConfig, is.instance.getId(), BigInteger.valueOf(is.seed), cpuTimeLimit, wallClockTimeLimit, priority);
         }
-        InstanceSeed is = course.get(courseLength);
-        return launchJob(idExperiment, idSolverConfig, is.instance.getId(), BigInteger.valueOf(is.seed), cpuTimeLimit, wallClockTimeLimit, priority);
     }
 
     public int getCourseLength(int idExperiment) throws Exception {
         ConfigurationScenario cs = getConfigScenario(idExperiment);
         if (cs == null)
             return 0;
-        return cs.getCourse().getLength();
+        synchronized (lock(experimentLocks, idExperiment)) {
+            return getConfigScenario(idExperiment).getCourse().getLength();
+        }
     }
 
-    public synchronized List<Integer> launchJob(int idExperiment, int idSolverConfig, int[] cpuTimeLimit, int[] wallClockTimeLimit, int numberRuns,
+    public List<Integer> launchJob(int idExperiment, int idSolverConfig, int[] cpuTimeLimit, int[] wallClockTimeLimit, int numberRuns,
             Random rng) throws Exception {
         int[] priority = new int[numberRuns];
         for (int i = 0; i < numberRuns; i++)
@@ -372,45 +533,89 @@ public class APIImpl implements API {
         return launchJob(idExperiment, idSolverConfig, cpuTimeLimit, wallClockTimeLimit, numberRuns, priority, rng);
     }
 
-    public synchronized List<Integer> launchJob(int idExperiment, int idSolverConfig, int[] cpuTimeLimit, int[] wallClockTimeLimit, int numberRuns,
+    public List<Integer> launchJob(int idExperiment, int idSolverConfig, int[] cpuTimeLimit, int[] wallClockTimeLimit, int numberRuns,
             int[] priority, Random rng) throws Exception {
         ConfigurationScenario cs = getConfigScenario(idExperiment);
-        List<ExperimentResult> jobs = ExperimentResultDAO.getAllBySolverConfiguration(SolverConfigurationDAO
-                .getSolverConfigurationById(idSolverConfig));
-        Course course = cs.getCourse();
-        int courseLength = 0;
-        for (int cix = 0; cix < course.getLength(); cix++) {
-            boolean matchingJob = false;
-            for (ExperimentResult er : jobs) {
-                matchingJob |= er.getInstanceId() == course.get(cix).instance.getId() && er.getSeed() == course.get(cix).seed;
+        synchronized (lock(solverConfigLocks, idSolverConfig)) {
+            SolverConfigRuns index = getRunIndex(idSolverConfig);
+            List<InstanceSeed> runs = new ArrayList<InstanceSeed>();
+            synchronized (lock(experimentLocks, idExperiment)) {
+                // the cached scenario may have been evicted and reloaded in the meantime
+                cs = getConfigScenario(idExperiment);
+                Course course = cs.getCourse();
+                int courseLength = index.getCourseProgress(course);
+                while (course.getLength() < courseLength + numberRuns)
+                    extendCourse(cs, rng);
+                for (int i = 0; i < numberRuns; i++)
+                    runs.add(course.get(courseLength + i));
+            }
+
+            Set<Integer> instanceIds = new HashSet<Integer>();
+            for (InstanceSeed is : runs)
+                instanceIds.add(is.instance.getId());
+            Map<Long, Integer> maxRun = getCurrentMaxRuns(Collections.singleton(idSolverConfig), instanceIds);
+            ArrayList<ExperimentResult> l = new ArrayList<ExperimentResult>();
+            for (int i = 0; i < numberRuns; i++) {
+                int idInstance = runs.get(i).instance.getId();
+                int seed = runs.get(i).seed;
+                l.add(ExperimentResultDAO.createExperimentResult(nextRun(maxRun, idSolverConfig, idInstance), priority[i], 0, StatusCode.NOT_STARTED,
+                        seed, ResultCode.UNKNOWN, 0, 0, 0, idSolverConfig, idExperiment, idInstance, null, cpuTimeLimit[i], -1, wallClockTimeLimit[i], -1));
             }
-            if (!matchingJob) break;
-            courseLength++;
+            ExperimentResultDAO.batchSave(l);
+
+            List<Integer> ids = new ArrayList<Integer>();
+            for (ExperimentResult er : l) {
+                index.add(er.getInstanceId(), er.getSeed(), er.getId());
+                ids.add(er.getId());
+            }
+            return ids;
         }
-        while (course.getLength() < courseLength + numberRuns)
-            extendCourse(cs, rng);
+    }
 
-        Map<Integer, Integer> maxRun = new HashMap<Integer, Integer>();
-        ArrayList<ExperimentResult> l = new ArrayList<ExperimentResult>();
-        for (int i = 0; i < numberRuns; i++) {
-            int idInstance = course.get(courseLength + i).instance.getId();
-            int seed = course.get(courseLength + i).seed;
-            if (!maxRun.containsKey(idInstance))
-                maxRun.put(idInstance, getCurrentMaxRun(idSolverConfig, idInstance));
-            else
-                maxRun.put(idInstance, maxRun.get(idInstance) + 1);
-            l.add(ExperimentResultDAO.createExperimentResult(maxRun.get(idInstance) + 1, priority[i], 0, StatusCode.NOT_STARTED,
-                    seed, ResultCode.UNKNOWN, 0, 0, 0, idSolverConfig, idExperiment, idInstance, null, cpuTimeLimit[i], -1, wallClockTimeLimit[i], -1));
+    public List<Integer> launchJobs(int idExperiment, List<JobLaunch> jobs) throws Exception {
+        if (jobs.isEmpty())
+            return new ArrayList<Integer>();
+        // the solver config locks are acquired in ascending order of their stripes to avoid deadlocks
+        Set<Integer> solverConfigIds = new TreeSet<Integer>();
+        Set<Integer> stripes = new TreeSet<Integer>();
+        for (JobLaunch job : jobs) {
+            solverConfigIds.add(job.getIdSolverConfig());
+            stripes.add(stripe(job.getIdSolverConfig()));
+        }
+        return launchJobs(idExperiment, jobs, new ArrayList<Integer>(solverConfigIds), new ArrayList<Integer>(stripes), 0);
+    }
+
+    /** acquires the solver config locks of <code>stripes</code> from index <code>i</code> on and creates the jobs */
+    private List<Integer> launchJobs(int idExperiment, List<JobLaunch> jobs, List<Integer> solverConfigIds, List<Integer> stripes, int i)
+            throws Exception {
+        if (i < stripes.size()) {
+            synchronized (solverConfigLocks[stripes.get(i)]) {
+                return launchJobs(idExperiment, jobs, solverConfigIds, stripes, i + 1);
+            }
+        }
+        Set<Integer> instanceIds = new HashSet<Integer>();
+        for (JobLaunch job : jobs)
+            instanceIds.add(job.getIdInstance());
+        Map<Long, Integer> maxRun = getCurrentMaxRuns(solverConfigIds, instanceIds);
+        ArrayList<ExperimentResult> l = new ArrayList<ExperimentResult>(jobs.size());
+        for (JobLaunch job : jobs) {
+            l.add(ExperimentResultDAO.createExperimentResult(nextRun(maxRun, job.getIdSolverConfig(), job.getIdInstance()), job.getPriority(), 0,
+                    StatusCode.NOT_STARTED, job.getSeed().intValue(), ResultCode.UNKNOWN, 0, 0, 0, job.getIdSolverConfig(), idExperiment,
+                    job.getIdInstance(), null, job.getCpuTimeLimit(), -1, job.getWallClockTimeLimit(), -1));
         }
         ExperimentResultDAO.batchSave(l);
 
-        List<Integer> ids = new ArrayList<Integer>();
-        for (ExperimentResult er : l)
+        List<Integer> ids = new ArrayList<Integer>(l.size());
+        for (ExperimentResult er : l) {
+            SolverConfigRuns runs = runIndexes.get(er.getSolverConfigId());
+            if (runs != null)
+                runs.add(er.getInstanceId(), er.getSeed(), er.getId());
             ids.add(er.getId());
+        }
         return ids;
     }
 
-    public synchronized ParameterConfiguration getParameterConfiguration(int idExperiment, int idSolverConfig) throws Exception {
+    public ParameterConfiguration getParameterConfiguration(int idExperiment, int idSolverConfig) throws Exception {
         ParameterGraph graph = getParamGraph(idExperiment);
         ParameterConfiguration config = new ParameterConfiguration(graph.getParameterSet());
         ConfigurationScenario cs = getConfigScenario(idExperiment);
@@ -420,14 +625,15 @@ public class APIImpl implements API {
 
         // map ParameterID -> Parameter
         Map<Integer, edacc.model.Parameter> parameter_map = new HashMap<Integer, edacc.model.Parameter>();
-        for (edacc.model.Parameter p : ParameterDAO.getParameterFromSolverId(solver_config.getSolverBinary().getIdSolver())) {
-            parameter_map.put(p.getId(), p);
-        }
-
         // map Parameter name -> Parameter Instance (value)
         Map<String, ParameterInstance> solver_config_param_map = new HashMap<String, ParameterInstance>();
-        for (ParameterInstance p : ParameterInstanceDAO.getBySolverConfig(solver_config)) {
-            solver_config_param_map.put(parameter_map.get(p.getParameter_id()).getName(), p);
+        synchronized (DAO_LOCK) {
+            for (edacc.model.Parameter p : ParameterDAO.getParameterFromSolverId(solver_config.getSolverBinary().getIdSolver())) {
+                parameter_map.put(p.getId(), p);
+            }
+            for (ParameterInstance p : ParameterInstanceDAO.getBySolverConfig(solver_config)) {
+                solver_config_param_map.put(parameter_map.get(p.getParameter_id()).getName(), p);
+            }
         }
 
         Map<String, edacc.parameterspace.Parameter> pgraph_map = graph.getParameterMap();
@@ -489,11 +695,10 @@ public class APIImpl implements API {
         return config;
     }
 
-    public synchronized int exists(int idExperiment, ParameterConfiguration config) throws Exception {
+    public int exists(int idExperiment, ParameterConfiguration config) throws Exception {
         MessageDigest md = MessageDigest.getInstance("SHA");
         ConfigurationScenario cs = getConfigScenario(idExperiment);
-        List<ConfigurationScenarioParameter> params = cs.getParameters();
-        Collections.sort(params);
+        List<ConfigurationScenarioParameter> params = cs.getParameters(); // sorted by name
         for (ConfigurationScenarioParameter param : params) {
             if (isMagicSolverParameter(param.getParameter().getName()))
                 continue;
@@ -524,11 +729,11 @@ public class APIImpl implements API {
         return 0;
     }
 
-    public synchronized int getNumJobs(int idSolverConfig) throws Exception {
+    public int getNumJobs(int idSolverConfig) throws Exception {
         return ExperimentResultDAO.getNumJobsBySolverConfigurationId(idSolverConfig);
     }
 
-    public synchronized void updateSolverConfigurationCost(int idSolverConfig, double cost, CostFunction func) throws Exception {
+    public void updateSolverConfigurationCost(int idSolverConfig, double cost, CostFunction func) throws Exception {
         PreparedStatement st = db.getConn().prepareStatement(
                 "UPDATE SolverConfig SET cost=?, cost_function=? WHERE idSolverConfig=?");
         st.setDouble(1, cost);
@@ -538,7 +743,7 @@ public class APIImpl implements API {
         st.close();
     }
 
-    public synchronized CostFunction getCostFunction(int idSolverConfig) throws Exception {
+    public CostFunction getCostFunction(int idSolverConfig) throws Exception {
         PreparedStatement st = db.getConn().prepareStatement("SELECT cost_function, Experiment_idExperiment FROM SolverConfig WHERE idSolverConfig=?");
         st.setInt(1, idSolverConfig);
         ResultSet rs = st.executeQuery();
@@ -554,7 +759,7 @@ public class APIImpl implements API {
         return null;
     }
 
-    public synchronized Double getSolverConfigurationCost(int idSolverConfig) throws Exception {
+    public Double getSolverConfigurationCost(int idSolverConfig) throws Exception {
         PreparedStatement st = db.getConn().prepareStatement("SELECT cost FROM SolverConfig WHERE idSolverConfig=?");
         st.setInt(1, idSolverConfig);
         ResultSet rs = st.executeQuery();
@@ -570,11 +775,11 @@ public class APIImpl implements API {
         return null;
     }
 
-    public synchronized ExperimentResult getJob(int idJob) throws Exception {
+    public ExperimentResult getJob(int idJob) throws Exception {
         return ExperimentResultDAO.getByIdWithoutAssign(idJob);
     }
 
-    public synchronized ExperimentResult killJob(int idJob) throws Exception {
+    public ExperimentResult killJob(int idJob) throws Exception {
         ExperimentResult er = ExperimentResultDAO.getById(idJob);
         if (!(er.getStatus().equals(StatusCode.NOT_STARTED) || er.getStatus().equals(StatusCode.RUNNING)))
             return er;
@@ -595,33 +800,44 @@ public class APIImpl implements API {
         ExperimentResultDAO.batchUpdateStatus(jobs, StatusCode.NOT_STARTED);
     }
 
-    public synchronized boolean deleteResult(int idJob) throws Exception {
+    public boolean deleteResult(int idJob) throws Exception {
         ExperimentResult er = ExperimentResultDAO.getByIdWithoutAssign(idJob);
         if (er == null)
             return false;
         ArrayList<ExperimentResult> l = new ArrayList<ExperimentResult>();
         l.add(er);
-        ExperimentResultDAO.deleteExperimentResults(l);
+        synchronized (lock(solverConfigLocks, er.getSolverConfigId())) {
+            ExperimentResultDAO.deleteExperimentResults(l);
+            // the course progress may move back, the index is reloaded on its next use
+            runIndexes.invalidate(er.getSolverConfigId());
+        }
         return true;
     }
     //returns runs only fromt the course
-    public synchronized ArrayList<ExperimentResult> getRuns(int idExperiment, int idSolverConfig) throws Exception {
-        ConfigurationScenario cs = getConfigScenario(idExperiment);
+    public ArrayList<ExperimentResult> getRuns(int idExperiment, int idSolverConfig) throws Exception {
         ArrayList<ExperimentResult> orderedResults = new ArrayList<ExperimentResult>();
         List<ExperimentResult> results = ExperimentResultDAO.getAllBySolverConfiguration(SolverConfigurationDAO
                 .getSolverConfigurationById(idSolverConfig));
-        for (InstanceSeed isp : cs.getCourse().getInstanceSeedList()) {
-            for (ExperimentResult res : results) {
-                if (res.getInstanceId() == isp.instance.getId() && res.getSeed() == isp.seed) {
+        Map<Integer, ExperimentResult> resultsById = new HashMap<Integer, ExperimentResult>();
+        for (ExperimentResult res : results)
+            resultsById.put(res.getId(), res);
+        synchronized (lock(solverConfigLocks, idSolverConfig)) {
+            SolverConfigRuns runs = getRunIndex(idSolverConfig);
+            List<InstanceSeed> course;
+            synchronized (lock(experimentLocks, idExperiment)) {
+                course = new ArrayList<InstanceSeed>(getConfigScenario(idExperiment).getCourse().getInstanceSeedList());
+            }
+            for (InstanceSeed isp : course) {
+                Integer idJob = runs.getJob(isp.instance.getId(), isp.seed);
+                ExperimentResult res = idJob == null ? null : resultsById.get(idJob);
+                if (res != null)
                     orderedResults.add(res);
-                    break;
-                }
             }
         }
         return orderedResults;
     }
     //returns all runs    
-    public synchronized ArrayList<ExperimentResult> getAllRuns(int idExperiment, int idSolverConfig) throws Exception {
+    public ArrayList<ExperimentResult> getAllRuns(int idExperiment, int idSolverConfig) throws Exception {
         ConfigurationScenario cs = getConfigScenario(idExperiment);
         ArrayList<ExperimentResult> orderedResults = new ArrayList<ExperimentResult>();
         List<ExperimentResult> results = ExperimentResultDAO.getAllBySolverConfiguration(SolverConfigurationDAO
@@ -637,7 +853,7 @@ public class APIImpl implements API {
         return orderedResults;
     }
 
-    public synchronized Map<Integer, ExperimentResult> getJobsByIDs(List<Integer> ids) throws Exception {
+    public Map<Integer, ExperimentResult> getJobsByIDs(List<Integer> ids) throws Exception {
         Map<Integer, ExperimentResult> jobs = new HashMap<Integer, ExperimentResult>();
         List<ExperimentResult> results = ExperimentResultDAO.getByIds(ids);
         for (ExperimentResult result : results) {
@@ -646,18 +862,100 @@ public class APIImpl implements API {
         return jobs;
     }
 
-    public synchronized List<Instance> getExperimentInstances(int idExperiment) throws Exception {
+    public JobStatusUpdate getJobStatusUpdates(int idExperiment, Timestamp since) throws Exception {
+        // the database time, one second back (timestamps have second precision)
+        Timestamp watermark = ExperimentResultDAO.getCurrentTimestamp();
+        PreparedStatement st = db.getConn().prepareStatement(
+                "SELECT idJob, SolverConfig_idSolverConfig, status, resultCode, resultTime, cost FROM ExperimentResults WHERE Experiment_idExperiment=?"
+                        + (since == null ? "" : " AND date_modified >= ?"));
+        st.setInt(1, idExperiment);
+        if (since != null) st.setTimestamp(2, since);
+        ResultSet rs = st.executeQuery();
+        List<JobStatus> jobs = new ArrayList<JobStatus>();
+        try {
+            while (rs.next()) {
+                Double cost = rs.getDouble("cost");
+                if (rs.wasNull()) cost = null;
+                jobs.add(new JobStatus(rs.getInt("idJob"), rs.getInt("SolverConfig_idSolverConfig"),
+                        statusCode(rs.getInt("status")), resultCode(rs.getInt("resultCode")),
+                        rs.getFloat("resultTime"), cost));
+            }
+        } finally {
+            rs.close();
+            st.close();
+        }
+        return new JobStatusUpdate(jobs, watermark);
+    }
+
+    private static StatusCode statusCode(int code) throws Exception {
+        synchronized (DAO_LOCK) {
+            return StatusCodeDAO.getByStatusCode(code);
+        }
+    }
+
+    private static ResultCode resultCode(int code) throws Exception {
+        synchronized (DAO_LOCK) {
+            return ResultCodeDAO.getByResultCode(code);
+        }
+    }
+
+    public Map<Integer, JobStatus> awaitAny(int idExperiment, Collection<Integer> jobIds, long timeout, TimeUnit unit) throws Exception {
+        return await(idExperiment, jobIds, false, unit.toMillis(timeout));
+    }
+
+    public Map<Integer, JobStatus> awaitAll(int idExperiment, Collection<Integer> jobIds, long timeout, TimeUnit unit) throws Exception {
+        return await(idExperiment, jobIds, true, unit.toMillis(timeout));
+    }
+
+    private Map<Integer, JobStatus> await(int idExperiment, Collection<Integer> jobIds, boolean all, long timeoutMillis) throws Exception {
+        while (true) {
+            JobPoller poller = getPoller(idExperiment);
+            Map<Integer, JobStatus> done = poller.await(jobIds, all, timeoutMillis);
+            if (done != null)
+                return done;
+            // retired by invalidateExperiment in the meantime
+            pollers.remove(idExperiment, poller);
+        }
+    }
+
+    public void addJobCompletionListener(int idExperiment, JobCompletionListener listener) {
+        while (true) {
+            JobPoller poller = getPoller(idExperiment);
+            if (poller.addListener(listener))
+                return;
+            pollers.remove(idExperiment, poller);
+        }
+    }
+
+    public void removeJobCompletionListener(int idExperiment, JobCompletionListener listener) {
+        JobPoller poller = pollers.get(idExperiment);
+        if (poller != null)
+            poller.removeListener(listener);
+    }
+
+    private JobPoller getPoller(int idExperiment) {
+        JobPoller poller = pollers.get(idExperiment);
+        if (poller == null) {
+            JobPoller newPoller = new JobPoller(this, idExperiment);
+            poller = pollers.putIfAbsent(idExperiment, newPoller);
+            if (poller == null)
+                poller = newPoller;
+        }
+        return poller;
+    }
+
+    public List<Instance> getExperimentInstances(int idExperiment) throws Exception {
         return InstanceDAO.getAllByExperimentId(idExperiment);
     }
 
-    public synchronized String getSolverConfigName(int idSolverConfig) throws Exception {
+    public String getSolverConfigName(int idSolverConfig) throws Exception {
         SolverConfiguration config = SolverConfigurationDAO.getSolverConfigurationById(idSolverConfig);
         if (config != null)
             return config.getName();
         return null;
     }
 
-    public synchronized int getBestConfiguration(int idExperiment, CostFunction func) throws Exception {
+    public int getBestConfiguration(int idExperiment, CostFunction func) throws Exception {
         PreparedStatement st = db
                 .getConn()
                 .prepareStatement(
@@ -694,91 +992,151 @@ public class APIImpl implements API {
         return best;
     }
 
-    public synchronized ParameterGraph loadParameterGraphFromDB(int idExperiment) throws Exception {
+    public ParameterGraph loadParameterGraphFromDB(int idExperiment) throws Exception {
         ConfigurationScenario cs = getConfigScenario(idExperiment);
-        Statement st = db.getConn().createStatement();
+        ParameterGraph pg = getSolverParamGraph(idExperiment);
+        if (pg == null)
+            return null;
 
-        ResultSet rs = st
-                .executeQuery("SELECT serializedGraph FROM ConfigurationScenario JOIN SolverBinaries ON SolverBinaries_idSolverBinary=idSolverBinary JOIN ParameterGraph ON SolverBinaries.idSolver=ParameterGraph.Solver_idSolver WHERE Experiment_idExperiment = "
-                        + idExperiment);
-        try {
-            if (rs.next()) {
-                ParameterGraph pg = unmarshal(ParameterGraph.class, rs.getBlob("serializedGraph").getBinaryStream());
-                pg.buildAdjacencyList();
-
-                Map<edacc.parameterspace.Parameter, Object> fixedParams = new HashMap<edacc.parameterspace.Parameter, Object>();
-                Map<String, edacc.parameterspace.Parameter> pgraph_map = pg.getParameterMap();
-                List<ConfigurationScenarioParameter> params = cs.getParameters();
-                Collections.sort(params);
-                for (ConfigurationScenarioParameter param : params) {
-                    if (isMagicSolverParameter(param.getParameter().getName()))
-                        continue;
-                    if (!param.isConfigurable()) {
-                        // fixed parameter
-                        edacc.parameterspace.Parameter config_param = null;
-                        for (edacc.parameterspace.Parameter p : pg.getParameterSet()) {
-                            if (p.getName().equals(param.getParameter().getName())) {
-                                config_param = p;
-                                break;
-                            }
-                        }
-                        if (config_param == null) {
-                            continue;
-                        }
-                        
-                        // guess the right type
-                        if (pgraph_map.get(param.getParameter().getName()).getDomain().contains(param.getFixedValue())) {
-                            // string should be fine for this domain
+        Map<edacc.parameterspace.Parameter, Object> fixedParams = new HashMap<edacc.parameterspace.Parameter, Object>();
+        Map<String, edacc.parameterspace.Parameter> pgraph_map = pg.getParameterMap();
+        List<ConfigurationScenarioParameter> params = cs.getParameters(); // sorted by name
+        for (ConfigurationScenarioParameter param : params) {
+            if (isMagicSolverParameter(param.getParameter().getName()))
+                continue;
+            if (!param.isConfigurable()) {
+                // fixed parameter
+                edacc.parameterspace.Parameter config_param = pgraph_map.get(param.getParameter().getName());
+                if (config_param == null) {
+                    continue;
+                }
+
+                // guess the right type
+                if (config_param.getDomain().contains(param.getFixedValue())) {
+                    // string should be fine for this domain
+                    fixedParams.put(config_param, param.getFixedValue());
+                } else {
+                    try {
+                        int i = Integer.valueOf(param.getFixedValue());
+                        fixedParams.put(config_param, i);
+                    } catch (NumberFormatException e) {
+                        try {
+                            double f = Double.valueOf(param.getFixedValue());
+                            fixedParams.put(config_param, f);
+                        } catch (NumberFormatException e2) {
                             fixedParams.put(config_param, param.getFixedValue());
-                        } else {
-                            try {
-                                int i = Integer.valueOf(param.getFixedValue());
-                                fixedParams.put(config_param, i);
-                            } catch (NumberFormatException e) {
-                                try {
-                                    double f = Double.valueOf(param.getFixedValue());
-                                    fixedParams.put(config_param, f);
-                                } catch (NumberFormatException e2) {
-                                    fixedParams.put(config_param, param.getFixedValue());
-                                }
-                            }
                         }
                     }
                 }
-                pg.setFixedParameters(fixedParams);
-                rs.close();
-                st.close();
-                return pg;
             }
-        } catch (JAXBException e) {
-            throw e;
+        }
+        // the graph of the solver is shared, the fixed parameters of the experiment are an overlay
+        return pg.withFixedParameters(fixedParams);
+    }
+
+    /**
+     * Returns the parameter graph of the solver of the experiment, without fixed parameters.
+     * Parsed graphs are cached by solver and MD5 checksum of the serialized graph, so experiments of
+     * the same solver share one graph instance and a modified graph is loaded again. The returned graph
+     * must not be modified.
+     */
+    private ParameterGraph getSolverParamGraph(int idExperiment) throws Exception {
+        PreparedStatement ps = db.getConn().prepareStatement(
+                "SELECT ParameterGraph.Solver_idSolver, MD5(serializedGraph) FROM ConfigurationScenario JOIN SolverBinaries ON SolverBinaries_idSolverBinary=idSolverBinary JOIN ParameterGraph ON SolverBinaries.idSolver=ParameterGraph.Solver_idSolver WHERE Experiment_idExperiment = ?");
+        ps.setInt(1, idExperiment);
+        ResultSet rs = ps.executeQuery();
+        int idSolver;
+        String checksum;
+        try {
+            if (!rs.next())
+                return null;
+            idSolver = rs.getInt(1);
+            checksum = rs.getString(2);
         } finally {
             rs.close();
-            st.close();
+            ps.close();
         }
-        return null;
+        ParameterGraph pg = solverGraphCache.get(idSolver + ":" + checksum);
+        if (pg != null)
+            return pg;
+
+        ps = db.getConn().prepareStatement("SELECT serializedGraph, MD5(serializedGraph) FROM ParameterGraph WHERE Solver_idSolver = ?");
+        ps.setInt(1, idSolver);
+        rs = ps.executeQuery();
+        try {
+            if (!rs.next())
+                return null;
+            pg = ParameterGraph.load(rs.getBlob(1).getBinaryStream());
+            checksum = rs.getString(2);
+        } finally {
+            rs.close();
+            ps.close();
+        }
+        ParameterGraph cached = solverGraphCache.putIfAbsent(idSolver + ":" + checksum, pg);
+        return cached == null ? pg : cached;
     }
 
-    public synchronized ParameterGraph loadParameterGraphFromFile(String xmlFileName) throws Exception {
+    public ParameterGraph loadParameterGraphFromFile(String xmlFileName) throws Exception {
         FileInputStream fis = new FileInputStream(xmlFileName);
         ParameterGraph unm;
         try {
-            unm = unmarshal(ParameterGraph.class, fis);
-        } catch (JAXBException e) {
-            throw e;
+            unm = ParameterGraph.load(fis);
+        } finally {
+            fis.close();
         }
-        unm.buildAdjacencyList();
         return unm;
     }
 
-    @SuppressWarnings("unchecked")
-    private <T> T unmarshal(Class<T> docClass, InputStream inputStream) throws JAXBException {
-        JAXBContext jc = JAXBContext.newInstance(docClass);
-        Unmarshaller u = jc.createUnmarshaller();
-        return (T) u.unmarshal(inputStream);
+    /**
+     * Returns the highest run numbers of the given solver configs on the given instances with a single
+     * grouped query. Has to be called with the solver config locks held.
+     * @return map from {@link #runKey(int, int)} to the highest run, pairs without jobs are missing
+     */
+    private Map<Long, Integer> getCurrentMaxRuns(Collection<Integer> solverConfigIds, Collection<Integer> instanceIds) throws Exception {
+        StringBuilder query = new StringBuilder(
+                "SELECT SolverConfig_idSolverConfig, Instances_idInstance, MAX(run) FROM ExperimentResults WHERE SolverConfig_idSolverConfig IN (");
+        appendPlaceholders(query, solverConfigIds.size());
+        query.append(") AND Instances_idInstance IN (");
+        appendPlaceholders(query, instanceIds.size());
+        query.append(") GROUP BY SolverConfig_idSolverConfig, Instances_idInstance");
+        PreparedStatement ps = db.getConn().prepareStatement(query.toString());
+        int parameterIndex = 1;
+        for (Integer id : solverConfigIds)
+            ps.setInt(parameterIndex++, id);
+        for (Integer id : instanceIds)
+            ps.setInt(parameterIndex++, id);
+        ResultSet rs = ps.executeQuery();
+        Map<Long, Integer> maxRun = new HashMap<Long, Integer>();
+        while (rs.next()) {
+            maxRun.put(runKey(rs.getInt(1), rs.getInt(2)), rs.getInt(3));
+        }
+        rs.close();
+        ps.close();
+        return maxRun;
+    }
+
+    /**
+     * Reserves the next run number of the solver config on the instance in the map of
+     * {@link #getCurrentMaxRuns(Collection, Collection)}.
+     */
+    private static int nextRun(Map<Long, Integer> maxRun, int idSolverConfig, int idInstance) {
+        Long key = runKey(idSolverConfig, idInstance);
+        Integer current = maxRun.get(key);
+        int run = current == null ? 0 : current + 1;
+        maxRun.put(key, run);
+        return run;
+    }
+
+    private static Long runKey(int idSolverConfig, int idInstance) {
+        return ((long) idSolverConfig << 32) | (idInstance & 0xffffffffL);
     }
 
-    private synchronized int getCurrentMaxRun(int idSolverConfig, int idInstance) throws Exception {
+    private static void appendPlaceholders(StringBuilder query, int count) {
+        for (int i = 0; i < count; i++)
+            query.append(i == 0 ? "?" : ", ?");
+    }
+
+    private int getCurrentMaxRun(int idSolverConfig, int idInstance) throws Exception {
         PreparedStatement ps = db.getConn().prepareStatement(
                 "SELECT MAX(run) FROM ExperimentResults WHERE SolverConfig_idSolverConfig=? AND Instances_idInstance=?");
         ps.setInt(1, idSolverConfig);
@@ -863,6 +1221,7 @@ public class APIImpl implements API {
         Statement st = db.getConn().createStatement();
         st.executeUpdate("DELETE FROM SolverConfig WHERE idSolverConfig = " + idSolverConfig);
         st.close();
+        runIndexes.invalidate(idSolverConfig);
     }
 
     @Override
@@ -950,32 +1309,87 @@ public class APIImpl implements API {
         st.close();
     }
 
-    private synchronized ConfigurationScenario getConfigScenario(int idExperiment) throws Exception {
-        if (csCache.containsKey(idExperiment))
-            return csCache.get(idExperiment);
-        csCache.put(idExperiment, ConfigurationScenarioDAO.getConfigurationScenarioByExperimentId(idExperiment));
-        return csCache.get(idExperiment);
+    private ConfigurationScenario getConfigScenario(int idExperiment) throws Exception {
+        ConfigurationScenario cs = csCache.get(idExperiment);
+        if (cs != null)
+            return cs;
+        synchronized (lock(experimentLocks, idExperiment)) {
+            cs = csCache.get(idExperiment);
+            if (cs == null) {
+                cs = ConfigurationScenarioDAO.getConfigurationScenarioByExperimentId(idExperiment);
+                if (cs == null)
+                    return null;
+                // sort parameters in ascending order of their name once, the list is shared by all threads
+                Collections.sort(cs.getParameters());
+                csCache.put(idExperiment, cs);
+            }
+            return cs;
+        }
     }
     
-    private synchronized Experiment getExperiment(int idExperiment) throws Exception {
-        if (expCache.containsKey(idExperiment))
-            return expCache.get(idExperiment);
-        expCache.put(idExperiment, ExperimentDAO.getById(idExperiment));
-        return expCache.get(idExperiment);
+    private Experiment getExperiment(int idExperiment) throws Exception {
+        Experiment exp = expCache.get(idExperiment);
+        if (exp != null)
+            return exp;
+        exp = ExperimentDAO.getById(idExperiment);
+        if (exp == null)
+            return null;
+        Experiment cached = expCache.putIfAbsent(idExperiment, exp);
+        return cached == null ? exp : cached;
+    }
+
+    private ParameterGraph getParamGraph(int idExperiment) throws Exception {
+        ParameterGraph pg = pgCache.get(idExperiment);
+        if (pg != null)
+            return pg;
+        // loading a graph is expensive, don't let several threads do it at the same time
+        synchronized (lock(experimentLocks, idExperiment)) {
+            pg = pgCache.get(idExperiment);
+            if (pg == null) {
+                pg = loadParameterGraphFromDB(idExperiment);
+                if (pg == null)
+                    return null;
+                pgCache.put(idExperiment, pg);
+            }
+            return pg;
+        }
+    }
+
+    private SolverBinaries getSolverBinary(int idSolverBinary) throws Exception {
+        SolverBinaries sb = sbCache.get(idSolverBinary);
+        if (sb != null)
+            return sb;
+        sb = SolverBinariesDAO.getById(idSolverBinary);
+        if (sb == null)
+            return null;
+        SolverBinaries cached = sbCache.putIfAbsent(idSolverBinary, sb);
+        return cached == null ? sb : cached;
+    }
+
+    /** has to be called with the solver config lock held */
+    private SolverConfigRuns getRunIndex(int idSolverConfig) throws Exception {
+        SolverConfigRuns runs = runIndexes.get(idSolverConfig);
+        if (runs == null) {
+            runs = SolverConfigRuns.load(idSolverConfig);
+            runIndexes.put(idSolverConfig, runs);
+        }
+        return runs;
+    }
+
+    private static Object[] newLocks() {
+        Object[] locks = new Object[LOCK_STRIPES];
+        for (int i = 0; i < locks.length; i++)
+            locks[i] = new Object();
+        return locks;
     }
 
-    private synchronized ParameterGraph getParamGraph(int idExperiment) throws Exception {
-        if (pgCache.containsKey(idExperiment))
-            return pgCache.get(idExperiment);
-        pgCache.put(idExperiment, loadParameterGraphFromDB(idExperiment));
-        return pgCache.get(idExperiment);
+    /** index of the lock of an ID in the lock arrays, consecutive IDs get different locks */
+    private static int stripe(int id) {
+        return id & (LOCK_STRIPES - 1);
     }
 
-    private synchronized SolverBinaries getSolverBinary(int idSolverBinary) throws Exception {
-        if (sbCache.containsKey(idSolverBinary))
-            return sbCache.get(idSolverBinary);
-        sbCache.put(idSolverBinary, SolverBinariesDAO.getById(idSolverBinary));
-        return sbCache.get(idSolverBinary);
+    private static Object lock(Object[] locks, int id) {
+        return locks[stripe(id)];
     }
 
     public float getTotalCPUTime(int idExperiment) throws Exception {
@@ -0,0 +1,15 @@
+package edacc.api;
+
+/**
+ * Listener for finished jobs of an experiment, see {@link API#addJobCompletionListener(int, JobCompletionListener)}.
+ */
+public interface JobCompletionListener {
+    /**
+     * Called by the background poller of the experiment when a job has finished, i.e. its status
+     * is neither "not started" nor "running" anymore. The poller waits for the listeners, so they
+     * should return quickly.
+     * 
+     * @param job
+     */
+    public void jobCompleted(JobStatus job);
+}
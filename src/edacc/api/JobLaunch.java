@@ -0,0 +1,56 @@
+package edacc.api;
+
+import java.math.BigInteger;
+
+/**
+ * Description of one job to be created by {@link API#launchJobs(int, java.util.List)}.
+ */
+public class JobLaunch {
+    private final int idSolverConfig;
+    private final int idInstance;
+    private final BigInteger seed;
+    private final int cpuTimeLimit;
+    private final int wallClockTimeLimit;
+    private final int priority;
+
+    /**
+     * @param idSolverConfig ID of the solver configuration.
+     * @param idInstance ID of the instance.
+     * @param seed integer seed that is assigned to the seed parameter of the solver configuration.
+     * @param cpuTimeLimit time limit of the job in CPU seconds.
+     * @param wallClockTimeLimit time limit of the job in wall clock seconds.
+     * @param priority priority of the job, only jobs with priority >= 0 will be considered for computation.
+     */
+    public JobLaunch(int idSolverConfig, int idInstance, BigInteger seed, int cpuTimeLimit, int wallClockTimeLimit, int priority) {
+        this.idSolverConfig = idSolverConfig;
+        this.idInstance = idInstance;
+        this.seed = seed;
+        this.cpuTimeLimit = cpuTimeLimit;
+        this.wallClockTimeLimit = wallClockTimeLimit;
+        this.priority = priority;
+    }
+
+    public int getIdSolverConfig() {
+        return idSolverConfig;
+    }
+
+    public int getIdInstance() {
+        return idInstance;
+    }
+
+    public BigInteger getSeed() {
+        return seed;
+    }
+
+    public int getCpuTimeLimit() {
+        return cpuTimeLimit;
+    }
+
+    public int getWallClockTimeLimit() {
+        return wallClockTimeLimit;
+    }
+
+    public int getPriority() {
+        return priority;
+    }
+}
@@ -0,0 +1,347 @@
+package edacc.api;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+
+import edacc.model.DatabaseConnector;
+import edacc.model.StatusCode;
+
+/**
+ * Background poller of the jobs of one experiment. All threads waiting for jobs of the experiment
+ * and all completion listeners share one thread that fetches the modified jobs by
+ * {@link API#getJobStatusUpdates(int, Timestamp)}.
+ *
+ * The poll interval adapts to the experiment: it is reset to {@link #MIN_INTERVAL} when jobs changed,
+ * doubles up to {@link #MAX_INTERVAL} while nothing changes and is shortened when a running job is
+ * expected to finish before the next poll (based on the mean result time of the finished jobs).
+ * The thread is started on demand and ends when there are neither waiting threads nor listeners.
+ *
+ * The poller keeps the status of the unfinished jobs and of the last {@link #MAX_COMPLETED} finished
+ * jobs besides the ones threads wait for. A thread waiting for an older finished job causes a poll of
+ * all jobs of the experiment.
+ */
+class JobPoller implements Runnable {
+    /** poll intervals in milliseconds */
+    static final long MIN_INTERVAL = 100, MAX_INTERVAL = 5000;
+    /** number of finished jobs that are kept for threads that start waiting for them later */
+    static final int MAX_COMPLETED = 10000;
+
+    private final API api;
+    private final int idExperiment;
+    private final Object lock = new Object();
+    private final List<JobCompletionListener> listeners = new CopyOnWriteArrayList<JobCompletionListener>();
+    // all fields below are guarded by lock
+    private final Map<Integer, JobStatus> completed = new LinkedHashMap<Integer, JobStatus>(); // in the order the jobs finished
+    private final Map<Integer, Integer> wanted = new HashMap<Integer, Integer>(); // job ID -> number of threads waiting for it
+    private final Map<Integer, Long> runningSince = new HashMap<Integer, Long>(); // job ID -> time it was first seen running
+    private final Map<Integer, Integer> unfinished = new HashMap<Integer, Integer>(); // job ID -> status
+    private int maxDropped = -1; // highest ID of the finished jobs dropped from completed
+    private boolean fullPollRequested;
+    private double totalResultTime;
+    private int numResultTimes;
+    private Timestamp watermark;
+    private long interval = MIN_INTERVAL;
+    private int waiters;
+    private boolean pollRequested;
+    private boolean stopped;
+    private boolean retired; // replaced by a new poller of the experiment, see retireIfIdle()
+    private Thread thread;
+    private long polls; // number of finished polls
+    private Exception error; // exception of the last poll or of the poller thread, null if it succeeded
+    private long errorPoll;
+
+    JobPoller(API api, int idExperiment) {
+        this.api = api;
+        this.idExperiment = idExperiment;
+    }
+
+    /**
+     * Waits until any or all of the given jobs have finished or the timeout has elapsed.
+     * @param jobIds
+     * @param all wait for all jobs instead of any of them
+     * @param timeoutMillis
+     * @return the finished jobs among <code>jobIds</code>, null if the poller was retired
+     * @throws Exception if polling failed while waiting
+     */
+    Map<Integer, JobStatus> await(Collection<Integer> jobIds, boolean all, long timeoutMillis) throws Exception {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        Set<Integer> ids = new HashSet<Integer>(jobIds);
+        synchronized (lock) {
+            if (stopped) throw new IllegalStateException("The API was disconnected");
+            if (retired) return null;
+            waiters++;
+            for (Integer id: ids) {
+                Integer n = wanted.get(id);
+                wanted.put(id, n == null ? 1 : n + 1);
+            }
+            try {
+                long firstPoll = polls;
+                boolean requested = false;
+                while (true) {
+                    Map<Integer, JobStatus> done = new HashMap<Integer, JobStatus>();
+                    for (Integer id: jobIds) {
+                        JobStatus job = completed.get(id);
+                        if (job != null) done.put(id, job);
+                    }
+                    if (all ? done.size() == ids.size() : !done.isEmpty()) return done;
+                    if (error != null && errorPoll > firstPoll) throw error;
+                    long remaining = deadline - System.currentTimeMillis();
+                    if (remaining <= 0 || stopped) return done;
+                    if (!requested) {
+                        // the jobs may have finished since the last poll or have been dropped already
+                        for (Integer id: ids) {
+                            if (id <= maxDropped && !completed.containsKey(id) && !unfinished.containsKey(id)) fullPollRequested = true;
+                        }
+                        pollRequested = true;
+                        requested = true;
+                        start();
+                        lock.notifyAll();
+                    }
+                    lock.wait(remaining);
+                }
+            } finally {
+                waiters--;
+                for (Integer id: ids) {
+                    int n = wanted.get(id);
+                    if (n == 1) wanted.remove(id);
+                    else wanted.put(id, n - 1);
+                }
+            }
+        }
+    }
+
+    /**
+     * @param listener
+     * @return false if the poller was retired and the listener wasn't added
+     */
+    boolean addListener(JobCompletionListener listener) {
+        synchronized (lock) {
+            if (stopped) throw new IllegalStateException("The API was disconnected");
+            if (retired) return false;
+            listeners.add(listener);
+            start();
+            return true;
+        }
+    }
+
+    void removeListener(JobCompletionListener listener) {
+        synchronized (lock) {
+            listeners.remove(listener);
+        }
+    }
+
+    /**
+     * Stops the poller, waiting threads return what they have.
+     */
+    void stop() {
+        synchronized (lock) {
+            stopped = true;
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * Retires the poller if no thread waits and there are no listeners, so that it can be dropped
+     * together with the state of the jobs it collected.
+     * @return whether the poller was retired
+     */
+    boolean retireIfIdle() {
+        synchronized (lock) {
+            if (waiters > 0 || !listeners.isEmpty()) return false;
+            retired = true;
+            lock.notifyAll();
+            return true;
+        }
+    }
+
+    /** has to be called with the lock held */
+    private void start() {
+        if (thread == null) {
+            thread = new Thread(this, "JobPoller-" + idExperiment);
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (true) {
+                Timestamp since;
+                synchronized (lock) {
+                    if (stopped || retired || (waiters == 0 && listeners.isEmpty())) {
+                        thread = null;
+                        return;
+                    }
+                    pollRequested = false;
+                    since = fullPollRequested ? null : watermark;
+                    fullPollRequested = false;
+                }
+                JobStatusUpdate update = null;
+                Exception failure = null;
+                try {
+                    update = api.getJobStatusUpdates(idExperiment, since);
+                } catch (Exception e) {
+                    failure = e;
+                } finally {
+                    // don't hold a connection of the pool while sleeping
+                    DatabaseConnector.getInstance().releaseConnection();
+                }
+
+                List<JobStatus> newlyCompleted = new ArrayList<JobStatus>();
+                synchronized (lock) {
+                    polls++;
+                    if (failure != null) {
+                        error = failure;
+                        errorPoll = polls;
+                        interval = Math.min(interval * 2, MAX_INTERVAL);
+                    } else {
+                        error = null;
+                        boolean changed = apply(update.getJobs(), newlyCompleted, since == null);
+                        watermark = update.getWatermark();
+                        interval = changed ? MIN_INTERVAL : Math.min(interval * 2, MAX_INTERVAL);
+                        interval = Math.min(interval, untilExpectedCompletion());
+                    }
+                    lock.notifyAll();
+                }
+
+                // exceptions of the listeners are passed on to the waiting threads like failed polls
+                RuntimeException listenerFailure = null;
+                for (JobStatus job: newlyCompleted) {
+                    for (JobCompletionListener listener: listeners) {
+                        try {
+                            listener.jobCompleted(job);
+                        } catch (RuntimeException e) {
+                            if (listenerFailure == null) listenerFailure = e;
+                        }
+                    }
+                }
+                if (listenerFailure != null) {
+                    synchronized (lock) {
+                        error = listenerFailure;
+                        errorPoll = polls;
+                        lock.notifyAll();
+                    }
+                }
+
+                // requests of new waiters are coalesced, there is at least MIN_INTERVAL between two polls
+                long lastPoll = System.currentTimeMillis();
+                synchronized (lock) {
+                    while (!stopped && !retired) {
+                        long remaining = lastPoll + (pollRequested ? MIN_INTERVAL : interval) - System.currentTimeMillis();
+                        if (remaining <= 0) break;
+                        lock.wait(remaining);
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+        } catch (RuntimeException e) {
+            fail(e);
+        } catch (Error e) {
+            fail(new ExecutionException(e));
+            throw e;
+        } finally {
+            synchronized (lock) {
+                // unless the thread already ended regularly and a new one was started
+                if (thread == Thread.currentThread()) thread = null;
+            }
+        }
+    }
+
+    /**
+     * Passes an unexpected exception of the poller thread on to the waiting threads, the thread is
+     * started again by the next waiter or listener.
+     */
+    private void fail(Exception e) {
+        synchronized (lock) {
+            error = e;
+            errorPoll = ++polls;
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * Updates the state of the jobs, has to be called with the lock held.
+     * @param jobs
+     * @param newlyCompleted receives the jobs that finished since the last poll
+     * @param full whether <code>jobs</code> are all jobs of the experiment. Of those only the jobs that
+     *        were seen unfinished before are taken as newly completed (none on the first poll).
+     * @return whether the status of any job changed
+     */
+    private boolean apply(List<JobStatus> jobs, List<JobStatus> newlyCompleted, boolean full) {
+        boolean changed = false;
+        long now = System.currentTimeMillis();
+        for (JobStatus job: jobs) {
+            int status = job.getStatus().getStatusCode();
+            if (isFinished(job.getStatus())) {
+                Integer last = unfinished.remove(job.getId());
+                runningSince.remove(job.getId());
+                JobStatus previous = completed.put(job.getId(), job);
+                if (previous == null) {
+                    changed = true;
+                    if (!full || last != null) newlyCompleted.add(job);
+                    totalResultTime += job.getResultTime();
+                    numResultTimes++;
+                } else if (previous.getStatus().getStatusCode() != status) {
+                    changed = true;
+                }
+            } else {
+                Integer last = unfinished.put(job.getId(), status);
+                if (completed.remove(job.getId()) != null) changed = true;
+                else if (last != null && last == status) continue;
+                changed = true;
+                if (job.getStatus().equals(StatusCode.RUNNING)) {
+                    if (!runningSince.containsKey(job.getId())) runningSince.put(job.getId(), now);
+                } else {
+                    runningSince.remove(job.getId());
+                }
+            }
+        }
+        if (full) {
+            // jobs that were deleted
+            Set<Integer> ids = new HashSet<Integer>();
+            for (JobStatus job: jobs) ids.add(job.getId());
+            unfinished.keySet().retainAll(ids);
+            runningSince.keySet().retainAll(ids);
+        }
+        // drop the oldest finished jobs no thread waits for
+        Iterator<Integer> it = completed.keySet().iterator();
+        for (int excess = completed.size() - MAX_COMPLETED; excess > 0 && it.hasNext();) {
+            int id = it.next();
+            if (wanted.containsKey(id)) continue;
+            it.remove();
+            maxDropped = Math.max(maxDropped, id);
+            excess--;
+        }
+        return changed;
+    }
+
+    /**
+     * @return milliseconds until the first running job is expected to finish, at least {@link #MIN_INTERVAL}
+     */
+    private long untilExpectedCompletion() {
+        if (numResultTimes == 0 || runningSince.isEmpty()) return MAX_INTERVAL;
+        long meanRuntime = (long)(1000 * totalResultTime / numResultTimes);
+        long now = System.currentTimeMillis();
+        long next = MAX_INTERVAL;
+        for (long start: runningSince.values()) {
+            long expected = start + meanRuntime - now;
+            if (expected < next) next = expected;
+        }
+        return Math.max(next, MIN_INTERVAL);
+    }
+
+    static boolean isFinished(StatusCode status) {
+        return !status.equals(StatusCode.NOT_STARTED) && !status.equals(StatusCode.RUNNING);
+    }
+}
@@ -0,0 +1,59 @@
+package edacc.api;
+
+import edacc.model.ResultCode;
+import edacc.model.StatusCode;
+
+/**
+ * Compact view of a job (experiment result) as returned by
+ * {@link API#getJobStatusUpdates(int, java.sql.Timestamp)}: only the columns needed to follow
+ * the progress of the job.
+ */
+public class JobStatus {
+    private final int id;
+    private final int solverConfigId;
+    private final StatusCode status;
+    private final ResultCode resultCode;
+    private final float resultTime;
+    private final Double cost;
+
+    JobStatus(int id, int solverConfigId, StatusCode status, ResultCode resultCode, float resultTime, Double cost) {
+        this.id = id;
+        this.solverConfigId = solverConfigId;
+        this.status = status;
+        this.resultCode = resultCode;
+        this.resultTime = resultTime;
+        this.cost = cost;
+    }
+
+    /** @return ID of the job */
+    public int getId() {
+        return id;
+    }
+
+    public int getSolverConfigId() {
+        return solverConfigId;
+    }
+
+    public StatusCode getStatus() {
+        return status;
+    }
+
+    public ResultCode getResultCode() {
+        return resultCode;
+    }
+
+    public float getResultTime() {
+        return resultTime;
+    }
+
+    /** @return cost of the job or null if it has none */
+    public Double getCost() {
+        return cost;
+    }
+
+    @Override
+    public String toString() {
+        return "JobStatus [id=" + id + ", solverConfigId=" + solverConfigId + ", status=" + status + ", resultCode=" + resultCode
+                + ", resultTime=" + resultTime + ", cost=" + cost + "]";
+    }
+}
@@ -0,0 +1,31 @@
+package edacc.api;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * Result of {@link API#getJobStatusUpdates(int, Timestamp)}: the jobs that changed and the
+ * watermark to pass to the next call.
+ */
+public class JobStatusUpdate {
+    private final List<JobStatus> jobs;
+    private final Timestamp watermark;
+
+    JobStatusUpdate(List<JobStatus> jobs, Timestamp watermark) {
+        this.jobs = jobs;
+        this.watermark = watermark;
+    }
+
+    /** @return the jobs that were modified since the given watermark */
+    public List<JobStatus> getJobs() {
+        return jobs;
+    }
+
+    /**
+     * @return database time before the jobs were read, to be passed as <code>since</code> to the next
+     * call of {@link API#getJobStatusUpdates(int, Timestamp)}
+     */
+    public Timestamp getWatermark() {
+        return watermark;
+    }
+}
@@ -0,0 +1,81 @@
+package edacc.api;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.HashMap;
+import java.util.Map;
+
+import edacc.model.Course;
+import edacc.model.DatabaseConnector;
+import edacc.model.InstanceSeed;
+
+/**
+ * Index of the jobs of one solver configuration by instance and seed, used to find the progress of the
+ * solver configuration in the course of its experiment without comparing every course entry with every job.
+ *
+ * The index is loaded from the database when it isn't cached and afterwards updated by the API as jobs
+ * are launched, so jobs that are created for the solver configuration by other means are not seen until
+ * the index is evicted or invalidated, e.g. by {@link API#invalidateExperiment(int)}. Instances are
+ * guarded by the solver config lock of {@link APIImpl}.
+ */
+class SolverConfigRuns {
+    private final Map<Long, Integer> jobs = new HashMap<Long, Integer>(); // (instance, seed) -> ID of the first job
+    private int courseProgress; // number of leading course entries known to have a job
+
+    /**
+     * Loads the jobs of the solver configuration.
+     * @param idSolverConfig
+     * @return
+     * @throws Exception
+     */
+    static SolverConfigRuns load(int idSolverConfig) throws Exception {
+        SolverConfigRuns runs = new SolverConfigRuns();
+        PreparedStatement ps = DatabaseConnector.getInstance().getConn().prepareStatement(
+                "SELECT idJob, Instances_idInstance, seed FROM ExperimentResults WHERE SolverConfig_idSolverConfig=? ORDER BY idJob");
+        ps.setInt(1, idSolverConfig);
+        ResultSet rs = ps.executeQuery();
+        while (rs.next()) {
+            runs.add(rs.getInt(2), rs.getInt(3), rs.getInt(1));
+        }
+        rs.close();
+        ps.close();
+        return runs;
+    }
+
+    /**
+     * Records a new job, the first job of an instance-seed pair is the one that counts.
+     */
+    void add(int idInstance, int seed, int idJob) {
+        Long key = key(idInstance, seed);
+        if (!jobs.containsKey(key))
+            jobs.put(key, idJob);
+    }
+
+    /**
+     * @return ID of the first job of the solver configuration on the instance with the seed, null if there is none
+     */
+    Integer getJob(int idInstance, int seed) {
+        return jobs.get(key(idInstance, seed));
+    }
+
+    /**
+     * Returns the number of leading entries of the course the solver configuration has a job for, i.e.
+     * the position of its next job in the course. Since jobs are only added, the position never moves
+     * back and each call only looks at the entries after the previous position.
+     * @param course the course of the experiment, has to be accessed with the experiment lock held
+     * @return
+     */
+    int getCourseProgress(Course course) {
+        while (courseProgress < course.getLength() && contains(course.get(courseProgress)))
+            courseProgress++;
+        return courseProgress;
+    }
+
+    private boolean contains(InstanceSeed is) {
+        return jobs.containsKey(key(is.instance.getId(), is.seed));
+    }
+
+    private static Long key(int idInstance, int seed) {
+        return ((long) idInstance << 32) | (seed & 0xffffffffL);
+    }
+}
@@ -0,0 +1,47 @@
+package edacc.api.cache;
+
+/**
+ * Cache of the metadata objects (experiments, configuration scenarios, parameter graphs, ...) that
+ * {@link edacc.api.APIImpl} loads from the database. Implementations have to be thread-safe.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ */
+public interface Cache<K, V> {
+    /**
+     * @param key
+     * @return the cached value, null if there is none or it expired
+     */
+    public V get(K key);
+
+    /**
+     * Caches the value, replacing the current value of the key.
+     * @param key
+     * @param value
+     */
+    public void put(K key, V value);
+
+    /**
+     * Caches the value unless there already is a value for the key.
+     * @param key
+     * @param value
+     * @return the value that was already cached, null if <code>value</code> was cached
+     */
+    public V putIfAbsent(K key, V value);
+
+    /**
+     * Removes the value of the key.
+     * @param key
+     */
+    public void invalidate(K key);
+
+    /**
+     * Removes all values.
+     */
+    public void invalidateAll();
+
+    /**
+     * @return snapshot of the statistics of this cache
+     */
+    public CacheStats getStats();
+}
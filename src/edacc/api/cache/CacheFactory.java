@@ -0,0 +1,12 @@
+package edacc.api.cache;
+
+/**
+ * Creates the caches of {@link edacc.api.APIImpl}, see {@link edacc.api.APIImpl#APIImpl(CacheFactory)}.
+ */
+public interface CacheFactory {
+    /**
+     * @param name name of the cache, e.g. "parameterGraphs"
+     * @return a new, empty cache
+     */
+    public <K, V> Cache<K, V> createCache(String name);
+}
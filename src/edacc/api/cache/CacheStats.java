@@ -0,0 +1,49 @@
+package edacc.api.cache;
+
+/**
+ * Statistics of a {@link Cache} at some point of time.
+ */
+public class CacheStats {
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+    private final int size;
+
+    public CacheStats(long hits, long misses, long evictions, int size) {
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.size = size;
+    }
+
+    /** @return number of lookups that found a value */
+    public long getHits() {
+        return hits;
+    }
+
+    /** @return number of lookups that found no value or an expired one */
+    public long getMisses() {
+        return misses;
+    }
+
+    /** @return number of values removed because the cache was full or they expired, not counting invalidations */
+    public long getEvictions() {
+        return evictions;
+    }
+
+    /** @return number of cached values */
+    public int getSize() {
+        return size;
+    }
+
+    /** @return fraction of the lookups that found a value, 0 if there were none */
+    public double getHitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : hits / (double) lookups;
+    }
+
+    @Override
+    public String toString() {
+        return "hits=" + hits + ", misses=" + misses + ", evictions=" + evictions + ", size=" + size;
+    }
+}
@@ -0,0 +1,122 @@
+package edacc.api.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cache that holds at most a given number of values, evicting the least recently used one when it is
+ * full, and optionally drops values a given time after they were cached. Expired values are dropped
+ * when they are read or when they are the least recently used ones, so the size of the cache can
+ * include expired values that were used recently.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ */
+public class LRUCache<K, V> implements Cache<K, V> {
+    private final int maxSize;
+    private final long ttlNanos;
+    private final LinkedHashMap<K, CachedValue<V>> map;
+    private long hits, misses, evictions;
+
+    private static class CachedValue<V> {
+        final V value;
+        final long created;
+
+        CachedValue(V value, long created) {
+            this.value = value;
+            this.created = created;
+        }
+    }
+
+    /**
+     * @param maxSize maximum number of values, 0 for no limit
+     * @param ttl time after which a value expires, 0 for values that don't expire
+     * @param unit unit of <code>ttl</code>
+     */
+    public LRUCache(int maxSize, long ttl, TimeUnit unit) {
+        if (maxSize < 0 || ttl < 0) throw new IllegalArgumentException("maxSize and ttl must not be negative");
+        this.maxSize = maxSize;
+        this.ttlNanos = unit.toNanos(ttl);
+        this.map = new LinkedHashMap<K, CachedValue<V>>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, CachedValue<V>> eldest) {
+                if (LRUCache.this.maxSize > 0 && size() > LRUCache.this.maxSize) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public synchronized V get(K key) {
+        CachedValue<V> e = map.get(key);
+        if (e != null && expired(e, nanoTime())) {
+            map.remove(key);
+            evictions++;
+            e = null;
+        }
+        if (e == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return e.value;
+    }
+
+    public synchronized void put(K key, V value) {
+        long now = nanoTime();
+        removeExpired(now);
+        map.put(key, new CachedValue<V>(value, now));
+    }
+
+    public synchronized V putIfAbsent(K key, V value) {
+        long now = nanoTime();
+        removeExpired(now);
+        CachedValue<V> e = map.get(key);
+        if (e != null && !expired(e, now))
+            return e.value;
+        if (e != null)
+            evictions++;
+        map.put(key, new CachedValue<V>(value, now));
+        return null;
+    }
+
+    public synchronized void invalidate(K key) {
+        map.remove(key);
+    }
+
+    public synchronized void invalidateAll() {
+        map.clear();
+    }
+
+    public synchronized CacheStats getStats() {
+        removeExpired(nanoTime());
+        return new CacheStats(hits, misses, evictions, map.size());
+    }
+
+    /** @return current time in nanoseconds, used for the expiration of values */
+    protected long nanoTime() {
+        return System.nanoTime();
+    }
+
+    private boolean expired(CachedValue<V> e, long now) {
+        return ttlNanos > 0 && now - e.created >= ttlNanos;
+    }
+
+    /** drops the least recently used values up to the first one that hasn't expired */
+    private void removeExpired(long now) {
+        if (ttlNanos == 0)
+            return;
+        for (Iterator<CachedValue<V>> it = map.values().iterator(); it.hasNext();) {
+            if (!expired(it.next(), now))
+                break;
+            it.remove();
+            evictions++;
+        }
+    }
+}
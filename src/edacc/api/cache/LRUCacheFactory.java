@@ -0,0 +1,25 @@
+package edacc.api.cache;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creates {@link LRUCache}s with the same size limit and time to live.
+ */
+public class LRUCacheFactory implements CacheFactory {
+    private final int maxSize;
+    private final long ttl;
+    private final TimeUnit unit;
+
+    /**
+     * @see LRUCache#LRUCache(int, long, TimeUnit)
+     */
+    public LRUCacheFactory(int maxSize, long ttl, TimeUnit unit) {
+        this.maxSize = maxSize;
+        this.ttl = ttl;
+        this.unit = unit;
+    }
+
+    public <K, V> Cache<K, V> createCache(String name) {
+        return new LRUCache<K, V>(maxSize, ttl, unit);
+    }
+}
@@ -0,0 +1,128 @@
+package edacc.parameterspace;
+
+import java.util.Arrays;
+import java.util.Set;
+
+/**
+ * Column-wise storage of many parameter configurations: one <code>double</code> array per parameter,
+ * addressed by the ordinals of a {@link ParameterIndex}. This avoids one object per configuration
+ * when large numbers of configurations are sampled, e.g. for an initial design.
+ *
+ * Values are stored by their numeric code: numbers as they are, categorical values by their position
+ * in the sorted categories plus one, ordinal values by their position plus one, flags as 1 (OFF)
+ * and 2 (ON) and inactive parameters as NaN. These are the codes used by
+ * {@link edacc.parameterspace.graph.ParameterGraph#conditionalParentsForRF(java.util.List)}.
+ */
+public final class ConfigurationBatch {
+	private final ParameterIndex index;
+	private final ValueCoding[] codings;
+	private double[][] columns;
+	private int size;
+	private int capacity;
+
+	/**
+	 * Creates an empty batch.
+	 * @param parameters the parameters of the configurations, usually {@link edacc.parameterspace.graph.ParameterGraph#getParameterSet()}
+	 * @param capacity initial number of configurations the batch has room for, it grows as needed
+	 */
+	public ConfigurationBatch(Set<Parameter> parameters, int capacity) {
+		this.index = ParameterIndex.of(parameters);
+		this.codings = new ValueCoding[index.size()];
+		this.capacity = Math.max(capacity, 1);
+		this.columns = new double[index.size()][this.capacity];
+		for (int i = 0; i < codings.length; i++) codings[i] = new ValueCoding(index.get(i).getDomain());
+	}
+
+	public ParameterIndex getParameterIndex() {
+		return index;
+	}
+
+	/**
+	 * @return number of configurations in the batch
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Removes all configurations, keeping the allocated columns.
+	 */
+	public void clear() {
+		size = 0;
+	}
+
+	/**
+	 * Returns the column of the parameter with the given ordinal. The array is not copied and only the
+	 * first {@link #size()} entries are valid; it is replaced when the batch grows.
+	 * @param ordinal
+	 * @return
+	 */
+	public double[] getColumn(int ordinal) {
+		return columns[ordinal];
+	}
+
+	/**
+	 * @see #getColumn(int)
+	 */
+	public double[] getColumn(Parameter p) {
+		int i = index.ordinal(p);
+		if (i == -1) throw new IllegalArgumentException("Unknown parameter " + p);
+		return columns[i];
+	}
+
+	/**
+	 * @param row
+	 * @param ordinal
+	 * @return the code of the value of the parameter in the given configuration
+	 */
+	public double get(int row, int ordinal) {
+		if (row >= size) throw new IndexOutOfBoundsException("Row " + row + ", size " + size);
+		return columns[ordinal][row];
+	}
+
+	/**
+	 * Appends a configuration.
+	 * @param config configuration over the same parameters as this batch
+	 */
+	public void add(ConfigurationView config) {
+		boolean sameIndex = config.getParameterIndex() == index;
+		int row = newRow();
+		for (int i = 0; i < codings.length; i++) {
+			Object v = sameIndex ? config.getParameterValue(i) : config.getParameterValue(index.get(i));
+			columns[i][row] = codings[i].encode(v);
+		}
+	}
+
+	/**
+	 * Appends a configuration given by its values.
+	 * @param values the values of the parameters, in the order of the ordinals of {@link #getParameterIndex()}
+	 */
+	public void add(Object[] values) {
+		if (values.length != codings.length) throw new IllegalArgumentException("Expected " + codings.length + " values");
+		int row = newRow();
+		for (int i = 0; i < codings.length; i++) columns[i][row] = codings[i].encode(values[i]);
+	}
+
+	/**
+	 * Decodes one configuration of the batch.
+	 * @param row
+	 * @return a new configuration
+	 */
+	public ParameterConfiguration getConfiguration(int row) {
+		if (row >= size) throw new IndexOutOfBoundsException("Row " + row + ", size " + size);
+		ParameterConfiguration config = new ParameterConfiguration(index.asSet());
+		for (int i = 0; i < codings.length; i++) {
+			Object v = codings[i].decode(columns[i][row]);
+			if (v != null) config.setParameterValueFast(i, v);
+		}
+		return config;
+	}
+
+	private int newRow() {
+		if (size == capacity) {
+			capacity = size + (size >> 1) + 1;
+			for (int i = 0; i < columns.length; i++) columns[i] = Arrays.copyOf(columns[i], capacity);
+		}
+		return size++;
+	}
+}
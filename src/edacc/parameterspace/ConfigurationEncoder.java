@@ -0,0 +1,146 @@
+package edacc.parameterspace;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import edacc.parameterspace.graph.ParameterGraph;
+
+/**
+ * Encodes configurations of a parameter graph as numeric vectors for surrogate models, e.g. the random
+ * forests of model-based configurators. Each encoder is built once for a graph and an ordering of some
+ * of its parameters; column i of a row holds the code of the i-th parameter of that ordering.
+ *
+ * The codes are the ones of {@link ConfigurationBatch}, which match
+ * {@link ParameterGraph#conditionalParentsForRF(List)}: numbers as they are, categorical values by their
+ * position in the sorted categories plus one, ordinal values by their position plus one, flags as
+ * 1 (OFF) and 2 (ON) and inactive parameters as NaN.
+ *
+ * Encoders are immutable and can be shared by threads.
+ */
+public final class ConfigurationEncoder {
+	private final List<Parameter> parameters;
+	private final ParameterIndex index; // parameter index of the graph
+	private final int[] ordinals; // column -> ordinal of the parameter in index
+	private final ValueCoding[] codings;
+
+	/**
+	 * @param graph
+	 * @param parameters the parameters to encode, in the order of the columns
+	 * @throws IllegalArgumentException if a parameter isn't part of the graph
+	 */
+	public ConfigurationEncoder(ParameterGraph graph, List<Parameter> parameters) {
+		this.parameters = Collections.unmodifiableList(new ArrayList<Parameter>(parameters));
+		this.index = ParameterIndex.of(graph.getParameterSet());
+		this.ordinals = new int[parameters.size()];
+		this.codings = new ValueCoding[parameters.size()];
+		for (int i = 0; i < ordinals.length; i++) {
+			Parameter p = this.parameters.get(i);
+			ordinals[i] = index.ordinal(p);
+			if (ordinals[i] == -1) throw new IllegalArgumentException("Parameter " + p.getName() + " is not part of the graph");
+			codings[i] = new ValueCoding(index.get(ordinals[i]).getDomain());
+		}
+	}
+
+	/**
+	 * @return the parameters of the columns
+	 */
+	public List<Parameter> getParameters() {
+		return parameters;
+	}
+
+	/**
+	 * @return number of columns of an encoded configuration
+	 */
+	public int getNumColumns() {
+		return ordinals.length;
+	}
+
+	/**
+	 * @param config
+	 * @return a new row with the codes of the configuration
+	 */
+	public double[] encode(ConfigurationView config) {
+		double[] row = new double[ordinals.length];
+		encode(config, row, 0);
+		return row;
+	}
+
+	/**
+	 * Writes the codes of the configuration to <code>row[offset]</code> .. <code>row[offset + getNumColumns() - 1]</code>.
+	 * Parameters that are missing from the configuration are encoded as inactive.
+	 * @param config
+	 * @param row
+	 * @param offset
+	 */
+	public void encode(ConfigurationView config, double[] row, int offset) {
+		if (config.getParameterIndex() == index) {
+			for (int i = 0; i < ordinals.length; i++) row[offset + i] = codings[i].encode(config.getParameterValue(ordinals[i]));
+		} else {
+			ParameterIndex configIndex = config.getParameterIndex();
+			for (int i = 0; i < ordinals.length; i++) {
+				int o = configIndex.ordinal(parameters.get(i));
+				row[offset + i] = o == -1 ? Double.NaN : codings[i].encode(config.getParameterValue(o));
+			}
+		}
+	}
+
+	/**
+	 * @param column
+	 * @param value a value of the parameter of the column, null if the parameter is inactive
+	 * @return the code of the value
+	 * @throws IllegalArgumentException if the value isn't a value of the parameter
+	 */
+	public double encodeValue(int column, Object value) {
+		return codings[column].encode(value);
+	}
+
+	/**
+	 * Encodes the configurations into preallocated rows.
+	 * @param configs
+	 * @param rows one row of at least {@link #getNumColumns()} entries per configuration
+	 */
+	public void encode(List<? extends ConfigurationView> configs, double[][] rows) {
+		if (rows.length < configs.size()) throw new IllegalArgumentException("Expected at least " + configs.size() + " rows");
+		int r = 0;
+		for (ConfigurationView config: configs) encode(config, rows[r++], 0);
+	}
+
+	/**
+	 * Encodes the configurations into a row-major matrix: configuration r is stored at
+	 * <code>matrix[r * getNumColumns()]</code> .. <code>matrix[(r + 1) * getNumColumns() - 1]</code>.
+	 * @param configs
+	 * @param matrix at least <code>configs.size() * getNumColumns()</code> entries
+	 */
+	public void encode(List<? extends ConfigurationView> configs, double[] matrix) {
+		if (matrix.length < configs.size() * ordinals.length) throw new IllegalArgumentException("Expected at least " + configs.size() * ordinals.length + " entries");
+		int offset = 0;
+		for (ConfigurationView config: configs) {
+			encode(config, matrix, offset);
+			offset += ordinals.length;
+		}
+	}
+
+	/**
+	 * Decodes a row. Parameters of the graph that aren't columns of this encoder are not set.
+	 * @param row
+	 * @param offset position of the first column in <code>row</code>
+	 * @return a new configuration of the graph
+	 * @throws IllegalArgumentException if a code isn't a valid code of its parameter
+	 */
+	public ParameterConfiguration decode(double[] row, int offset) {
+		ParameterConfiguration config = new ParameterConfiguration(index.asSet());
+		for (int i = 0; i < ordinals.length; i++) {
+			Object v = codings[i].decode(row[offset + i]);
+			if (v != null) config.setParameterValueFast(ordinals[i], v);
+		}
+		return config;
+	}
+
+	/**
+	 * @see #decode(double[], int)
+	 */
+	public ParameterConfiguration decode(double[] row) {
+		return decode(row, 0);
+	}
+}
@@ -0,0 +1,34 @@
+package edacc.parameterspace;
+
+/**
+ * Read access to the parameter values of a configuration. Implemented by
+ * {@link ParameterConfiguration} and by the lightweight {@link DeltaConfiguration}
+ * neighbours returned by the delta neighbourhood methods of the parameter graph.
+ */
+public interface ConfigurationView {
+	public ParameterIndex getParameterIndex();
+
+	/**
+	 * @param p
+	 * @return the value of the parameter
+	 * @throws IllegalArgumentException if the parameter isn't part of the configuration
+	 */
+	public Object getParameterValue(Parameter p);
+
+	/**
+	 * @param ordinal ordinal of the parameter in {@link #getParameterIndex()}
+	 * @return the value of the parameter
+	 */
+	public Object getParameterValue(int ordinal);
+
+	/**
+	 * @return order-independent 64 bit fingerprint, equal configurations have equal fingerprints
+	 * @see ParameterConfiguration#getFingerprint()
+	 */
+	public long getFingerprint();
+
+	/**
+	 * @return a new, independent parameter configuration with the values of this view
+	 */
+	public ParameterConfiguration materialize();
+}
@@ -0,0 +1,90 @@
+package edacc.parameterspace;
+
+/**
+ * A configuration that differs from a base configuration in the value of exactly one parameter.
+ * Only the base reference, the parameter ordinal and the new value are stored; a full
+ * {@link ParameterConfiguration} is created by {@link #materialize()} when it is actually needed,
+ * e.g. before creating a solver configuration from it.
+ *
+ * The base configuration must not be modified while deltas on it are in use.
+ */
+public final class DeltaConfiguration implements ConfigurationView {
+	private final ParameterConfiguration base;
+	private final int ordinal;
+	private final Object value;
+	private final long fingerprint;
+
+	/**
+	 * @param base the configuration this delta is based on
+	 * @param ordinal ordinal of the changed parameter in the index of the base configuration
+	 * @param value new value of the parameter, it has to be contained in the domain of the parameter
+	 */
+	public DeltaConfiguration(ParameterConfiguration base, int ordinal, Object value) {
+		ParameterIndex index = base.getParameterIndex();
+		this.base = base;
+		this.ordinal = ordinal;
+		this.value = ParameterConfiguration.checkedValue(index.get(ordinal), value);
+		this.fingerprint = base.getFingerprint() - ParameterConfiguration.term(index, ordinal, base.getParameterValue(ordinal))
+				+ ParameterConfiguration.term(index, ordinal, this.value);
+	}
+
+	public ParameterConfiguration getBase() {
+		return base;
+	}
+
+	/**
+	 * @return the changed parameter
+	 */
+	public Parameter getParameter() {
+		return base.getParameterIndex().get(ordinal);
+	}
+
+	/**
+	 * @return the ordinal of the changed parameter
+	 */
+	public int getOrdinal() {
+		return ordinal;
+	}
+
+	/**
+	 * @return the new value of the changed parameter
+	 */
+	public Object getValue() {
+		return value;
+	}
+
+	@Override
+	public ParameterIndex getParameterIndex() {
+		return base.getParameterIndex();
+	}
+
+	@Override
+	public Object getParameterValue(Parameter p) {
+		int i = base.getParameterIndex().ordinal(p);
+		if (i == -1)
+			throw new IllegalArgumentException("The parameter has to be part of a solver configuration");
+		return getParameterValue(i);
+	}
+
+	@Override
+	public Object getParameterValue(int ordinal) {
+		return ordinal == this.ordinal ? value : base.getParameterValue(ordinal);
+	}
+
+	@Override
+	public long getFingerprint() {
+		return fingerprint;
+	}
+
+	@Override
+	public ParameterConfiguration materialize() {
+		ParameterConfiguration config = new ParameterConfiguration(base);
+		config.setParameterValueFast(ordinal, value);
+		return config;
+	}
+
+	@Override
+	public String toString() {
+		return materialize().toString();
+	}
+}
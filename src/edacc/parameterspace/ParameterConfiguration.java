@@ -1,128 +1,239 @@
 package edacc.parameterspace;
 
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
-import java.util.ArrayList;
-import java.util.Collections;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.List;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
 
+import edacc.parameterspace.domain.CategoricalDomain;
+import edacc.parameterspace.domain.DiscreteGrid;
 import edacc.parameterspace.domain.FlagDomain;
 import edacc.parameterspace.domain.OptionalDomain;
+import edacc.parameterspace.domain.OrdinalDomain;
 import edacc.parameterspace.domain.RealDomain;
 
-public class ParameterConfiguration implements Serializable {
+public class ParameterConfiguration implements ConfigurationView, Serializable {
 	/**
 	 * 
 	 */
 	private static final long serialVersionUID = -8241847198586343570L;
-	private Map<Parameter, Object> parameter_instances;
-	private byte[] checksum;
-	private int checksumHashCode;
+	private final ParameterIndex index;
+	private final Object[] values; // parameter ordinal -> value
+	private long fingerprint; // sum of the fingerprint terms of all values, see term()
+	private byte[] checksum; // SHA-1 checksum, null if it has to be recalculated
+	private transient Map<Parameter, Object> parameter_instances;
+	private transient Map<Parameter, Object> serialized_instances; // set by readObject for readResolve
 	
+	/**
+	 * The serialized form is the one of earlier versions, which stored the values in a map,
+	 * so streams written by either version can be read by the other.
+	 */
+	private static final ObjectStreamField[] serialPersistentFields = {
+		new ObjectStreamField("parameter_instances", Map.class),
+		new ObjectStreamField("checksum", byte[].class),
+		new ObjectStreamField("checksumHashCode", int.class)
+	};
+	
+	/**
+	 * Creates a configuration with all parameters unset. Configurations created from the same
+	 * set (e.g. {@link edacc.parameterspace.graph.ParameterGraph#getParameterSet()}) share
+	 * one {@link ParameterIndex}.
+	 * @param parameters
+	 */
 	public ParameterConfiguration(Set<Parameter> parameters) {
 		this.checksum = null;
-		this.parameter_instances = new HashMap<Parameter, Object>();
-		for (Parameter p: parameters) parameter_instances.put(p, null);
+		this.index = ParameterIndex.of(parameters);
+		this.values = new Object[index.size()];
 	}
 	
+	/**
+	 * Returns the SHA-1 checksum of the configuration (see {@link #updateChecksum()}).
+	 * The checksum is calculated on demand and cached until a value changes.
+	 * @return
+	 */
 	public byte[] getChecksum() {
+		if (checksum == null) updateChecksum();
 		return checksum;
 	}
 	
+	/**
+	 * Returns a 64 bit fingerprint of the configuration that is kept up to date in O(1) when
+	 * a value changes. The fingerprint doesn't depend on the parameter order, and unset, OFF and
+	 * NOT_SPECIFIED values don't contribute to it, so configurations that are equal have the same fingerprint.
+	 * @return
+	 */
+	@Override
+	public long getFingerprint() {
+		return fingerprint;
+	}
+	
 	/**
 	 * Updates the checksum of the parameter configuration in canonical representation, i.e.
 	 * parameters are sorted by their name and the string representation of their
 	 * values are fed to a hash function one after another. 
+	 * Usually there's no need to call this, {@link #getChecksum()} calculates the checksum on demand.
 	 */
 	public void updateChecksum() {
 		try {
 			MessageDigest md = MessageDigest.getInstance("SHA");
-			List<Parameter> sortedKeys = new ArrayList<Parameter>(parameter_instances.keySet());
-			Collections.sort(sortedKeys);
-			for (Parameter p: sortedKeys) {
-				if (parameter_instances.get(p) != null && 
-					!(parameter_instances.get(p) instanceof OptionalDomain.OPTIONS) &&
-					!(parameter_instances.get(p).equals(FlagDomain.FLAGS.OFF))) {
-					md.update(getValueRepresentation(parameter_instances.get(p)).getBytes());
+			// values are stored in ascending order of the parameter names
+			for (Object value: values) {
+				if (value != null && 
+					!(value instanceof OptionalDomain.OPTIONS) &&
+					!(value.equals(FlagDomain.FLAGS.OFF))) {
+					md.update(getValueRepresentation(value).getBytes());
 				}
 			}
 			this.checksum = md.digest();
-			this.checksumHashCode = java.util.Arrays.hashCode(checksum);
 		} catch (NoSuchAlgorithmException e) {
 			// TODO Auto-generated catch block
 			e.printStackTrace();
 		}
 	}
 	
+	@Override
+	public ParameterIndex getParameterIndex() {
+		return index;
+	}
+	
+	@Override
 	public Object getParameterValue(Parameter p) {
-		if (!parameter_instances.containsKey(p))
+		int i = index.ordinal(p);
+		if (i == -1)
 			throw new IllegalArgumentException("The parameter has to be part of a solver configuration");
-		return parameter_instances.get(p);
+		return values[i];
+	}
+	
+	/**
+	 * @param ordinal ordinal of the parameter in {@link #getParameterIndex()}
+	 * @return the value of the parameter
+	 */
+	@Override
+	public Object getParameterValue(int ordinal) {
+		return values[ordinal];
 	}
 	
 	public void setParameterValue(Parameter p, Object v) {
-		if (!parameter_instances.containsKey(p))
+		int i = index.ordinal(p);
+		if (i == -1)
 			throw new IllegalArgumentException("The parameter has to be part of a solver configuration");
-		if (v == null) {
-		    parameter_instances.put(p, null);
-		    return;
-		}
-		
-		if (!p.getDomain().contains(v)) {
-			throw new IllegalArgumentException("Domain of parameter " + p.getName() + " does not contain the given value " + v + " Domain: " + p.getDomain());
-		}
-        if (p.getDomain() instanceof RealDomain) {
-            if (v instanceof Integer) v = ((Integer)v).floatValue();
-        }
-		parameter_instances.put(p, v);
+		store(i, checkedValue(p, v));
 	}
 	
 	   public void setParameterValueFast(Parameter p, Object v) {
-	        parameter_instances.put(p, v);
+	        int i = index.ordinal(p);
+	        if (i == -1)
+	            throw new IllegalArgumentException("The parameter has to be part of a solver configuration");
+	        store(i, v);
 	    }
 	
+	/**
+	 * Sets the value of the parameter with the given ordinal without checking its domain. 
+	 * @param ordinal ordinal of the parameter in {@link #getParameterIndex()}
+	 * @param v
+	 */
+	public void setParameterValueFast(int ordinal, Object v) {
+		store(ordinal, v);
+	}
+	
+	/**
+	 * Returns the value of a parameter as its position in the discrete grid of the parameter's domain
+	 * (see {@link edacc.parameterspace.domain.Domain#getDiscreteGrid()}), which is a small int code for
+	 * categorical, ordinal and flag parameters.
+	 * @param ordinal ordinal of the parameter in {@link #getParameterIndex()}
+	 * @return the code of the value, -1 if the parameter is unset or its value isn't part of the grid
+	 */
+	public int getParameterValueIndex(int ordinal) {
+		Object v = values[ordinal];
+		if (v == null) return -1;
+		return index.get(ordinal).getDomain().getDiscreteGrid().indexOf(v);
+	}
+	
+	/**
+	 * Sets the value of a parameter to the value at the given position of the discrete grid of its domain.
+	 * The value is the instance held by the domain, so configurations set this way share their strings.
+	 * @param ordinal ordinal of the parameter in {@link #getParameterIndex()}
+	 * @param valueIndex 0 &lt;= valueIndex &lt; size of the grid
+	 */
+	public void setParameterValueIndex(int ordinal, int valueIndex) {
+		store(ordinal, index.get(ordinal).getDomain().getDiscreteGrid().valueAt(valueIndex));
+	}
+	
 	public void setParameterValue(String parameter_name, Object v) {
-		Parameter param = null;
-		for (Parameter p: parameter_instances.keySet()) {
-			if (p.getName().equals(parameter_name)) param = p;
-		}
-		if (param == null) return;
-		if (v == null) {
-		    parameter_instances.put(param, null);
-		    return;
-		}
-		
-		if (!param.getDomain().contains(v)) {
-			throw new IllegalArgumentException("Domain of parameter " + param.getName() + " does not contain the given value " + v + " Domain: " + param.getDomain());
+		int i = index.ordinal(parameter_name);
+		if (i == -1) return;
+		store(i, checkedValue(index.get(i), v));
+	}
+	
+	private void store(int ordinal, Object v) {
+		fingerprint += term(index, ordinal, v) - term(index, ordinal, values[ordinal]);
+		values[ordinal] = v;
+		checksum = null;
+	}
+	
+	/**
+	 * Fingerprint term of a (parameter, value) pair. Numbers are hashed by their double value,
+	 * enum constants by their name so the terms don't depend on identity hash codes.
+	 */
+	static long term(ParameterIndex index, int ordinal, Object v) {
+		if (v == null || v instanceof OptionalDomain.OPTIONS || v == FlagDomain.FLAGS.OFF) return 0;
+		long h;
+		if (v instanceof Number) h = Double.doubleToLongBits(((Number)v).doubleValue());
+		else if (v instanceof Enum) h = ((Enum<?>)v).name().hashCode();
+		else h = v.hashCode();
+		return mix(index.nameHash(ordinal) ^ mix(h));
+	}
+	
+	/** 64 bit finalizer of the SplitMix64 generator */
+	private static long mix(long z) {
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+	
+	static Object checkedValue(Parameter p, Object v) {
+		if (v == null) return null;
+		if (!p.getDomain().contains(v)) {
+			throw new IllegalArgumentException("Domain of parameter " + p.getName() + " does not contain the given value " + v + " Domain: " + p.getDomain());
 		}
-		if (param.getDomain() instanceof RealDomain) {
+		if (p.getDomain() instanceof RealDomain) {
 		    if (v instanceof Integer) v = ((Integer)v).floatValue();
+		} else if (p.getDomain() instanceof CategoricalDomain || p.getDomain() instanceof OrdinalDomain) {
+			// store the string instance of the domain instead of an equal copy
+			DiscreteGrid grid = p.getDomain().getDiscreteGrid();
+			int i = grid.indexOf(v);
+			if (i != -1) v = grid.valueAt(i);
 		}
-		parameter_instances.put(param, v);
+		return v;
 	}
 	
 	public void unsetParameter(Parameter p) {
-		if (!parameter_instances.containsKey(p)) return;
-		parameter_instances.put(p, null);
+		int i = index.ordinal(p);
+		if (i == -1) return;
+		store(i, null);
 	}
 	
 	public void unsetParameter(String parameter_name) {
-		Parameter param = null;
-		for (Parameter p: parameter_instances.keySet()) {
-			if (p.getName().equals(parameter_name)) param = p;
-		}
-		if (param == null) return;
-		
-		parameter_instances.put(param, null);
+		int i = index.ordinal(parameter_name);
+		if (i == -1) return;
+		store(i, null);
 	}
 	
 	@Override
 	public int hashCode() {
-		return checksumHashCode;
+		return (int)(fingerprint ^ (fingerprint >>> 32));
 	}
 
 	@Override
@@ -134,65 +245,104 @@ public class ParameterConfiguration implements Serializable {
 		if (getClass() != obj.getClass())
 			return false;
 		ParameterConfiguration other = (ParameterConfiguration) obj;
-		if (parameter_instances == null) {
-			if (other.parameter_instances != null)
+		if (index != other.index) {
+			if (!getParameter_instances().keySet().equals(other.getParameter_instances().keySet())) // set comparison
 				return false;
-		} else if (!parameter_instances.keySet().equals(other.parameter_instances.keySet())) // set comparison
-			return false;
-		else {
-			for (Parameter p: parameter_instances.keySet()) {
-				if (parameter_instances.get(p) == null && other.getParameterValue(p) == null) continue;
-				
-				if (parameter_instances.get(p) == null && other.getParameterValue(p).equals(FlagDomain.FLAGS.OFF)) continue;
-				if (parameter_instances.get(p) == null && other.getParameterValue(p).equals(OptionalDomain.OPTIONS.NOT_SPECIFIED)) continue;
-				
-				if (other.getParameterValue(p) == null && parameter_instances.get(p).equals(FlagDomain.FLAGS.OFF)) continue;
-				if (other.getParameterValue(p) == null && parameter_instances.get(p).equals(OptionalDomain.OPTIONS.NOT_SPECIFIED)) continue;
-				
-				if (parameter_instances.get(p) == null) return false;
-				
-				if (parameter_instances.get(p) instanceof Double || parameter_instances.get(p) instanceof Float) {
-				    
-					double this_val = ((Number)parameter_instances.get(p)).doubleValue();
-					double other_val = ((Number)other.getParameterValue(p)).doubleValue();
-					if (Math.abs(other_val - this_val) > 1e-10) {
-					    return false;
-					}
-				}
-				else if (!parameter_instances.get(p).equals(other.getParameterValue(p))) {
-				    return false;
-				}
+			for (int i = 0; i < values.length; i++) {
+				if (!valuesEqual(values[i], other.getParameterValue(index.get(i)))) return false;
 			}
+			return true;
+		}
+		for (int i = 0; i < values.length; i++) {
+			if (!valuesEqual(values[i], other.values[i])) return false;
 		}
 		return true;
 	}
+	
+	private static boolean valuesEqual(Object value, Object other) {
+		if (value == null && other == null) return true;
+		
+		if (value == null && other.equals(FlagDomain.FLAGS.OFF)) return true;
+		if (value == null && other.equals(OptionalDomain.OPTIONS.NOT_SPECIFIED)) return true;
+		
+		if (other == null && value.equals(FlagDomain.FLAGS.OFF)) return true;
+		if (other == null && value.equals(OptionalDomain.OPTIONS.NOT_SPECIFIED)) return true;
+		
+		if (value == null || other == null) return false;
+		
+		if (value instanceof Double || value instanceof Float) {
+			double this_val = ((Number)value).doubleValue();
+			double other_val = ((Number)other).doubleValue();
+			return Math.abs(other_val - this_val) <= 1e-10;
+		}
+		return value.equals(other);
+	}
 
+	/**
+	 * Returns a live map view of the parameter values. Only values of existing parameters
+	 * can be changed through this view (without domain checks), parameters can't be added or removed.
+	 * @return
+	 */
 	public Map<Parameter, Object> getParameter_instances() {
+		if (parameter_instances == null) parameter_instances = new InstancesView();
 		return parameter_instances;
 	}
 
 	public String toString() {
 		StringBuilder sb = new StringBuilder();
-		List<Parameter> params = new ArrayList<Parameter>();
-		params.addAll(parameter_instances.keySet());
-		for (Parameter p: params) {
-		    if (parameter_instances.get(p)== null) continue;
-			sb.append(p.getName());
+		for (int i = 0; i < values.length; i++) {
+		    if (values[i] == null) continue;
+			sb.append(index.get(i).getName());
 			sb.append(": ");
-			sb.append(getValueRepresentation(parameter_instances.get(p)));
+			sb.append(getValueRepresentation(values[i]));
 			sb.append(" ");
 		}
 		return sb.toString();
 	}
 	
+	/**
+	 * @return a copy of this configuration
+	 */
+	@Override
+	public ParameterConfiguration materialize() {
+		return new ParameterConfiguration(this);
+	}
+	
 	public ParameterConfiguration(ParameterConfiguration other) {
 		// TODO: ensure that other.getParameterValue(p) makes a copy in all cases
-		this.parameter_instances = new HashMap<Parameter, Object>();
-		if (other.checksum == null) this.checksum = null;
-		else this.checksum = other.checksum.clone();
-		for (Parameter p: other.parameter_instances.keySet()) {
-			parameter_instances.put(p, other.getParameterValue(p));
+		this.index = other.index;
+		this.values = other.values.clone();
+		this.fingerprint = other.fingerprint;
+		this.checksum = other.checksum; // never modified in place
+	}
+	
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		Map<Parameter, Object> instances = new HashMap<Parameter, Object>();
+		for (int i = 0; i < values.length; i++) instances.put(index.get(i), values[i]);
+		ObjectOutputStream.PutField fields = out.putFields();
+		fields.put("parameter_instances", instances);
+		fields.put("checksum", checksum);
+		fields.put("checksumHashCode", checksum == null ? 0 : Arrays.hashCode(checksum));
+		out.writeFields();
+	}
+	
+	@SuppressWarnings("unchecked")
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		ObjectInputStream.GetField fields = in.readFields();
+		serialized_instances = (Map<Parameter, Object>)fields.get("parameter_instances", null);
+		if (serialized_instances == null) throw new InvalidObjectException("Missing parameter values");
+	}
+	
+	/**
+	 * The final fields can't be set by readObject, so the deserialized object is replaced by a
+	 * configuration built from the serialized values.
+	 */
+	private Object readResolve() {
+		ParameterConfiguration config = new ParameterConfiguration(serialized_instances.keySet());
+		for (Map.Entry<Parameter, Object> e: serialized_instances.entrySet()) {
+			config.store(config.index.ordinal(e.getKey()), e.getValue());
 		}
+		return config;
 	}
 	
 	public String getValueRepresentation(Object value) {
@@ -204,4 +354,79 @@ public class ParameterConfiguration implements Serializable {
 	    }
 	    else return value.toString();
 	}
+	
+	private final class InstancesView extends AbstractMap<Parameter, Object> {
+		@Override
+		public int size() {
+			return values.length;
+		}
+		
+		@Override
+		public boolean containsKey(Object key) {
+			return key instanceof Parameter && index.ordinal((Parameter)key) != -1;
+		}
+		
+		@Override
+		public Object get(Object key) {
+			if (!(key instanceof Parameter)) return null;
+			int i = index.ordinal((Parameter)key);
+			return i == -1 ? null : values[i];
+		}
+		
+		@Override
+		public Object put(Parameter key, Object value) {
+			int i = index.ordinal(key);
+			if (i == -1) throw new UnsupportedOperationException("Parameter " + key + " is not part of the configuration");
+			Object old = values[i];
+			store(i, value);
+			return old;
+		}
+		
+		@Override
+		public Set<Parameter> keySet() {
+			return index.asSet();
+		}
+		
+		@Override
+		public Set<Map.Entry<Parameter, Object>> entrySet() {
+			return new AbstractSet<Map.Entry<Parameter, Object>>() {
+				@Override
+				public int size() {
+					return values.length;
+				}
+				
+				@Override
+				public Iterator<Map.Entry<Parameter, Object>> iterator() {
+					return new Iterator<Map.Entry<Parameter, Object>>() {
+						private int next = 0;
+						
+						@Override
+						public boolean hasNext() {
+							return next < values.length;
+						}
+						
+						@Override
+						public Map.Entry<Parameter, Object> next() {
+							if (next >= values.length) throw new NoSuchElementException();
+							final int i = next++;
+							return new AbstractMap.SimpleEntry<Parameter, Object>(index.get(i), values[i]) {
+								private static final long serialVersionUID = 1L;
+								
+								@Override
+								public Object setValue(Object value) {
+									store(i, value);
+									return super.setValue(value);
+								}
+							};
+						}
+						
+						@Override
+						public void remove() {
+							throw new UnsupportedOperationException();
+						}
+					};
+				}
+			};
+		}
+	}
 }
@@ -0,0 +1,259 @@
+package edacc.parameterspace;
+
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+
+import edacc.parameterspace.domain.CategoricalDomain;
+import edacc.parameterspace.domain.Domain;
+import edacc.parameterspace.domain.FlagDomain;
+import edacc.parameterspace.domain.IntegerDomain;
+import edacc.parameterspace.domain.OrdinalDomain;
+import edacc.parameterspace.domain.RealDomain;
+import edacc.parameterspace.graph.AndNode;
+import edacc.parameterspace.graph.Edge;
+import edacc.parameterspace.graph.Node;
+import edacc.parameterspace.graph.OrNode;
+import edacc.parameterspace.graph.ParameterGraph;
+
+/**
+ * Generates random but valid parameter graphs of a given size, e.g. to measure how the
+ * graph operations scale to solvers with thousands of parameters.
+ *
+ * Each parameter gets an OR node and AND nodes for its values. Categorical, ordinal and flag
+ * parameters get one AND node per value, so they can be the parents of conditional parameters.
+ * A conditional parameter depends on one value of each of up to {@link #setMaxFanIn(int)} parents,
+ * either on any of them (edge group 0) or on all of them (edge group 1).
+ *
+ * Parameters are named "p0", "p1", ..., nodes "n0" (the start node), "n1", ..., so the names are
+ * valid XML IDs and the generated graphs can be stored by {@link #writeXML(ParameterGraph, OutputStream)}
+ * and loaded like any other parameter graph. The same settings and random seed always yield the same graph.
+ */
+public class ParameterGraphGenerator {
+	public static final int REAL = 0, INTEGER = 1, CATEGORICAL = 2, ORDINAL = 3, FLAG = 4;
+
+	private int numParameters = 100;
+	private double[] domainWeights = {0.4, 0.2, 0.2, 0.1, 0.1};
+	private int maxDepth = 3;
+	private double conditionalProbability = 0.5;
+	private int maxFanIn = 1;
+	private double allGroupProbability = 0.5;
+	private int minCategories = 2;
+	private int maxCategories = 5;
+
+	private int nextNodeId;
+
+	/**
+	 * @param numParameters number of parameters of the generated graphs
+	 */
+	public void setNumParameters(int numParameters) {
+		if (numParameters < 0) throw new IllegalArgumentException("numParameters must be non-negative");
+		this.numParameters = numParameters;
+	}
+
+	/**
+	 * Sets the relative frequencies of the domain types, indexed by {@link #REAL}, {@link #INTEGER},
+	 * {@link #CATEGORICAL}, {@link #ORDINAL} and {@link #FLAG}.
+	 * @param weights non-negative weights, at least one of them positive
+	 */
+	public void setDomainWeights(double[] weights) {
+		if (weights.length != 5) throw new IllegalArgumentException("Expected 5 domain weights");
+		double sum = 0;
+		for (double w: weights) {
+			if (w < 0) throw new IllegalArgumentException("Domain weights must be non-negative");
+			sum += w;
+		}
+		if (sum <= 0) throw new IllegalArgumentException("At least one domain weight has to be positive");
+		this.domainWeights = weights.clone();
+	}
+
+	/**
+	 * @param maxDepth maximum length of a chain of conditional parameters, 0 generates
+	 * unconditional parameters only
+	 */
+	public void setMaxDepth(int maxDepth) {
+		if (maxDepth < 0) throw new IllegalArgumentException("maxDepth must be non-negative");
+		this.maxDepth = maxDepth;
+	}
+
+	/**
+	 * @param conditionalProbability probability that a parameter is conditional on earlier
+	 * parameters, if there are any that can be parents
+	 */
+	public void setConditionalProbability(double conditionalProbability) {
+		if (conditionalProbability < 0 || conditionalProbability > 1) throw new IllegalArgumentException("conditionalProbability must be in [0, 1]");
+		this.conditionalProbability = conditionalProbability;
+	}
+
+	/**
+	 * @param maxFanIn maximum number of parents of a conditional parameter
+	 */
+	public void setMaxFanIn(int maxFanIn) {
+		if (maxFanIn < 1) throw new IllegalArgumentException("maxFanIn must be positive");
+		this.maxFanIn = maxFanIn;
+	}
+
+	/**
+	 * @param allGroupProbability probability that a parameter with several parents requires
+	 * all of them to be active instead of any of them
+	 */
+	public void setAllGroupProbability(double allGroupProbability) {
+		if (allGroupProbability < 0 || allGroupProbability > 1) throw new IllegalArgumentException("allGroupProbability must be in [0, 1]");
+		this.allGroupProbability = allGroupProbability;
+	}
+
+	/**
+	 * Sets the range the number of values of categorical and ordinal parameters is drawn from.
+	 * @param minCategories
+	 * @param maxCategories
+	 */
+	public void setCategories(int minCategories, int maxCategories) {
+		if (minCategories < 1 || maxCategories < minCategories) throw new IllegalArgumentException("Invalid category range");
+		this.minCategories = minCategories;
+		this.maxCategories = maxCategories;
+	}
+
+	/**
+	 * Generates a new graph.
+	 * @param rng
+	 * @return
+	 */
+	public ParameterGraph generate(Random rng) {
+		nextNodeId = 0;
+		Set<Parameter> parameters = new HashSet<Parameter>();
+		Set<Node> nodes = new HashSet<Node>();
+		List<Edge> edges = new LinkedList<Edge>();
+		AndNode start = new AndNode(null, null);
+		start.setId(nodeId());
+		nodes.add(start);
+
+		// parameters that can still be parents, with the AND nodes of their values and their depth
+		List<AndNode[]> parentValues = new ArrayList<AndNode[]>();
+		List<Integer> parentDepths = new ArrayList<Integer>();
+		for (int i = 0; i < numParameters; i++) {
+			int type = domainType(rng);
+			Parameter p = new Parameter("p" + i, domain(type, rng));
+			parameters.add(p);
+			OrNode or = new OrNode(p);
+			or.setId(nodeId());
+			nodes.add(or);
+
+			int depth = 0;
+			if (!parentValues.isEmpty() && rng.nextDouble() < conditionalProbability) {
+				int fanIn = 1 + rng.nextInt(Math.min(maxFanIn, parentValues.size()));
+				int group = fanIn > 1 && rng.nextDouble() < allGroupProbability ? 1 : 0;
+				// draw fanIn distinct parents (partial Fisher-Yates shuffle of the candidates)
+				for (int j = 0; j < fanIn; j++) {
+					int k = j + rng.nextInt(parentValues.size() - j);
+					AndNode[] values = parentValues.get(k);
+					Integer parentDepth = parentDepths.get(k);
+					parentValues.set(k, parentValues.get(j));
+					parentDepths.set(k, parentDepths.get(j));
+					parentValues.set(j, values);
+					parentDepths.set(j, parentDepth);
+					edges.add(new Edge(values[rng.nextInt(values.length)], or, group));
+					depth = Math.max(depth, parentDepth + 1);
+				}
+			} else {
+				edges.add(new Edge(start, or, 0));
+			}
+
+			AndNode[] values;
+			if (type == REAL || type == INTEGER) {
+				values = new AndNode[] {new AndNode(p, p.getDomain())};
+			} else {
+				values = valueNodes(type, p);
+			}
+			for (AndNode value: values) {
+				value.setId(nodeId());
+				nodes.add(value);
+				edges.add(new Edge(or, value, 0));
+			}
+			if (type != REAL && type != INTEGER && depth < maxDepth) {
+				parentValues.add(values);
+				parentDepths.add(depth);
+			}
+		}
+		return new ParameterGraph(nodes, edges, parameters, start);
+	}
+
+	/**
+	 * Writes the graph as XML in the format read by {@link edacc.api.API#loadParameterGraphFromFile(String)}.
+	 * @param graph
+	 * @param out
+	 * @throws JAXBException
+	 */
+	public static void writeXML(ParameterGraph graph, OutputStream out) throws JAXBException {
+		Marshaller m = ParameterGraph.getJAXBContext().createMarshaller();
+		m.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, Boolean.TRUE);
+		m.marshal(graph, out);
+	}
+
+	private String nodeId() {
+		return "n" + nextNodeId++;
+	}
+
+	private int domainType(Random rng) {
+		double sum = 0;
+		for (double w: domainWeights) sum += w;
+		double r = rng.nextDouble() * sum;
+		for (int t = 0; t < domainWeights.length; t++) {
+			r -= domainWeights[t];
+			if (r < 0) return t;
+		}
+		for (int t = domainWeights.length - 1; ; t--) {
+			if (domainWeights[t] > 0) return t;
+		}
+	}
+
+	private Domain domain(int type, Random rng) {
+		switch (type) {
+		case REAL: {
+			int low = -rng.nextInt(10);
+			return new RealDomain(low, low + 1 + rng.nextInt(100));
+		}
+		case INTEGER: {
+			int low = -rng.nextInt(10);
+			return new IntegerDomain(low, low + 1 + rng.nextInt(100));
+		}
+		case CATEGORICAL:
+			return new CategoricalDomain(categories(rng));
+		case ORDINAL: {
+			List<String> values = new ArrayList<String>();
+			for (String c: categories(rng)) values.add(c);
+			return new OrdinalDomain(values);
+		}
+		default:
+			return new FlagDomain(true, true);
+		}
+	}
+
+	private String[] categories(Random rng) {
+		String[] categories = new String[minCategories + rng.nextInt(maxCategories - minCategories + 1)];
+		for (int i = 0; i < categories.length; i++) categories[i] = "v" + i;
+		return categories;
+	}
+
+	/** one AND node per value of a categorical, ordinal or flag parameter */
+	private AndNode[] valueNodes(int type, Parameter p) {
+		if (type == FLAG) {
+			return new AndNode[] {new AndNode(p, new FlagDomain(true, false)), new AndNode(p, new FlagDomain(false, true))};
+		}
+		List<Object> values = p.getDomain().getDiscreteValues();
+		AndNode[] nodes = new AndNode[values.size()];
+		for (int i = 0; i < nodes.length; i++) {
+			List<String> value = new ArrayList<String>();
+			value.add((String)values.get(i));
+			Domain d = type == ORDINAL ? new OrdinalDomain(value) : new CategoricalDomain(new String[] {value.get(0)});
+			nodes[i] = new AndNode(p, d);
+		}
+		return nodes;
+	}
+}
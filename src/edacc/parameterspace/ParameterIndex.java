@@ -0,0 +1,142 @@
+package edacc.parameterspace;
+
+import java.io.Serializable;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Dense numbering of a set of parameters. Parameters are numbered from 0 in ascending order of
+ * their names, so two indices over the same parameters always assign the same ordinals.
+ *
+ * Parameter configurations created from the same parameter set share one index and store their
+ * values in an array addressed by these ordinals.
+ */
+public final class ParameterIndex implements Serializable {
+	private static final long serialVersionUID = 2484213960914851472L;
+	private final Parameter[] parameters;
+	private final Map<String, Integer> ordinals;
+	private final long[] nameHashes;
+	private transient Set<Parameter> set;
+
+	public ParameterIndex(Collection<Parameter> parameters) {
+		this.parameters = parameters.toArray(new Parameter[parameters.size()]);
+		Arrays.sort(this.parameters);
+		this.ordinals = new HashMap<String, Integer>(this.parameters.length * 2);
+		for (int i = 0; i < this.parameters.length; i++) {
+			if (ordinals.put(this.parameters[i].getName(), i) != null)
+				throw new IllegalArgumentException("Duplicate parameter " + this.parameters[i].getName());
+		}
+		this.nameHashes = new long[this.parameters.length];
+		for (int i = 0; i < this.parameters.length; i++) {
+			// 64 bit FNV-1a hash of the name, stable across JVMs
+			long h = 0xcbf29ce484222325L;
+			String name = this.parameters[i].getName();
+			for (int j = 0; j < name.length(); j++) {
+				h ^= name.charAt(j);
+				h *= 0x100000001b3L;
+			}
+			nameHashes[i] = h;
+		}
+	}
+
+	/**
+	 * Returns the index of the given parameter set. If the set was obtained by {@link #asSet()}
+	 * its index is reused, otherwise a new index is built.
+	 * @param parameters
+	 * @return
+	 */
+	public static ParameterIndex of(Set<Parameter> parameters) {
+		if (parameters instanceof IndexedParameterSet) return ((IndexedParameterSet)parameters).index;
+		return new ParameterIndex(parameters);
+	}
+
+	public int size() {
+		return parameters.length;
+	}
+
+	public Parameter get(int ordinal) {
+		return parameters[ordinal];
+	}
+
+	/**
+	 * @param p
+	 * @return the ordinal of the parameter or -1 if it isn't part of this index
+	 */
+	public int ordinal(Parameter p) {
+		if (p == null) return -1;
+		return ordinal(p.getName());
+	}
+
+	/**
+	 * @param name
+	 * @return the ordinal of the parameter with the given name or -1 if there is none
+	 */
+	public int ordinal(String name) {
+		Integer i = ordinals.get(name);
+		return i == null ? -1 : i;
+	}
+
+	/**
+	 * @param ordinal
+	 * @return 64 bit hash of the name of the parameter, used for configuration fingerprints
+	 */
+	long nameHash(int ordinal) {
+		return nameHashes[ordinal];
+	}
+
+	/**
+	 * Returns an unmodifiable view of the indexed parameters, iterated in ordinal order.
+	 * Configurations created from this set share this index.
+	 */
+	public Set<Parameter> asSet() {
+		if (set == null) set = new IndexedParameterSet(this);
+		return set;
+	}
+
+	private static final class IndexedParameterSet extends AbstractSet<Parameter> {
+		private final ParameterIndex index;
+
+		IndexedParameterSet(ParameterIndex index) {
+			this.index = index;
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			return o instanceof Parameter && index.ordinal((Parameter)o) != -1;
+		}
+
+		@Override
+		public Iterator<Parameter> iterator() {
+			return new Iterator<Parameter>() {
+				private int next = 0;
+
+				@Override
+				public boolean hasNext() {
+					return next < index.parameters.length;
+				}
+
+				@Override
+				public Parameter next() {
+					if (next >= index.parameters.length) throw new NoSuchElementException();
+					return index.parameters[next++];
+				}
+
+				@Override
+				public void remove() {
+					throw new UnsupportedOperationException();
+				}
+			};
+		}
+
+		@Override
+		public int size() {
+			return index.parameters.length;
+		}
+	}
+}
@@ -0,0 +1,93 @@
+package edacc.parameterspace;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import edacc.parameterspace.domain.CategoricalDomain;
+import edacc.parameterspace.domain.Domain;
+import edacc.parameterspace.domain.FlagDomain;
+import edacc.parameterspace.domain.IntegerDomain;
+import edacc.parameterspace.domain.MixedDomain;
+import edacc.parameterspace.domain.OptionalDomain;
+import edacc.parameterspace.domain.OrdinalDomain;
+import edacc.parameterspace.domain.RealDomain;
+
+/**
+ * Numeric code of the values of one parameter, as used by the random forest code of the configurators
+ * (see {@link edacc.parameterspace.graph.ParameterGraph#conditionalParentsForRF(List)}):
+ * numbers are stored as they are, categorical values by their position in the sorted categories plus one,
+ * ordinal values by their position plus one, flags as 1 (OFF) and 2 (ON) and unset values as NaN.
+ *
+ * Numbers of mixed domains are stored as they are, too. Their other values are coded from the smallest
+ * integer above the highest value of the numeric subdomains on, so that the codes can't be confused
+ * with numbers. A number that is contained in an integer and a real subdomain is decoded as an integer.
+ */
+final class ValueCoding {
+	private final Map<Object, Integer> codes = new HashMap<Object, Integer>(); // value -> position + 1
+	private final List<Object> values = new ArrayList<Object>(); // position -> value
+	private final List<Domain> numeric = new ArrayList<Domain>(); // numeric (sub)domains, integer domains first
+	private final double offset; // added to the positions of the values
+
+	ValueCoding(Domain domain) {
+		List<Domain> domains = new ArrayList<Domain>();
+		if (domain instanceof MixedDomain) domains.addAll(((MixedDomain)domain).getDomains());
+		else domains.add(domain);
+		double high = Double.NEGATIVE_INFINITY;
+		for (Domain d: domains) {
+			if (d instanceof IntegerDomain) {
+				numeric.add(0, d);
+				high = Math.max(high, ((IntegerDomain)d).getHigh());
+			} else if (d instanceof RealDomain) {
+				numeric.add(d);
+				high = Math.max(high, ((RealDomain)d).getHigh());
+			} else if (d instanceof CategoricalDomain) {
+				List<String> sorted = new ArrayList<String>(((CategoricalDomain)d).getCategories());
+				Collections.sort(sorted);
+				for (String c: sorted) add(c);
+			} else if (d instanceof OrdinalDomain) {
+				for (String v: ((OrdinalDomain)d).getOrdered_list()) add(v);
+			} else if (d instanceof FlagDomain) {
+				add(FlagDomain.FLAGS.OFF);
+				add(FlagDomain.FLAGS.ON);
+			} else if (d instanceof OptionalDomain) {
+				add(OptionalDomain.OPTIONS.NOT_SPECIFIED);
+			} else {
+				for (Object v: d.getDiscreteValues()) add(v);
+			}
+		}
+		this.offset = numeric.isEmpty() ? 0 : Math.max(0, Math.floor(high));
+	}
+
+	private void add(Object value) {
+		if (codes.containsKey(value)) return;
+		values.add(value);
+		codes.put(value, values.size());
+	}
+
+	double encode(Object value) {
+		if (value == null) return Double.NaN;
+		if (value instanceof Number) return ((Number)value).doubleValue();
+		Integer code = codes.get(value);
+		if (code == null) throw new IllegalArgumentException("Can't encode value " + value);
+		return offset + code;
+	}
+
+	Object decode(double code) {
+		if (Double.isNaN(code)) return null;
+		if (values.isEmpty() && numeric.size() == 1) return number(numeric.get(0), code);
+		double i = code - offset - 1;
+		if (i >= 0 && i < values.size() && i == Math.floor(i)) return values.get((int)i);
+		for (Domain d: numeric) {
+			if (d.contains(code)) return number(d, code);
+		}
+		throw new IllegalArgumentException("Invalid code " + code);
+	}
+
+	private static Object number(Domain domain, double code) {
+		if (domain instanceof IntegerDomain) return Integer.valueOf((int)code);
+		return Double.valueOf(code);
+	}
+}
@@ -6,8 +6,8 @@ import java.util.List;
 import java.util.Random;
 import java.util.Set;
 
-@SuppressWarnings("serial")
 public class CategoricalDomain extends Domain {
+	private static final long serialVersionUID = -7054104052346216179L;
 	protected Set<String> categories;
 	public static final String name = "Categorical";
         
@@ -32,10 +32,19 @@ public class CategoricalDomain extends Domain {
 		return categories.contains(value);
 	}
 
+	/**
+	 * @param value
+	 * @return the position of the value in {@link #getDiscreteValues()}, -1 if it isn't a category
+	 */
+	public int indexOf(Object value) {
+		return getDiscreteGrid().indexOf(value);
+	}
+
 	@Override
 	public Object randomValue(Random rng) {
-		if (categories.size() == 0) return null;
-		return categories.toArray()[rng.nextInt(categories.size())];
+		DiscreteGrid grid = getDiscreteGrid();
+		if (grid.size() == 0) return null;
+		return grid.valueAt(rng.nextInt(grid.size()));
 	}
 
 	@Override
@@ -56,6 +65,7 @@ public class CategoricalDomain extends Domain {
 
 	public void setCategories(Set<String> categories) {
 		this.categories = categories;
+		invalidateDiscreteGrid();
 	}
 
 	@Override
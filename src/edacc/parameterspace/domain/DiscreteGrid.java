@@ -0,0 +1,196 @@
+package edacc.parameterspace.domain;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Index-addressable view of the discrete values of a domain, see {@link Domain#getDiscreteGrid()}.
+ * The values are the ones of {@link Domain#getDiscreteValues()} in the same order, but numeric grids
+ * are stored as primitives and nothing is materialised per call. Grids are immutable.
+ */
+public abstract class DiscreteGrid {
+	/**
+	 * @return the number of values
+	 */
+	public abstract int size();
+
+	/**
+	 * @param i 0 &lt;= i &lt; {@link #size()}
+	 * @return the i-th value
+	 */
+	public abstract Object valueAt(int i);
+
+	/**
+	 * @param value
+	 * @return the index of the first occurrence of the value, -1 if it isn't part of the grid
+	 */
+	public abstract int indexOf(Object value);
+
+	/**
+	 * @param i 0 &lt;= i &lt; {@link #size()}
+	 * @return the i-th value as double, NaN if it isn't a number
+	 */
+	public double doubleValueAt(int i) {
+		Object value = valueAt(i);
+		return value instanceof Number ? ((Number)value).doubleValue() : Double.NaN;
+	}
+
+	/** the integers low .. high */
+	static DiscreteGrid range(final int low, final int high) {
+		return new DiscreteGrid() {
+			private final int size = (int)Math.max(0, Math.min((long)high - low + 1, Integer.MAX_VALUE));
+
+			@Override
+			public int size() {
+				return size;
+			}
+
+			@Override
+			public Object valueAt(int i) {
+				if (i < 0 || i >= size) throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + size);
+				return low + i;
+			}
+
+			@Override
+			public double doubleValueAt(int i) {
+				if (i < 0 || i >= size) throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + size);
+				return low + i;
+			}
+
+			@Override
+			public int indexOf(Object value) {
+				if (!(value instanceof Number)) return -1;
+				double d = ((Number)value).doubleValue();
+				if (d != Math.rint(d) || d < low || d - low >= size) return -1;
+				return (int)(d - low);
+			}
+		};
+	}
+
+	/** the numbers of a sorted array */
+	static DiscreteGrid of(final double[] values) {
+		return new DiscreteGrid() {
+			@Override
+			public int size() {
+				return values.length;
+			}
+
+			@Override
+			public Object valueAt(int i) {
+				return values[i];
+			}
+
+			@Override
+			public double doubleValueAt(int i) {
+				return values[i];
+			}
+
+			@Override
+			public int indexOf(Object value) {
+				if (!(value instanceof Number)) return -1;
+				int i = Arrays.binarySearch(values, ((Number)value).doubleValue());
+				if (i < 0) return -1;
+				while (i > 0 && values[i - 1] == values[i]) i--;
+				return i;
+			}
+		};
+	}
+
+	/** the integers of a sorted array */
+	static DiscreteGrid of(final int[] values) {
+		return new DiscreteGrid() {
+			@Override
+			public int size() {
+				return values.length;
+			}
+
+			@Override
+			public Object valueAt(int i) {
+				return values[i];
+			}
+
+			@Override
+			public double doubleValueAt(int i) {
+				return values[i];
+			}
+
+			@Override
+			public int indexOf(Object value) {
+				if (!(value instanceof Number)) return -1;
+				double d = ((Number)value).doubleValue();
+				if (d != Math.rint(d) || d < Integer.MIN_VALUE || d > Integer.MAX_VALUE) return -1;
+				int i = Arrays.binarySearch(values, (int)d);
+				return i < 0 ? -1 : i;
+			}
+		};
+	}
+
+	/**
+	 * @param list
+	 * @return a grid of the values of the list in the same order, e.g. of sampled values
+	 */
+	public static DiscreteGrid of(List<Object> list) {
+		final Object[] values = list.toArray();
+		final Map<Object, Integer> index = new HashMap<Object, Integer>();
+		for (int i = values.length - 1; i >= 0; i--) index.put(values[i], i);
+		return new DiscreteGrid() {
+			@Override
+			public int size() {
+				return values.length;
+			}
+
+			@Override
+			public Object valueAt(int i) {
+				return values[i];
+			}
+
+			@Override
+			public int indexOf(Object value) {
+				Integer i = index.get(value);
+				return i == null ? -1 : i;
+			}
+		};
+	}
+
+	/** the values of the grids one after another */
+	static DiscreteGrid concat(final DiscreteGrid[] grids) {
+		final int[] offset = new int[grids.length + 1];
+		for (int i = 0; i < grids.length; i++) offset[i + 1] = (int)Math.min((long)offset[i] + grids[i].size(), Integer.MAX_VALUE);
+		return new DiscreteGrid() {
+			@Override
+			public int size() {
+				return offset[grids.length];
+			}
+
+			@Override
+			public Object valueAt(int i) {
+				int g = grid(i);
+				return grids[g].valueAt(i - offset[g]);
+			}
+
+			@Override
+			public double doubleValueAt(int i) {
+				int g = grid(i);
+				return grids[g].doubleValueAt(i - offset[g]);
+			}
+
+			@Override
+			public int indexOf(Object value) {
+				for (int g = 0; g < grids.length; g++) {
+					int i = grids[g].indexOf(value);
+					if (i != -1 && offset[g] + i < offset[g + 1]) return offset[g] + i;
+				}
+				return -1;
+			}
+
+			private int grid(int i) {
+				if (i < 0 || i >= offset[grids.length]) throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + offset[grids.length]);
+				int g = 0;
+				while (offset[g + 1] <= i) g++;
+				return g;
+			}
+		};
+	}
+}
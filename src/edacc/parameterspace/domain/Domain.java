@@ -5,12 +5,14 @@ import java.util.List;
 import java.util.Random;
 import javax.xml.bind.annotation.XmlSeeAlso;
 
-@SuppressWarnings("serial")
 @XmlSeeAlso({ CategoricalDomain.class, FlagDomain.class, IntegerDomain.class,
 		MixedDomain.class, OptionalDomain.class, RealDomain.class,
-                OrdinalDomain.class})
+                OrdinalDomain.class, LogRealDomain.class, LogIntegerDomain.class})
 public abstract class Domain implements Serializable {
-        public static final String[] names = {CategoricalDomain.name, FlagDomain.name, IntegerDomain.name, MixedDomain.name, OptionalDomain.name, OrdinalDomain.name, RealDomain.name};
+	private static final long serialVersionUID = 8904365451063976474L;
+	private transient DiscreteGrid discreteGrid;
+	
+        public static final String[] names = {CategoricalDomain.name, FlagDomain.name, IntegerDomain.name, MixedDomain.name, OptionalDomain.name, OrdinalDomain.name, RealDomain.name, LogRealDomain.name, LogIntegerDomain.name};
         
 	public abstract boolean contains(Object value);
 
@@ -24,6 +26,30 @@ public abstract class Domain implements Serializable {
 	
 	public abstract List<Object> getDiscreteValues();
 	
+	/**
+	 * Returns the values of {@link #getDiscreteValues()} as an index-addressable grid that doesn't
+	 * materialise them. The grid is built once and kept until the domain is modified by a setter.
+	 */
+	public DiscreteGrid getDiscreteGrid() {
+		DiscreteGrid grid = discreteGrid;
+		if (grid == null) discreteGrid = grid = createDiscreteGrid();
+		return grid;
+	}
+	
+	/**
+	 * Builds the grid of {@link #getDiscreteGrid()}, by default from {@link #getDiscreteValues()}.
+	 */
+	protected DiscreteGrid createDiscreteGrid() {
+		return DiscreteGrid.of(getDiscreteValues());
+	}
+	
+	/**
+	 * Has to be called when the values of the domain change.
+	 */
+	protected void invalidateDiscreteGrid() {
+		discreteGrid = null;
+	}
+	
 	public abstract List<Object> getGaussianDiscreteValues(Random rng, Object value, float stdDevFactor, int numberSamples);
         
 	public abstract List<Object> getUniformDistributedValues(int numberSamples);
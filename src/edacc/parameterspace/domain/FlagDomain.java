@@ -40,6 +40,7 @@ public class FlagDomain extends Domain {
 
 	public void setValues(Set<FLAGS> values) {
 		this.values = values;
+		invalidateDiscreteGrid();
 	}
 
 	public FlagDomain(boolean contain_on, boolean contain_off) {
@@ -57,8 +58,8 @@ public class FlagDomain extends Domain {
 
 	@Override
 	public Object randomValue(Random rng) {
-		int n = rng.nextInt(values.size());
-		return values.toArray()[n];
+		DiscreteGrid grid = getDiscreteGrid();
+		return grid.valueAt(rng.nextInt(grid.size()));
 	}
 
 	@Override
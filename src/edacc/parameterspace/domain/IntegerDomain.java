@@ -1,16 +1,26 @@
 package edacc.parameterspace.domain;
 
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Random;
 
-@SuppressWarnings("serial")
+/**
+ * Integers between low and high. The discrete values (see {@link #getDiscreteValues()}) are all integers
+ * of the domain unless a resolution is set: then they are the distinct integers closest to a grid of
+ * {@link #getResolution()} equal intervals, and {@link #mutatedValue(Random, Object, float)} and
+ * {@link #getGaussianDiscreteValues(Random, Object, float, int)} return the closest grid values.
+ *
+ * Subclasses can use another scale by overriding {@link #toScale(double)} and {@link #fromScale(double)},
+ * see {@link LogIntegerDomain}.
+ */
 public class IntegerDomain extends Domain {
+	private static final long serialVersionUID = -6479048854124128671L;
 	protected Integer low, high;
+	protected Integer resolution;
 	public static final String name = "Integer";
 	
-	@SuppressWarnings("unused")
-    private IntegerDomain() {
+	protected IntegerDomain() {
 		
 	}
 	
@@ -19,6 +29,17 @@ public class IntegerDomain extends Domain {
 		this.high = high;
 	}
 	
+	/**
+	 * @param low
+	 * @param high
+	 * @param resolution number of intervals of the grid of discrete values, null for all integers
+	 */
+	public IntegerDomain(Integer low, Integer high, Integer resolution) {
+		this(low, high);
+		if (resolution != null && resolution < 1) throw new IllegalArgumentException("The resolution has to be positive");
+		this.resolution = resolution;
+	}
+	
 	@Override
 	public boolean contains(Object value) {
 		if (!(value instanceof Number)) return false;
@@ -43,6 +64,7 @@ public class IntegerDomain extends Domain {
 
 	public void setLow(Integer low) {
 		this.low = low;
+		invalidateDiscreteGrid();
 	}
 
 	public Integer getHigh() {
@@ -51,6 +73,56 @@ public class IntegerDomain extends Domain {
 
 	public void setHigh(Integer high) {
 		this.high = high;
+		invalidateDiscreteGrid();
+	}
+
+	/**
+	 * @return number of intervals of the grid of discrete values, null if all integers are used
+	 */
+	public Integer getResolution() {
+		return resolution;
+	}
+
+	public void setResolution(Integer resolution) {
+		this.resolution = resolution;
+		invalidateDiscreteGrid();
+	}
+	
+	/**
+	 * Maps a value of the domain to the scale of the grid and the mutations.
+	 */
+	protected double toScale(double value) {
+		return value;
+	}
+	
+	/**
+	 * Inverse of {@link #toScale(double)}.
+	 */
+	protected double fromScale(double x) {
+		return x;
+	}
+	
+	/**
+	 * @return number of intervals of the grid of discrete values, null if the grid contains all integers
+	 */
+	protected Integer gridIntervals() {
+		return resolution == null || resolution >= (long)high - low ? null : resolution;
+	}
+	
+	/** integer closest to the i-th of the n + 1 grid values */
+	int gridValue(int i, int n) {
+		if (i >= n) return high;
+		if (i <= 0) return low;
+		double low = toScale(this.low), high = toScale(this.high);
+		return (int)Math.min(Math.max(this.low, Math.round(fromScale(low + i * (high - low) / n))), this.high);
+	}
+	
+	/** the grid value closest to value in the scale of the domain */
+	private int snap(int value) {
+		Integer n = gridIntervals();
+		if (n == null) return value;
+		double low = toScale(this.low), high = toScale(this.high);
+		return gridValue((int)Math.round((toScale(value) - low) / (high - low) * n), n);
 	}
 
 	@Override
@@ -61,18 +133,39 @@ public class IntegerDomain extends Domain {
     @Override
     public Object mutatedValue(Random rng, Object value, float stdDevFactor) {
         if (!contains(value)) return value;
+        double low = toScale(this.low), high = toScale(this.high);
         double r = rng.nextGaussian() * ((high - low) * stdDevFactor);
-        return (int) Math.min(Math.max(this.low, Math.round(((Number)value).doubleValue() + r)), this.high);
+        return snap((int) Math.min(Math.max(this.low, Math.round(fromScale(toScale(((Number)value).doubleValue()) + r))), this.high));
     }
 
 	@Override
 	public List<Object> getDiscreteValues() {
 		List<Object> values = new LinkedList<Object>();
-		for (int i = this.low; i <= this.high; i++) {
-			values.add(i);
+		if (gridIntervals() == null) {
+			for (int i = this.low; i <= this.high; i++) {
+				values.add(i);
+			}
+		} else {
+			DiscreteGrid grid = getDiscreteGrid();
+			for (int i = 0; i < grid.size(); i++) {
+				values.add(grid.valueAt(i));
+			}
 		}
 		return values;
 	}
+	
+	@Override
+	protected DiscreteGrid createDiscreteGrid() {
+		Integer n = gridIntervals();
+		if (n == null) return DiscreteGrid.range(low, high);
+		int[] values = new int[n + 1];
+		int size = 0;
+		for (int i = 0; i <= n; i++) {
+			int v = gridValue(i, n);
+			if (size == 0 || v != values[size - 1]) values[size++] = v;
+		}
+		return DiscreteGrid.of(Arrays.copyOf(values, size));
+	}
 
     @Override
     public String getName() {
@@ -87,18 +180,20 @@ public class IntegerDomain extends Domain {
             singleVals.add(mutatedValue(rng, value, stdDevFactor));
             return singleVals;
         }
-        if (numberSamples >= (high - low + 1)) {
+        // with a resolution mutatedValue only returns grid values
+        int size = getDiscreteGrid().size();
+        if (numberSamples >= size) {
             return getDiscreteValues();
         }
         List<Object> vals = new LinkedList<Object>();
         for (int i = 0; i < numberSamples; i++) {
-            if (vals.size() == high - low + 1) break; // sampled all possible values
+            if (vals.size() == size) break; // sampled all possible values
             Object val = null;
             int tries = 0;
-            while ((val == null || vals.contains(val)) && tries++ < (high - low  + 1)) {
+            while ((val == null || vals.contains(val)) && tries++ < size) {
                 val = mutatedValue(rng, value, stdDevFactor);
             }
-            vals.add(mutatedValue(rng, value, stdDevFactor));
+            vals.add(val);
         }
         return vals;
     }
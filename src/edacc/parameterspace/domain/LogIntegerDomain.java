@@ -0,0 +1,92 @@
+package edacc.parameterspace.domain;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Integers between low &gt;= 1 and high on a logarithmic scale: random values are log-uniform,
+ * mutations are gaussian in the logarithm and the discrete values are the distinct integers closest to
+ * a geometric grid of {@link #getResolution()} intervals ({@link RealDomain#DEFAULT_RESOLUTION} if no
+ * resolution is set), so every decade of the domain gets the same share of the values.
+ */
+@SuppressWarnings("serial")
+public class LogIntegerDomain extends IntegerDomain {
+	public static final String name = "LogInteger";
+	
+	@SuppressWarnings("unused")
+	private LogIntegerDomain() {
+		
+	}
+	
+	public LogIntegerDomain(Integer low, Integer high) {
+		this(low, high, null);
+	}
+	
+	/**
+	 * @param low
+	 * @param high
+	 * @param resolution number of intervals of the grid of discrete values, null for {@link RealDomain#DEFAULT_RESOLUTION}
+	 */
+	public LogIntegerDomain(Integer low, Integer high, Integer resolution) {
+		super(low, high, resolution);
+		if (low < 1) throw new IllegalArgumentException("The lower bound of a logarithmic domain has to be positive");
+	}
+	
+	@Override
+	protected double toScale(double value) {
+		return Math.log(value);
+	}
+	
+	@Override
+	protected double fromScale(double x) {
+		return Math.exp(x);
+	}
+	
+	@Override
+	protected Integer gridIntervals() {
+		int n = resolution == null ? RealDomain.DEFAULT_RESOLUTION : resolution;
+		return n >= (long)high - low ? null : n;
+	}
+	
+	@Override
+	public Object randomValue(Random rng) {
+		// log-uniform on [low, high + 1), rounded down
+		double low = Math.log(this.low), high = Math.log(this.high + 1.0);
+		return (int)Math.min(Math.max(this.low, Math.floor(Math.exp(rng.nextDouble() * (high - low) + low))), this.high);
+	}
+	
+	@Override
+	public List<Object> getUniformDistributedValues(int numberSamples) {
+		List<Object> vals = new LinkedList<Object>();
+		for (int i = 0; i < numberSamples; i++) {
+			int v = gridValue(i, numberSamples - 1);
+			if (vals.isEmpty() || !vals.get(vals.size() - 1).equals(v)) vals.add(v);
+		}
+		return vals;
+	}
+	
+	@Override
+	public Object getMidValueOrNull(Object o1, Object o2) {
+		if (!(o1 instanceof Integer) || !(o2 instanceof Integer)) {
+			return null;
+		}
+		Integer i1 = (Integer)o1;
+		Integer i2 = (Integer)o2;
+		Integer mid = (int)Math.round(Math.sqrt((double)i1 * i2));
+		if (i1.equals(mid) || i2.equals(mid)) {
+			return null;
+		}
+		return mid;
+	}
+	
+	@Override
+	public String toString() {
+		return "log" + super.toString();
+	}
+	
+	@Override
+	public String getName() {
+		return name;
+	}
+}
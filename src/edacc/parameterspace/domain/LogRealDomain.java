@@ -0,0 +1,55 @@
+package edacc.parameterspace.domain;
+
+/**
+ * Real numbers between low &gt; 0 and high on a logarithmic scale: random values are log-uniform,
+ * mutations are gaussian in the logarithm and the grid of discrete values is geometric, so every
+ * decade of the domain gets the same share of the values.
+ */
+@SuppressWarnings("serial")
+public class LogRealDomain extends RealDomain {
+	public static final String name = "LogReal";
+	
+	@SuppressWarnings("unused")
+	private LogRealDomain() {
+		
+	}
+	
+	public LogRealDomain(Double low, Double high) {
+		this(low, high, null);
+	}
+	
+	/**
+	 * @param low
+	 * @param high
+	 * @param resolution number of intervals of the grid of discrete values, null for {@link #DEFAULT_RESOLUTION}
+	 */
+	public LogRealDomain(Double low, Double high, Integer resolution) {
+		super(low, high, resolution);
+		if (!(low > 0)) throw new IllegalArgumentException("The lower bound of a logarithmic domain has to be positive");
+	}
+	
+	@Override
+	protected double toScale(double value) {
+		return Math.log(value);
+	}
+	
+	@Override
+	protected double fromScale(double x) {
+		return Math.exp(x);
+	}
+	
+	@Override
+	protected DiscreteGrid createDiscreteGrid() {
+		return scaledGrid(resolution == null ? DEFAULT_RESOLUTION : resolution);
+	}
+	
+	@Override
+	public String toString() {
+		return "log" + super.toString();
+	}
+	
+	@Override
+	public String getName() {
+		return name;
+	}
+}
@@ -4,8 +4,8 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Random;
 
-@SuppressWarnings("serial")
 public class MixedDomain extends Domain {
+	private static final long serialVersionUID = -209962900078930012L;
 	protected List<Domain> domains;
 	public static final String name = "Mixed";
 	
@@ -48,6 +48,7 @@ public class MixedDomain extends Domain {
 
 	public void setDomains(List<Domain> domains) {
 		this.domains = domains;
+		invalidateDiscreteGrid();
 	}
 
 	@Override
@@ -70,6 +71,13 @@ public class MixedDomain extends Domain {
 		}
 		return values;
 	}
+	
+	@Override
+	protected DiscreteGrid createDiscreteGrid() {
+		DiscreteGrid[] grids = new DiscreteGrid[domains.size()];
+		for (int i = 0; i < grids.length; i++) grids[i] = domains.get(i).getDiscreteGrid();
+		return DiscreteGrid.concat(grids);
+	}
 
     @Override
     public String getName() {
@@ -4,8 +4,8 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Random;
 
-@SuppressWarnings("serial")
 public class OrdinalDomain extends Domain {
+	private static final long serialVersionUID = 730598143488757520L;
 	protected List<String> ordered_list;
 	public static final String name = "Ordinal";
 	
@@ -18,15 +18,26 @@ public class OrdinalDomain extends Domain {
 		this.ordered_list = ordered_list;
 	}
 
+	/**
+	 * Uses the hash index of {@link #getDiscreteGrid()}, so this is O(1) for any size of the list.
+	 */
 	@Override
 	public boolean contains(Object value) {
-		return ordered_list.contains(value);
+		return getDiscreteGrid().indexOf(value) != -1;
+	}
+
+	/**
+	 * @param value
+	 * @return the position of the value in the ordered list, -1 if it isn't part of the domain
+	 */
+	public int indexOf(Object value) {
+		return getDiscreteGrid().indexOf(value);
 	}
 
 	@Override
 	public Object randomValue(Random rng) {
-		int i = rng.nextInt(ordered_list.size());
-		return ordered_list.get(i);
+		DiscreteGrid grid = getDiscreteGrid();
+		return grid.valueAt(rng.nextInt(grid.size()));
 	}
 
 	@Override
@@ -47,6 +58,7 @@ public class OrdinalDomain extends Domain {
 
 	public void setOrdered_list(List<String> ordered_list) {
 		this.ordered_list = ordered_list;
+		invalidateDiscreteGrid();
 	}
 
 	@Override
@@ -56,13 +68,14 @@ public class OrdinalDomain extends Domain {
 	
     @Override
     public Object mutatedValue(Random rng, Object value, float stdDevFactor) {
-        if (!contains(value)) return value;
-        int ix = ordered_list.indexOf(value);
-        double r = rng.nextGaussian() * (ordered_list.size() * stdDevFactor);
+        DiscreteGrid grid = getDiscreteGrid();
+        int ix = grid.indexOf(value);
+        if (ix == -1) return value;
+        double r = rng.nextGaussian() * (grid.size() * stdDevFactor);
         if (-1 < r && r < 0) r = -1; // always mutate at least by one
         else if (0 < r && r < 1) r = 1; 
-        int n = Math.max((int)Math.min(Math.round(ix + r), ordered_list.size() - 1), 0);
-        return ordered_list.get(n);
+        int n = Math.max((int)Math.min(Math.round(ix + r), grid.size() - 1), 0);
+        return grid.valueAt(n);
     }
 	
 	@Override
@@ -105,7 +118,7 @@ public class OrdinalDomain extends Domain {
 		List<Object> vals = new LinkedList<Object>();
 		for (int i = 0; i < numberSamples; i++) {
 			if (vals.size() == ordered_list.size()) break;
-			vals.add(ordered_list.get((int) Math.round(cur)));
+			vals.add(getDiscreteGrid().valueAt((int) Math.round(cur)));
 			cur += dist;
 		}
 		return vals;
@@ -113,21 +126,14 @@ public class OrdinalDomain extends Domain {
 
 	@Override
 	public Object getMidValueOrNull(Object o1, Object o2) {
-		int i1 = -1, i2 = -1;
-		for (int i = 0; i < ordered_list.size(); i++) {
-			if (ordered_list.get(i).equals(o1)) {
-				i1 = i;
-			}
-			if (ordered_list.get(i).equals(o2)) {
-				i2 = i;
-			}
-		}
+		DiscreteGrid grid = getDiscreteGrid();
+		int i1 = grid.indexOf(o1), i2 = grid.indexOf(o2);
 		if (i1 == i2 || i1 == -1 || i2 == -1)
 			return null;
 		int i = (i1 + i2) / 2;
 		if (i == i1 || i == i2) {
 			return null;
 		}
-		return ordered_list.get(i);
+		return grid.valueAt(i);
 	}
 }
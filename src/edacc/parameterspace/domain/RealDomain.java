@@ -1,16 +1,28 @@
 package edacc.parameterspace.domain;
 
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Random;
 
-@SuppressWarnings("serial")
+/**
+ * Real numbers between low and high. The discrete values (see {@link #getDiscreteValues()}) are a grid of
+ * {@link #getResolution()} equal intervals. If a resolution is set, {@link #mutatedValue(Random, Object, float)}
+ * and {@link #getGaussianDiscreteValues(Random, Object, float, int)} return the closest grid values; without
+ * a resolution the grid has {@link #DEFAULT_RESOLUTION} steps that are accumulated as in earlier versions.
+ *
+ * Subclasses can use another scale by overriding {@link #toScale(double)} and {@link #fromScale(double)},
+ * see {@link LogRealDomain}: the grid, random values and mutations are uniform resp. gaussian in that scale.
+ */
 public class RealDomain extends Domain {
+	private static final long serialVersionUID = -2957690233904201312L;
 	protected Double low, high;
+	protected Integer resolution;
 	public static final String name = "Real";
+	/** number of grid intervals if no resolution is set */
+	public static final int DEFAULT_RESOLUTION = 100;
 	
-	@SuppressWarnings("unused")
-    private RealDomain() {
+	protected RealDomain() {
 		
 	}
 	
@@ -19,6 +31,17 @@ public class RealDomain extends Domain {
 		this.high = high;
 	}
 	
+	/**
+	 * @param low
+	 * @param high
+	 * @param resolution number of intervals of the grid of discrete values, null for {@link #DEFAULT_RESOLUTION}
+	 */
+	public RealDomain(Double low, Double high, Integer resolution) {
+		this(low, high);
+		if (resolution != null && resolution < 1) throw new IllegalArgumentException("The resolution has to be positive");
+		this.resolution = resolution;
+	}
+	
 	public RealDomain(Integer low, Integer high) {
 		this.low = Double.valueOf(low);
 		this.high = Double.valueOf(high);
@@ -33,7 +56,8 @@ public class RealDomain extends Domain {
 	
 	@Override
 	public Object randomValue(Random rng) {
-		return rng.nextDouble() * (this.high - this.low) + this.low; 
+		double low = toScale(this.low), high = toScale(this.high);
+		return clamp(fromScale(rng.nextDouble() * (high - low) + low));
 	}
 
 	@Override
@@ -47,6 +71,7 @@ public class RealDomain extends Domain {
 
 	public void setLow(Double low) {
 		this.low = low;
+		invalidateDiscreteGrid();
 	}
 
 	public Double getHigh() {
@@ -55,6 +80,57 @@ public class RealDomain extends Domain {
 
 	public void setHigh(Double high) {
 		this.high = high;
+		invalidateDiscreteGrid();
+	}
+
+	/**
+	 * @return number of intervals of the grid of discrete values, null if the default is used
+	 */
+	public Integer getResolution() {
+		return resolution;
+	}
+
+	public void setResolution(Integer resolution) {
+		this.resolution = resolution;
+		invalidateDiscreteGrid();
+	}
+	
+	/**
+	 * Maps a value of the domain to the scale of the grid, random values and mutations.
+	 */
+	protected double toScale(double value) {
+		return value;
+	}
+	
+	/**
+	 * Inverse of {@link #toScale(double)}.
+	 */
+	protected double fromScale(double x) {
+		return x;
+	}
+	
+	private double clamp(double value) {
+		return Math.min(Math.max(this.low, value), this.high);
+	}
+	
+	private int gridIntervals() {
+		return resolution == null ? DEFAULT_RESOLUTION : resolution;
+	}
+	
+	/** i-th of the n + 1 grid values */
+	private double gridValue(int i, int n) {
+		if (i >= n) return high;
+		if (i <= 0) return low;
+		double low = toScale(this.low), high = toScale(this.high);
+		return clamp(fromScale(low + i * (high - low) / n));
+	}
+	
+	/** the grid value closest to value in the scale of the domain */
+	private double snap(double value) {
+		if (this.low.equals(this.high)) return this.low;
+		double low = toScale(this.low), high = toScale(this.high);
+		int n = gridIntervals();
+		return gridValue((int)Math.round((toScale(value) - low) / (high - low) * n), n);
 	}
 	
 	@Override
@@ -65,18 +141,47 @@ public class RealDomain extends Domain {
     @Override
     public Object mutatedValue(Random rng, Object value, float stdDevFactor) {
         if (!contains(value)) return value;
+        double low = toScale(this.low), high = toScale(this.high);
         double r = rng.nextGaussian() * ((high - low) * stdDevFactor);
-        return Math.min(Math.max(this.low, ((Number)value).doubleValue() + r), this.high);
+        double mutated = clamp(fromScale(Math.min(Math.max(low, toScale(((Number)value).doubleValue()) + r), high)));
+        return resolution == null ? mutated : snap(mutated);
     }
 	
 	@Override
 	public List<Object> getDiscreteValues() {
+		DiscreteGrid grid = getDiscreteGrid();
 		List<Object> values = new LinkedList<Object>();
-		for (double d = low; d <= high; d += (high - low) / 100.0f) {
-			values.add(d);
+		for (int i = 0; i < grid.size(); i++) {
+			values.add(grid.valueAt(i));
 		}
 		return values;
 	}
+	
+	@Override
+	protected DiscreteGrid createDiscreteGrid() {
+		if (resolution != null) return scaledGrid(resolution);
+		if (low.equals(high)) return DiscreteGrid.of(new double[] {low});
+		// the values of earlier versions, which accumulate the step
+		double step = (high - low) / 100.0f;
+		double[] values = new double[DEFAULT_RESOLUTION + 2];
+		int n = 0;
+		for (double d = low; d <= high; d += step) {
+			if (n == values.length) values = Arrays.copyOf(values, 2 * n);
+			values[n++] = d;
+		}
+		return DiscreteGrid.of(Arrays.copyOf(values, n));
+	}
+	
+	/**
+	 * @param n
+	 * @return the grid of n equal intervals in the scale of the domain, including low and high
+	 */
+	protected DiscreteGrid scaledGrid(int n) {
+		if (low.equals(high)) return DiscreteGrid.of(new double[] {low});
+		double[] values = new double[n + 1];
+		for (int i = 0; i <= n; i++) values[i] = gridValue(i, n);
+		return DiscreteGrid.of(values);
+	}
 
     @Override
     public String getName() {
@@ -96,13 +201,8 @@ public class RealDomain extends Domain {
 	@Override
 	public List<Object> getUniformDistributedValues(int numberSamples) {
 		List<Object> vals = new LinkedList<Object>();
-		double dist = (high - low) / (double) (numberSamples-1);
-		double cur = low;
 		for (int i = 0; i < numberSamples; i++) {
-			if (i == numberSamples -1)
-				cur = high;
-			vals.add(cur);
-			cur += dist;
+			vals.add(gridValue(i, numberSamples - 1));
 		}
 		return vals;
 	}
@@ -116,6 +216,6 @@ public class RealDomain extends Domain {
 		if (d1.equals(d2)) {
 			return null;
 		}
-		return (d1+d2) / 2;
+		return fromScale((toScale(d1) + toScale(d2)) / 2);
 	}
 }
@@ -0,0 +1,333 @@
+package edacc.parameterspace.graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import edacc.parameterspace.Parameter;
+import edacc.parameterspace.ParameterIndex;
+import edacc.parameterspace.domain.Domain;
+
+/**
+ * Immutable, index based representation of a parameter graph.
+ *
+ * Nodes and parameters are numbered densely, the adjacency is stored in CSR form (one offset
+ * array and one target array) and the incoming edge groups of each OR node are precomputed.
+ * All graph operations of {@link ParameterGraph} run over this structure, so they don't
+ * have to hash nodes or rebuild node sets on every call.
+ */
+final class CompiledGraph {
+	/** node number -> node */
+	final Node[] nodes;
+	final Map<Node, Integer> nodeIndex;
+	/** number of the start AND node */
+	final int start;
+	final boolean[] isOrNode;
+	/** node number -> parameter number, -1 for the start node */
+	final int[] nodeParameter;
+	/** node number -> domain of the AND node, null for OR nodes */
+	final Domain[] andDomain;
+
+	/** parameter number -> parameter, the numbers are the ordinals of the parameter index */
+	final Parameter[] parameters;
+	final ParameterIndex parameterIndex;
+
+	/** outgoing edges of node n are outTarget[outOffset[n]] .. outTarget[outOffset[n+1]-1] */
+	final int[] outOffset;
+	final int[] outTarget;
+	/** incoming edges of node n are inSource[inOffset[n]] .. inSource[inOffset[n+1]-1] */
+	final int[] inOffset;
+	final int[] inSource;
+	/**
+	 * all incoming edges of node n in the order of their sources and of the edge list, duplicates included:
+	 * edge i in inEdgeOffset[n] .. inEdgeOffset[n+1]-1 has the source inEdgeSource[i] and group inEdgeGroup[i]
+	 */
+	final int[] inEdgeOffset;
+	final int[] inEdgeSource;
+	final int[] inEdgeGroup;
+
+	/** OR node -> sources of its group 0 edges (any of them satisfies the node) */
+	final int[][] anyGroup;
+	/** OR node -> sources of each of its non-zero edge groups (all sources of a group satisfy the node) */
+	final int[][][] allGroups;
+
+	/** parameter number -> AND nodes of this parameter (without the start node) */
+	final int[][] andNodesByParameter;
+	/** AND node -> OR node with an edge to it, -1 for the start node */
+	final int[] preceedingOrNode;
+	final boolean[] isStartSuccessor;
+
+	/** node -> connected component of the graph without the start node (1-based), 0 if unreachable */
+	final int[] component;
+	final int componentCount;
+	/** component -> parameters of the nodes of that component */
+	final int[][] componentParameters;
+
+	CompiledGraph(AndNode startNode, Set<Node> nodeSet, ParameterIndex parameterIndex, List<Edge> edges) {
+		this.parameterIndex = parameterIndex;
+		parameters = new Parameter[parameterIndex.size()];
+		for (int i = 0; i < parameters.length; i++) parameters[i] = parameterIndex.get(i);
+
+		// number nodes, the start node is always node 0
+		nodeIndex = new LinkedHashMap<Node, Integer>(2 * nodeSet.size() + 2);
+		nodeIndex.put(startNode, 0);
+		for (Node n: nodeSet) addNode(n);
+		int numEdges = edges.size();
+		int[] edgeSource = new int[numEdges];
+		int[] edgeTarget = new int[numEdges];
+		int[] edgeGroup = new int[numEdges];
+		int k = 0;
+		for (Edge e: edges) {
+			edgeSource[k] = addNode(e.getSource());
+			edgeTarget[k] = addNode(e.getTarget());
+			edgeGroup[k] = e.getGroup();
+			k++;
+		}
+		int numNodes = nodeIndex.size();
+		nodes = nodeIndex.keySet().toArray(new Node[numNodes]);
+		start = 0;
+
+		isOrNode = new boolean[numNodes];
+		nodeParameter = new int[numNodes];
+		andDomain = new Domain[numNodes];
+		for (int n = 0; n < numNodes; n++) {
+			isOrNode[n] = nodes[n] instanceof OrNode;
+			if (n == start) {
+				nodeParameter[n] = -1;
+				continue;
+			}
+			int p = parameterIndex.ordinal(nodes[n].getParameter());
+			if (p == -1) throw new IllegalArgumentException("Node " + nodes[n].getId() + " references a parameter that is not part of the graph");
+			nodeParameter[n] = p;
+			if (!isOrNode[n]) andDomain[n] = ((AndNode)nodes[n]).getDomain();
+		}
+
+		// CSR adjacency in a single pass over the edges (bucketed by source in the order of the edge list,
+		// then by target in the order of the sources), duplicate edges are dropped
+		int[] identity = new int[numEdges];
+		for (int e = 0; e < numEdges; e++) identity[e] = e;
+		int[] rawOutOffset = new int[numNodes + 1];
+		int[] outEdges = bucket(edgeSource, identity, numNodes, rawOutOffset);
+		int[] rawInOffset = new int[numNodes + 1];
+		int[] inEdges = bucket(edgeTarget, outEdges, numNodes, rawInOffset);
+
+		int[] mark = new int[numNodes];
+		outOffset = new int[numNodes + 1];
+		outTarget = distinct(outEdges, rawOutOffset, edgeTarget, outOffset, mark);
+		inOffset = new int[numNodes + 1];
+		inSource = distinct(inEdges, rawInOffset, edgeSource, inOffset, mark);
+		inEdgeOffset = rawInOffset;
+		inEdgeSource = new int[numEdges];
+		inEdgeGroup = new int[numEdges];
+		for (int i = 0; i < numEdges; i++) {
+			inEdgeSource[i] = edgeSource[inEdges[i]];
+			inEdgeGroup[i] = edgeGroup[inEdges[i]];
+		}
+
+		// edge groups of the OR nodes
+		anyGroup = new int[numNodes][];
+		allGroups = new int[numNodes][][];
+		Arrays.fill(mark, 0);
+		int stamp = 0;
+		for (int n = 0; n < numNodes; n++) {
+			if (!isOrNode[n]) continue;
+			// count the edges of the groups first, so that every group gets an array of its size
+			Map<Integer, int[]> groups = new LinkedHashMap<Integer, int[]>(); // group -> {size, sources...}
+			for (int i = rawInOffset[n]; i < rawInOffset[n + 1]; i++) {
+				int[] group = groups.get(edgeGroup[inEdges[i]]);
+				if (group == null) groups.put(edgeGroup[inEdges[i]], new int[] {1});
+				else group[0]++;
+			}
+			for (Map.Entry<Integer, int[]> entry: groups.entrySet()) {
+				entry.setValue(new int[entry.getValue()[0] + 1]);
+			}
+			for (int i = rawInOffset[n]; i < rawInOffset[n + 1]; i++) {
+				int e = inEdges[i];
+				int[] group = groups.get(edgeGroup[e]);
+				group[++group[0]] = edgeSource[e];
+			}
+			int[] any = groups.remove(0);
+			anyGroup[n] = any == null ? new int[0] : distinct(any, mark, ++stamp);
+			allGroups[n] = new int[groups.size()][];
+			int g = 0;
+			for (int[] group: groups.values()) allGroups[n][g++] = distinct(group, mark, ++stamp);
+		}
+
+		// AND nodes by parameter, preceeding OR nodes
+		int[] count = new int[parameters.length];
+		for (int n = 0; n < numNodes; n++) {
+			if (n != start && !isOrNode[n]) count[nodeParameter[n]]++;
+		}
+		andNodesByParameter = new int[parameters.length][];
+		for (int p = 0; p < parameters.length; p++) andNodesByParameter[p] = new int[count[p]];
+		Arrays.fill(count, 0);
+		for (int n = 0; n < numNodes; n++) {
+			if (n != start && !isOrNode[n]) andNodesByParameter[nodeParameter[n]][count[nodeParameter[n]]++] = n;
+		}
+		preceedingOrNode = new int[numNodes];
+		Arrays.fill(preceedingOrNode, -1);
+		for (int n = 0; n < numNodes; n++) {
+			if (!isOrNode[n]) continue;
+			for (int i = outOffset[n]; i < outOffset[n + 1]; i++) {
+				if (preceedingOrNode[outTarget[i]] == -1) preceedingOrNode[outTarget[i]] = n;
+			}
+		}
+		isStartSuccessor = new boolean[numNodes];
+		for (int i = outOffset[start]; i < outOffset[start + 1]; i++) isStartSuccessor[outTarget[i]] = true;
+
+		// connected components of the graph without the start node (used by the crossover operators)
+		int[] parent = new int[numNodes];
+		for (int n = 0; n < numNodes; n++) parent[n] = n;
+		for (int n = 0; n < numNodes; n++) {
+			if (n == start) continue;
+			for (int i = outOffset[n]; i < outOffset[n + 1]; i++) {
+				if (outTarget[i] != start) union(parent, n, outTarget[i]);
+			}
+		}
+		int[] rootComponent = new int[numNodes];
+		int components = 0;
+		for (int i = outOffset[start]; i < outOffset[start + 1]; i++) {
+			int root = find(parent, outTarget[i]);
+			if (rootComponent[root] == 0) rootComponent[root] = ++components;
+		}
+		componentCount = components;
+		component = new int[numNodes];
+		List<List<Integer>> params = new ArrayList<List<Integer>>();
+		for (int c = 0; c <= componentCount; c++) params.add(new ArrayList<Integer>());
+		for (int n = 0; n < numNodes; n++) {
+			if (n == start) continue;
+			component[n] = rootComponent[find(parent, n)];
+			if (component[n] != 0) params.get(component[n]).add(nodeParameter[n]);
+		}
+		componentParameters = new int[componentCount + 1][];
+		for (int c = 0; c <= componentCount; c++) {
+			int[] sorted = toArray(params.get(c));
+			Arrays.sort(sorted);
+			int m = 0;
+			for (int i = 0; i < sorted.length; i++) {
+				if (m == 0 || sorted[m - 1] != sorted[i]) sorted[m++] = sorted[i];
+			}
+			componentParameters[c] = Arrays.copyOf(sorted, m);
+		}
+	}
+
+	private int addNode(Node n) {
+		Integer i = nodeIndex.get(n);
+		if (i == null) {
+			i = nodeIndex.size();
+			nodeIndex.put(n, i);
+		}
+		return i;
+	}
+
+	/**
+	 * Stable counting sort of the edges <code>order</code> by their key.
+	 * @param offset receives the bucket bounds, the edges with key k are at offset[k] .. offset[k+1]-1
+	 * @return the sorted edges
+	 */
+	private static int[] bucket(int[] keys, int[] order, int numKeys, int[] offset) {
+		for (int e: order) offset[keys[e] + 1]++;
+		for (int k = 0; k < numKeys; k++) offset[k + 1] += offset[k];
+		int[] pos = Arrays.copyOf(offset, numKeys);
+		int[] sorted = new int[order.length];
+		for (int e: order) sorted[pos[keys[e]]++] = e;
+		return sorted;
+	}
+
+	/**
+	 * Compacts the buckets of <code>edges</code> to the distinct nodes at the given end of the edges.
+	 * @param mark work array with one entry per node, overwritten
+	 */
+	private static int[] distinct(int[] edges, int[] rawOffset, int[] endpoint, int[] offset, int[] mark) {
+		Arrays.fill(mark, -1);
+		int[] res = new int[edges.length];
+		int m = 0;
+		for (int n = 0; n + 1 < rawOffset.length; n++) {
+			offset[n] = m;
+			for (int i = rawOffset[n]; i < rawOffset[n + 1]; i++) {
+				int node = endpoint[edges[i]];
+				if (mark[node] != n) {
+					mark[node] = n;
+					res[m++] = node;
+				}
+			}
+		}
+		offset[rawOffset.length - 1] = m;
+		return m == res.length ? res : Arrays.copyOf(res, m);
+	}
+
+	/**
+	 * @param group the number of nodes followed by the nodes
+	 * @param mark work array with one entry per node, entries equal to <code>stamp</code> are taken as seen
+	 * @return the distinct nodes of the group in their order
+	 */
+	private static int[] distinct(int[] group, int[] mark, int stamp) {
+		int[] res = new int[group[0]];
+		int m = 0;
+		for (int i = 1; i <= group[0]; i++) {
+			if (mark[group[i]] != stamp) {
+				mark[group[i]] = stamp;
+				res[m++] = group[i];
+			}
+		}
+		return m == res.length ? res : Arrays.copyOf(res, m);
+	}
+
+	private static int[] toArray(List<Integer> l) {
+		int[] res = new int[l.size()];
+		for (int i = 0; i < res.length; i++) res[i] = l.get(i);
+		return res;
+	}
+
+	private static int find(int[] parent, int n) {
+		while (parent[n] != n) {
+			parent[n] = parent[parent[n]];
+			n = parent[n];
+		}
+		return n;
+	}
+
+	private static void union(int[] parent, int a, int b) {
+		int ra = find(parent, a), rb = find(parent, b);
+		if (ra != rb) parent[Math.max(ra, rb)] = Math.min(ra, rb);
+	}
+
+	int size() {
+		return nodes.length;
+	}
+
+	int outDegree(int n) {
+		return outOffset[n + 1] - outOffset[n];
+	}
+
+	/**
+	 * @return the number of the parameter or -1 if it isn't part of the graph
+	 */
+	int parameterNumber(Parameter p) {
+		return parameterIndex.ordinal(p);
+	}
+
+	/**
+	 * An OR node is satisfied if any source of its group 0 edges is done, or if all
+	 * sources of one of its other edge groups are done.
+	 */
+	boolean incomingEdgesDone(int orNode, boolean[] doneAndNodes) {
+		for (int source: anyGroup[orNode]) {
+			if (doneAndNodes[source]) return true;
+		}
+		for (int[] group: allGroups[orNode]) {
+			boolean allDone = true;
+			for (int source: group) {
+				if (!doneAndNodes[source]) {
+					allDone = false;
+					break;
+				}
+			}
+			if (allDone) return true;
+		}
+		return false;
+	}
+}
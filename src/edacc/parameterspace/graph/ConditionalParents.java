@@ -0,0 +1,252 @@
+package edacc.parameterspace.graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import edacc.parameterspace.ConfigurationEncoder;
+import edacc.parameterspace.Parameter;
+import edacc.parameterspace.domain.CategoricalDomain;
+import edacc.parameterspace.domain.DiscreteGrid;
+import edacc.parameterspace.domain.Domain;
+import edacc.parameterspace.domain.FlagDomain;
+import edacc.parameterspace.domain.OrdinalDomain;
+
+/**
+ * Conditional parents of the parameters of a graph for the random forests of model-based configurators,
+ * see {@link ParameterGraph#getConditionalParents(List)}. The columns are the parameters in the order
+ * they were passed in, the values of the parents are the codes of {@link ConfigurationEncoder}.
+ *
+ * Every edge into the OR node of a conditional parameter is an entry, in the order of the incoming edges
+ * of the graph and including duplicate edges: the parents of column c are the
+ * entries <code>getParentOffsets()[c]</code> .. <code>getParentOffsets()[c + 1] - 1</code>, entry e has
+ * the parent column <code>getParentColumns()[e]</code> and the allowed parent values
+ * <code>getParentValues()[getValueOffsets()[e]]</code> .. <code>getParentValues()[getValueOffsets()[e + 1] - 1]</code>
+ * in ascending order. Edges from parameters that aren't columns are left out.
+ *
+ * Instances are immutable and the arrays returned by the getters must not be modified.
+ */
+public final class ConditionalParents {
+	final CompiledGraph g;
+	private final List<Parameter> parameters;
+	private final boolean[] conditional;
+	private final int[] parentOffset;
+	private final int[] parentColumn;
+	/** entry -> edge group of the entry, 0 if any satisfied entry of the group activates the column */
+	private final int[] entryGroup;
+	/** the entries of each column ordered by their edge groups, group 0 first, see isActive() */
+	private final int[] groupOrder;
+	private final int[] valueOffset;
+	private final double[] parentValue;
+
+	ConditionalParents(ParameterGraph graph, CompiledGraph g, List<Parameter> orderedParameters) {
+		this.g = g;
+		this.parameters = Collections.unmodifiableList(new ArrayList<Parameter>(orderedParameters));
+		int numColumns = parameters.size();
+		int[] column = new int[g.parameters.length]; // parameter number -> column, -1 if it isn't a column
+		Arrays.fill(column, -1);
+		for (int c = 0; c < numColumns; c++) {
+			int p = g.parameterNumber(parameters.get(c));
+			if (p != -1 && column[p] == -1) column[p] = c;
+		}
+
+		// the OR node of each column (for now we assume each parameter only appears once in the graph)
+		int[] orNode = new int[numColumns];
+		Arrays.fill(orNode, -1);
+		for (int n = 0; n < g.size(); n++) {
+			if (!g.isOrNode[n]) continue;
+			int c = column[g.nodeParameter[n]];
+			if (c != -1) orNode[c] = n;
+		}
+
+		conditional = new boolean[numColumns];
+		parentOffset = new int[numColumns + 1];
+		List<Integer> parents = new ArrayList<Integer>();
+		List<Integer> groups = new ArrayList<Integer>();
+		for (int c = 0; c < numColumns; c++) {
+			int n = orNode[c];
+			parentOffset[c] = parents.size();
+			if (n == -1 || g.isStartSuccessor[n]) continue;
+			conditional[c] = true;
+			for (int i = g.inEdgeOffset[n]; i < g.inEdgeOffset[n + 1]; i++) {
+				int source = g.inEdgeSource[i];
+				if (column[g.nodeParameter[source]] == -1) continue;
+				parents.add(source);
+				groups.add(g.inEdgeGroup[i]);
+			}
+		}
+		parentOffset[numColumns] = parents.size();
+
+		// stable counting sort of the entries of each column by group, the groups are numbered by first occurrence
+		groupOrder = new int[parents.size()];
+		Map<Integer, Integer> groupNumber = new HashMap<Integer, Integer>();
+		int[] entryGroupNumber = new int[parents.size()];
+		for (int c = 0; c < numColumns; c++) {
+			groupNumber.clear();
+			groupNumber.put(0, 0);
+			for (int e = parentOffset[c]; e < parentOffset[c + 1]; e++) {
+				Integer k = groupNumber.get(groups.get(e));
+				if (k == null) {
+					k = groupNumber.size();
+					groupNumber.put(groups.get(e), k);
+				}
+				entryGroupNumber[e] = k;
+			}
+			int[] groupOffset = new int[groupNumber.size() + 1];
+			for (int e = parentOffset[c]; e < parentOffset[c + 1]; e++) groupOffset[entryGroupNumber[e] + 1]++;
+			for (int k = 0; k + 1 < groupOffset.length; k++) groupOffset[k + 1] += groupOffset[k];
+			for (int e = parentOffset[c]; e < parentOffset[c + 1]; e++) {
+				groupOrder[parentOffset[c] + groupOffset[entryGroupNumber[e]]++] = e;
+			}
+		}
+
+		// the parent values are encoded by the codes of the parent parameters, which are built once per parent
+		Map<Parameter, Integer> parentIndex = new HashMap<Parameter, Integer>();
+		List<Parameter> parentParameters = new ArrayList<Parameter>();
+		for (int source: parents) {
+			Parameter p = g.parameters[g.nodeParameter[source]];
+			if (parentIndex.containsKey(p)) continue;
+			Domain domain = p.getDomain();
+			if (!(domain instanceof CategoricalDomain || domain instanceof OrdinalDomain || domain instanceof FlagDomain)) {
+				throw new IllegalArgumentException("Encountered non-categorical parent parameter " + p.getName() + " when building conditional parents datastructure");
+			}
+			parentIndex.put(p, parentParameters.size());
+			parentParameters.add(p);
+		}
+		ConfigurationEncoder encoder = new ConfigurationEncoder(graph, parentParameters);
+
+		parentColumn = new int[parents.size()];
+		entryGroup = new int[parents.size()];
+		valueOffset = new int[parents.size() + 1];
+		double[] values = new double[16];
+		int numValues = 0;
+		for (int e = 0; e < parentColumn.length; e++) {
+			int source = parents.get(e);
+			Parameter p = g.parameters[g.nodeParameter[source]];
+			parentColumn[e] = column[g.nodeParameter[source]];
+			entryGroup[e] = groups.get(e);
+			valueOffset[e] = numValues;
+			int encoderColumn = parentIndex.get(p);
+			DiscreteGrid grid = g.andDomain[source].getDiscreteGrid();
+			for (int i = 0; i < grid.size(); i++) {
+				if (numValues == values.length) values = Arrays.copyOf(values, 2 * values.length);
+				values[numValues++] = encoder.encodeValue(encoderColumn, grid.valueAt(i));
+			}
+			Arrays.sort(values, valueOffset[e], numValues);
+		}
+		valueOffset[parentColumn.length] = numValues;
+		parentValue = Arrays.copyOf(values, numValues);
+	}
+
+	/**
+	 * @return the parameters of the columns
+	 */
+	public List<Parameter> getParameters() {
+		return parameters;
+	}
+
+	public int getNumColumns() {
+		return conditional.length;
+	}
+
+	/**
+	 * @param column
+	 * @return whether the parameter of the column has conditional parents in the graph
+	 */
+	public boolean isConditional(int column) {
+		return conditional[column];
+	}
+
+	public int[] getParentOffsets() {
+		return parentOffset;
+	}
+
+	public int[] getParentColumns() {
+		return parentColumn;
+	}
+
+	public int[] getValueOffsets() {
+		return valueOffset;
+	}
+
+	public double[] getParentValues() {
+		return parentValue;
+	}
+
+	/**
+	 * Returns whether the parameter of a column is active in an encoded configuration: either it is
+	 * unconditional or its parents activate its OR node, i.e. the value of any parent of an edge group 0
+	 * entry is allowed, or the values of all parents of one of the other edge groups are. Inactive
+	 * parents are encoded as NaN and never allowed. A conditional column without parent columns is
+	 * always active.
+	 * @param column
+	 * @param row encoded configuration with the same columns, see {@link ConfigurationEncoder}
+	 * @param offset position of the first column in <code>row</code>
+	 */
+	public boolean isActive(int column, double[] row, int offset) {
+		int i = parentOffset[column], end = parentOffset[column + 1];
+		if (!conditional[column] || i == end) return true;
+		for (; i < end && entryGroup[groupOrder[i]] == 0; i++) {
+			int e = groupOrder[i];
+			if (allowed(e, row[offset + parentColumn[e]])) return true;
+		}
+		while (i < end) {
+			int group = entryGroup[groupOrder[i]];
+			boolean all = true;
+			for (; i < end && entryGroup[groupOrder[i]] == group; i++) {
+				int e = groupOrder[i];
+				if (all && !allowed(e, row[offset + parentColumn[e]])) all = false;
+			}
+			if (all) return true;
+		}
+		return false;
+	}
+
+	/**
+	 * @see #isActive(int, double[], int)
+	 */
+	public boolean isActive(int column, double[] row) {
+		return isActive(column, row, 0);
+	}
+
+	private boolean allowed(int entry, double value) {
+		for (int i = valueOffset[entry]; i < valueOffset[entry + 1]; i++) {
+			if (parentValue[i] == value) return true;
+			if (parentValue[i] > value) return false;
+		}
+		return false;
+	}
+
+	/**
+	 * @return the parent columns in the layout of {@link ParameterGraph#conditionalParentsForRF(List)}:
+	 * null for unconditional columns, otherwise the parent column of each entry
+	 */
+	public int[][] getConditionalParentsArray() {
+		int[][] condParents = new int[conditional.length][];
+		for (int c = 0; c < conditional.length; c++) {
+			if (conditional[c]) condParents[c] = Arrays.copyOfRange(parentColumn, parentOffset[c], parentOffset[c + 1]);
+		}
+		return condParents;
+	}
+
+	/**
+	 * @return the allowed parent values in the layout of {@link ParameterGraph#conditionalParentsForRF(List)}:
+	 * null for unconditional columns, otherwise the allowed values of each entry
+	 */
+	public int[][][] getConditionalParentValuesArray() {
+		int[][][] condParentVals = new int[conditional.length][][];
+		for (int c = 0; c < conditional.length; c++) {
+			if (!conditional[c]) continue;
+			condParentVals[c] = new int[parentOffset[c + 1] - parentOffset[c]][];
+			for (int e = parentOffset[c]; e < parentOffset[c + 1]; e++) {
+				int[] vals = new int[valueOffset[e + 1] - valueOffset[e]];
+				for (int i = 0; i < vals.length; i++) vals[i] = (int)parentValue[valueOffset[e] + i];
+				condParentVals[c][e - parentOffset[c]] = vals;
+			}
+		}
+		return condParentVals;
+	}
+}
@@ -0,0 +1,84 @@
+package edacc.parameterspace.graph;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Draws random configurations of a compiled graph, see {@link ParameterGraph#getRandomConfiguration(Random)}.
+ * The work arrays are allocated once and reused for every sample, so drawing many configurations
+ * only costs the traversal of the graph.
+ */
+final class ConfigurationSampler {
+	private final CompiledGraph g;
+	private final Object[] fixedValues; // parameter number -> value of fixed parameters
+	private final Object[] values;
+	private final boolean[] doneAnd;
+	private final boolean[] inL;
+	private final int[] L; // OR nodes that still have to be looked at
+	private final int[] open; // positions of the satisfied ones in L
+
+	ConfigurationSampler(CompiledGraph g, Object[] fixedValues) {
+		this.g = g;
+		this.fixedValues = fixedValues;
+		this.values = new Object[g.parameters.length];
+		this.doneAnd = new boolean[g.size()];
+		this.inL = new boolean[g.size()];
+		this.L = new int[g.size()];
+		this.open = new int[g.size()];
+	}
+
+	/**
+	 * Draws the next configuration.
+	 * @param rng
+	 * @return the values of the configuration by parameter number. The array is overwritten by the next call.
+	 */
+	Object[] sample(Random rng) {
+		System.arraycopy(fixedValues, 0, values, 0, values.length);
+		Arrays.fill(doneAnd, false);
+		doneAnd[g.start] = true;
+
+		int numL = 0;
+		for (int i = g.outOffset[g.start]; i < g.outOffset[g.start + 1]; i++) {
+			int n = g.outTarget[i];
+			if (!inL[n]) { inL[n] = true; L[numL++] = n; }
+		}
+
+		while (true) {
+			int numOpen = 0;
+			for (int i = 0; i < numL; i++)
+				if (g.incomingEdgesDone(L[i], doneAnd))
+					open[numOpen++] = i;
+			if (numOpen == 0) break;
+			int pos = open[rng.nextInt(numOpen)];
+			int or_node = L[pos];
+			L[pos] = L[--numL];
+			inL[or_node] = false;
+
+			int and_node = g.outTarget[g.outOffset[or_node] + rng.nextInt(g.outDegree(or_node))];
+			int p = g.nodeParameter[and_node];
+
+			if (values[p] == null) {
+				values[p] = g.andDomain[and_node].randomValue(rng);
+				doneAnd[and_node] = true;
+				for (int i = g.outOffset[and_node]; i < g.outOffset[and_node + 1]; i++) {
+					int n = g.outTarget[i];
+					if (g.isOrNode[n] && !inL[n]) { inL[n] = true; L[numL++] = n; }
+				}
+			} else {
+				for (int j = g.outOffset[or_node]; j < g.outOffset[or_node + 1]; j++) {
+					int an = g.outTarget[j];
+					if (g.andDomain[an].contains(values[g.nodeParameter[an]])) {
+						doneAnd[an] = true;
+						for (int i = g.outOffset[an]; i < g.outOffset[an + 1]; i++) {
+							int n = g.outTarget[i];
+							if (g.isOrNode[n] && !inL[n]) { inL[n] = true; L[numL++] = n; }
+						}
+					}
+				}
+			}
+		}
+		// OR nodes that never became satisfied are still marked
+		for (int i = 0; i < numL; i++) inL[L[i]] = false;
+		return values;
+	}
+}
@@ -0,0 +1,102 @@
+package edacc.parameterspace.graph;
+
+import java.util.Arrays;
+import java.util.List;
+
+import edacc.parameterspace.ConfigurationView;
+import edacc.parameterspace.Parameter;
+import edacc.parameterspace.ParameterIndex;
+import edacc.parameterspace.domain.FlagDomain;
+
+/**
+ * Checks configurations against a compiled parameter graph, see {@link ParameterGraph#getValidator()}.
+ * The work arrays are allocated once and reused, so validating a configuration doesn't allocate unless
+ * it is invalid. An instance must only be used by one thread at a time.
+ *
+ * A configuration is valid if every active parameter has a value that is contained in one of its AND
+ * nodes, and no inactive parameter has a value other than null or {@link FlagDomain.FLAGS#OFF}.
+ */
+public final class ConfigurationValidator {
+	final CompiledGraph g;
+	private final boolean[] assigned; // AND nodes assigned by the configuration
+	private final boolean[] checked; // parameters whose OR node was reached
+	private final int[] queue;
+
+	ConfigurationValidator(CompiledGraph g) {
+		this.g = g;
+		this.assigned = new boolean[g.size()];
+		this.checked = new boolean[g.parameters.length];
+		// an OR node is queued once per assigned predecessor at most, so this bounds the queue
+		this.queue = new int[g.outTarget.length + 1];
+	}
+
+	/**
+	 * @param config
+	 * @return {@link ValidationResult#VALID} or the first violation
+	 */
+	public ValidationResult validate(ConfigurationView config) {
+		ParameterIndex index = config.getParameterIndex();
+		boolean sameIndex = index == g.parameterIndex;
+		Arrays.fill(assigned, false);
+		Arrays.fill(checked, false);
+
+		assigned[g.start] = true;
+		int head = 0, tail = 0;
+		for (int i = g.outOffset[g.start]; i < g.outOffset[g.start + 1]; i++) queue[tail++] = g.outTarget[i];
+		while (head < tail) {
+			int n = queue[head++];
+			int p = g.nodeParameter[n];
+			checked[p] = true;
+			if (!g.incomingEdgesDone(n, assigned)) continue;
+
+			Object value = value(config, index, sameIndex, p);
+			boolean parameterSet = false;
+			for (int i = g.outOffset[n]; i < g.outOffset[n + 1]; i++) {
+				int andNode = g.outTarget[i];
+				if (assigned[andNode]) {
+					parameterSet = true;
+				} else if (g.andDomain[andNode].contains(value)) {
+					assigned[andNode] = true;
+					for (int j = g.outOffset[andNode]; j < g.outOffset[andNode + 1]; j++) queue[tail++] = g.outTarget[j];
+					parameterSet = true;
+				}
+			}
+			if (!parameterSet) return new ValidationResult(g.parameters[p], ValidationResult.Reason.MISSING_VALUE, value);
+		}
+
+		for (int o = 0; o < index.size(); o++) {
+			int p = sameIndex ? o : g.parameterNumber(index.get(o));
+			if (p != -1 && checked[p]) continue;
+			Object value = config.getParameterValue(o);
+			if (value != null && value != FlagDomain.FLAGS.OFF) {
+				return new ValidationResult(index.get(o), ValidationResult.Reason.INACTIVE_PARAMETER_SET, value);
+			}
+		}
+		return ValidationResult.VALID;
+	}
+
+	/**
+	 * Validates many configurations.
+	 * @param configs
+	 * @param valid receives whether each configuration is valid, has to be at least as long as <code>configs</code>
+	 * @return the number of valid configurations
+	 */
+	public int validate(List<? extends ConfigurationView> configs, boolean[] valid) {
+		if (valid.length < configs.size()) throw new IllegalArgumentException("Expected at least " + configs.size() + " result entries");
+		int numValid = 0;
+		int i = 0;
+		for (ConfigurationView config: configs) {
+			valid[i] = validate(config).isValid();
+			if (valid[i++]) numValid++;
+		}
+		return numValid;
+	}
+
+	/** value of graph parameter <code>p</code> in the configuration, null if the configuration doesn't have the parameter */
+	private Object value(ConfigurationView config, ParameterIndex index, boolean sameIndex, int p) {
+		if (sameIndex) return config.getParameterValue(p);
+		Parameter param = g.parameters[p];
+		int o = index.ordinal(param);
+		return o == -1 ? null : config.getParameterValue(o);
+	}
+}
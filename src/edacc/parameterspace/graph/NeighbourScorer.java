@@ -0,0 +1,11 @@
+package edacc.parameterspace.graph;
+
+import edacc.parameterspace.ConfigurationView;
+
+/**
+ * Scores neighbours during parallel neighbourhood generation, e.g. with the prediction of a model.
+ * The scorer is called from several threads at once and has to be thread-safe.
+ */
+public interface NeighbourScorer {
+	public double score(ConfigurationView neighbour);
+}
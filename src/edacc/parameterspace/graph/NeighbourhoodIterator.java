@@ -0,0 +1,89 @@
+package edacc.parameterspace.graph;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import edacc.parameterspace.DeltaConfiguration;
+import edacc.parameterspace.ParameterConfiguration;
+
+/**
+ * Lazily generates the neighbourhood of a configuration, one parameter at a time.
+ * The candidate values of a parameter are only computed when the iterator reaches it,
+ * so a first-improvement search that stops early doesn't pay for the rest of the neighbourhood.
+ *
+ * The iterator covers a range of parameter numbers of the graph. {@link #split()} hands the
+ * second half of the remaining range to a new iterator, which allows consuming a neighbourhood
+ * from several threads. Iterators of gaussian neighbourhoods share the random number generator
+ * they were created with, so they should only be split if that generator is thread-safe.
+ */
+public final class NeighbourhoodIterator implements Iterator<DeltaConfiguration> {
+	/** Computes the candidate values of one parameter */
+	interface NeighbourValues {
+		/**
+		 * @param parameter parameter number in the compiled graph
+		 * @return the values of the parameter that lead to neighbours
+		 */
+		List<Object> values(int parameter);
+	}
+
+	private final CompiledGraph g;
+	private final ParameterConfiguration config;
+	private final NeighbourValues generator;
+	private int nextParameter;
+	private int endParameter;
+	private int ordinal; // ordinal of the current parameter in the index of config
+	private List<Object> values; // candidate values of the current parameter
+	private int nextValue;
+
+	NeighbourhoodIterator(CompiledGraph g, ParameterConfiguration config, NeighbourValues generator, int fromParameter, int toParameter) {
+		this.g = g;
+		this.config = config;
+		this.generator = generator;
+		this.nextParameter = fromParameter;
+		this.endParameter = toParameter;
+	}
+
+	@Override
+	public boolean hasNext() {
+		while (values == null || nextValue >= values.size()) {
+			if (nextParameter >= endParameter) return false;
+			ordinal = config.getParameterIndex().ordinal(g.parameters[nextParameter]);
+			values = generator.values(nextParameter++);
+			nextValue = 0;
+		}
+		return true;
+	}
+
+	@Override
+	public DeltaConfiguration next() {
+		if (!hasNext()) throw new NoSuchElementException();
+		return new DeltaConfiguration(config, ordinal, values.get(nextValue++));
+	}
+
+	@Override
+	public void remove() {
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * Splits off the second half of the parameters this iterator hasn't reached yet.
+	 * @return iterator over the split off parameters or null if there are less than two
+	 * parameters left
+	 */
+	public NeighbourhoodIterator split() {
+		int remaining = endParameter - nextParameter;
+		if (remaining < 2) return null;
+		int mid = nextParameter + remaining / 2;
+		NeighbourhoodIterator other = new NeighbourhoodIterator(g, config, generator, mid, endParameter);
+		endParameter = mid;
+		return other;
+	}
+
+	/**
+	 * @return number of parameters whose neighbours haven't been generated yet
+	 */
+	public int remainingParameters() {
+		return endParameter - nextParameter;
+	}
+}
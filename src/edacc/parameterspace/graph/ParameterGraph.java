@@ -1,31 +1,50 @@
 package edacc.parameterspace.graph;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Queue;
 import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
 import javax.xml.bind.annotation.XmlIDREF;
 import javax.xml.bind.annotation.XmlRootElement;
 
+import edacc.parameterspace.ConfigurationBatch;
+import edacc.parameterspace.ConfigurationView;
+import edacc.parameterspace.DeltaConfiguration;
 import edacc.parameterspace.Parameter;
 import edacc.parameterspace.ParameterConfiguration;
-import edacc.parameterspace.domain.CategoricalDomain;
+import edacc.parameterspace.ParameterIndex;
+import edacc.parameterspace.domain.DiscreteGrid;
 import edacc.parameterspace.domain.Domain;
 import edacc.parameterspace.domain.FlagDomain;
 import edacc.parameterspace.domain.IntegerDomain;
 import edacc.parameterspace.domain.OrdinalDomain;
 import edacc.parameterspace.domain.RealDomain;
 import edacc.util.Pair;
+import edacc.util.SplittableMersenneTwister;
 
 @XmlRootElement( name="parameterspace" )
 public class ParameterGraph {
+    /** @deprecated checksums are calculated on demand by {@link ParameterConfiguration#getChecksum()} */
+    @Deprecated
     public static boolean calculateChecksums = true;
     
 	@XmlIDREF public AndNode startNode;
@@ -33,32 +52,107 @@ public class ParameterGraph {
 	public Set<Parameter> parameters;
 	public List<Edge> edges;
 	
-	private Map<Node, List<Edge>> adjacent_edges; // internal adjacency list
-	private Map<Node, List<Edge>> incoming_edges; // internal reverse adjacency list
 	private Map<Parameter, Object> fixedParameters;
 	
+	private volatile CompiledGraph compiled; // index based form of the graph, see buildAdjacencyList()
+	private boolean[] fixed; // parameter number -> fixed?
+	
+	private final ThreadLocal<ConfigurationValidator> validators = new ThreadLocal<ConfigurationValidator>();
+	private volatile ConditionalParents conditionalParents; // of the last parameter ordering
+	
+	private static volatile JAXBContext jaxbContext;
+	private static final int BINARY_HEADER_LENGTH = 4;
+	
 	@SuppressWarnings("unused")
     private ParameterGraph() {
 	    this.fixedParameters = new HashMap<Parameter, Object>();
 	}
+	
+	/** graph sharing the structure of <code>base</code>, see {@link #withFixedParameters(Map)} */
+	private ParameterGraph(ParameterGraph base) {
+		CompiledGraph g = base.compiled();
+		this.startNode = base.startNode;
+		this.nodes = base.nodes;
+		this.edges = base.edges;
+		this.parameters = base.parameters;
+		this.fixedParameters = new HashMap<Parameter, Object>();
+		this.fixed = fixedFlags(g);
+		this.compiled = g;
+	}
+	
+	/**
+	 * Returns the JAXB context of parameter graphs. The context is expensive to create and thread-safe,
+	 * so it is created once; marshallers and unmarshallers have to be created by each thread.
+	 * @throws JAXBException
+	 */
+	public static JAXBContext getJAXBContext() throws JAXBException {
+		JAXBContext jc = jaxbContext;
+		if (jc == null) {
+			synchronized (ParameterGraph.class) {
+				jc = jaxbContext;
+				if (jc == null) jaxbContext = jc = JAXBContext.newInstance(ParameterGraph.class);
+			}
+		}
+		return jc;
+	}
 
 	public ParameterGraph(Set<Node> nodes, List<Edge> edges, Set<Parameter> parameters, AndNode startNode) {
 		this.startNode = startNode;
 		this.nodes = nodes;
 		this.edges = edges;
 		this.parameters = parameters;
-		buildAdjacencyList();
 		this.fixedParameters = new HashMap<Parameter, Object>();
+		buildAdjacencyList();
 	}
 	
 	/**
 	 * Set a subset of parameters to be fixed, i.e. they don't have to be considered
 	 * in neighbourhood calculation. Their values will be set to null in the resulting configurations.
+	 * The map is copied, later changes of it have no effect until it is set again.
 	 * @param parameters
 	 */
 	public void setFixedParameters(Map<Parameter, Object> parameters) {
 	    if (parameters == null) throw new IllegalArgumentException("fixedParameters can't be set to null");
-	    fixedParameters = parameters;
+	    fixedParameters = new HashMap<Parameter, Object>(parameters);
+	    if (compiled != null) fixed = fixedFlags(compiled);
+	}
+	
+	/**
+	 * Loads a graph in XML or in the binary format of {@link ParameterGraphBinary}; the format is
+	 * detected from the first bytes of the stream. The stream is not closed.
+	 * @param in
+	 * @return the graph with its adjacency lists built
+	 * @throws IOException
+	 * @throws JAXBException if the XML is invalid
+	 */
+	public static ParameterGraph load(InputStream in) throws IOException, JAXBException {
+		PushbackInputStream pin = new PushbackInputStream(in, BINARY_HEADER_LENGTH);
+		byte[] header = new byte[BINARY_HEADER_LENGTH];
+		int length = 0, read;
+		while (length < header.length && (read = pin.read(header, length, header.length - length)) != -1) length += read;
+		pin.unread(header, 0, length);
+		if (ParameterGraphBinary.isBinary(ByteBuffer.wrap(header, 0, length))) {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			byte[] buf = new byte[8192];
+			while ((read = pin.read(buf)) != -1) bytes.write(buf, 0, read);
+			return ParameterGraphBinary.read(ByteBuffer.wrap(bytes.toByteArray()));
+		}
+		ParameterGraph graph = (ParameterGraph) getJAXBContext().createUnmarshaller().unmarshal(pin);
+		graph.buildAdjacencyList();
+		return graph;
+	}
+	
+	/**
+	 * Returns a graph with the given fixed parameters that shares the nodes, edges, parameters and
+	 * compiled form of this graph, e.g. to use one loaded graph of a solver for several experiments.
+	 * Neither graph may be modified structurally afterwards.
+	 * @param parameters the fixed parameters of the new graph, see {@link #setFixedParameters(Map)}
+	 * @return
+	 */
+	public ParameterGraph withFixedParameters(Map<Parameter, Object> parameters) {
+		ParameterGraph graph = new ParameterGraph(this);
+		graph.setFixedParameters(parameters);
+		return graph;
 	}
 	
 	public Map<String, Parameter> getParameterMap() {
@@ -69,41 +163,73 @@ public class ParameterGraph {
 		return map;
 	}
 	
+	/**
+	 * Returns an unmodifiable view of the parameters of the graph. Configurations created
+	 * from this set share the parameter index of the graph.
+	 */
 	public Set<Parameter> getParameterSet() {
-		return java.util.Collections.unmodifiableSet(this.parameters);
+		return compiled().parameterIndex.asSet();
 	}
 	
+	/**
+	 * Builds the internal adjacency lists and compiles the graph into its index based form.
+	 * Has to be called again whenever nodes, edges or parameters of the graph are modified.
+	 * Runs in time linear in the size of the graph.
+	 */
 	public void buildAdjacencyList() {
-		this.adjacent_edges = new HashMap<Node, List<Edge>>();
-		this.incoming_edges = new HashMap<Node, List<Edge>>();
         if (edges == null) {
             edges = new LinkedList<Edge>();
         }
-		for (Edge e: edges) {
-			if (!this.adjacent_edges.containsKey(e.getSource())) this.adjacent_edges.put(e.getSource(), new LinkedList<Edge>());
-			this.adjacent_edges.get(e.getSource()).add(e);
+		CompiledGraph g = new CompiledGraph(startNode, nodes, new ParameterIndex(parameters), edges);
+		fixed = fixedFlags(g);
+		compiled = g;
+	}
+	
+	CompiledGraph compiled() {
+		CompiledGraph g = compiled;
+		if (g == null) {
+			buildAdjacencyList();
+			g = compiled;
 		}
-		
-		for (Node node: this.nodes) {
-	        List<Edge> edges = new LinkedList<Edge>();
-	        for (Node n: this.nodes) {
-	            if (!this.adjacent_edges.containsKey(n)) continue;
-	            for (Edge e: this.adjacent_edges.get(n)) {
-	                if (e.getTarget().equals(node)) edges.add(e);
-	            }
-	        }
-	        
-	        incoming_edges.put(node, edges);
+		return g;
+	}
+	
+	private boolean[] fixedFlags(CompiledGraph g) {
+		boolean[] f = new boolean[g.parameters.length];
+		for (Parameter p: fixedParameters.keySet()) {
+			int i = g.parameterNumber(p);
+			if (i != -1) f[i] = true;
 		}
+		return f;
 	}
 	
-	private Set<Node> adjacentNodes(Node node) {
-		Set<Node> nodes = new HashSet<Node>();
-		if (!adjacent_edges.containsKey(node)) return nodes;
-		for (Edge e: adjacent_edges.get(node)) {
-			nodes.add(e.getTarget());
+	/**
+	 * Returns the number of the AND node of parameter <code>param</code> whose domain contains
+	 * <code>value</code> or -1 if there is no such node, i.e. the parameter isn't actually set.
+	 */
+	private int assignedAndNode(CompiledGraph g, int param, Object value) {
+		int assigned = -1;
+		for (int n: g.andNodesByParameter[param]) {
+			if (g.andDomain[n].contains(value)) assigned = n;
 		}
-		return nodes;
+		return assigned;
+	}
+	
+	/**
+	 * Returns the numbers of all AND nodes of non-fixed parameters whose domains contain the
+	 * value the parameter has in <code>config</code>.
+	 */
+	private int[] assignedAndNodes(CompiledGraph g, ParameterConfiguration config) {
+		int[] assigned = new int[g.size()];
+		int num = 0;
+		for (int p = 0; p < g.parameters.length; p++) {
+			if (fixed[p] || !config.getParameter_instances().containsKey(g.parameters[p])) continue;
+			Object value = config.getParameterValue(g.parameters[p]);
+			for (int n: g.andNodesByParameter[p]) {
+				if (g.andDomain[n].contains(value)) assigned[num++] = n;
+			}
+		}
+		return Arrays.copyOf(assigned, num);
 	}
 	
 	/*private Set<Node> preceedingNodes(OrNode node) {
@@ -117,68 +243,6 @@ public class ParameterGraph {
 		return nodes;
 	}*/
 	
-	private OrNode preceedingNode(AndNode node) {
-		for (OrNode n: getOrNodes()) {
-			for (Edge e: adjacent_edges.get(n)) {
-				if (e.getTarget().equals(node)) return n;
-			}
-		}
-		return null;
-	}
-	
-	private List<Edge> incomingEdges(Node node) {
-	    return incoming_edges.get(node);
-	}
-	
-	private Set<OrNode> getOrNodes() {
-		Set<OrNode> s = new HashSet<OrNode>();
-		for (Node n: this.nodes) {
-			if (n instanceof OrNode) s.add((OrNode)n);
-		}
-		return s;
-	}
-	
-	private Set<AndNode> getAndNodes() {
-		Set<AndNode> s = new HashSet<AndNode>();
-		for (Node n: this.nodes) {
-			if (n instanceof AndNode) s.add((AndNode)n);
-		}
-		return s;
-	}
-	
-	private boolean incomingEdgesDone(Node node, Set<AndNode> doneAndNodes) {
-		Map<Integer, List<Edge>> edge_groups = new HashMap<Integer, List<Edge>>();
-		for (Edge e: incomingEdges(node)) {
-			if (!edge_groups.containsKey(e.getGroup())) edge_groups.put(e.getGroup(), new LinkedList<Edge>());
-			edge_groups.get(e.getGroup()).add(e);
-		}
-		
-		if (edge_groups.containsKey(new Integer(0))) {
-			for (Edge e: edge_groups.get(0)) {
-				if (doneAndNodes.contains(e.getSource())) return true;
-			}
-		}
-		
-		boolean any_group_done = false;
-		for (Integer group: edge_groups.keySet()) {
-			if (group == 0) continue;
-			boolean all_group_edges_done = true;
-			for (Edge e: edge_groups.get(group)) all_group_edges_done &= doneAndNodes.contains(e.getSource());
-			any_group_done |= all_group_edges_done;
-		}
-		
-		return any_group_done;
-	}
-	
-	private <T> T randomElement(Set<T> set, Random rng) {
-		int i = rng.nextInt(set.size());
-		int j = 0;
-		for (T o: set) {
-			if (i == j++) return o;
-		}
-		return null;
-	}
-	
 	private boolean valuesEqual(Object v1, Object v2) {
 		if (v1 instanceof Double || v1 instanceof Float) {
 			if (!(v2 instanceof Number)) return false;
@@ -191,81 +255,90 @@ public class ParameterGraph {
 	}
 	
 	/**
-	 * Color (assign integers) the nodes of the transitive closure starting at currentNode.]
-	 * @param currentNode
-	 * @param color
-	 * @param colors
-	 * @return
+	 * Creates a random parameter configuration.
+	 * @param rng Random number generator instance
+	 * @return random parameter configuration
 	 */
-	private int colorDFS(Node currentNode, int color, Map<Node, Integer> colors) {
-		if (colors.containsKey(currentNode) && colors.get(currentNode) != color) return colors.get(currentNode);
-		colors.put(currentNode, color);
-		for (Node n: adjacentNodes(currentNode)) {
-			int c = colorDFS(n, color, colors);
-			if (c != color) return c;
-		}
-		return color;
+	public ParameterConfiguration getRandomConfiguration(Random rng) {
+		CompiledGraph g = compiled();
+		return configuration(g, sampler(g).sample(rng));
 	}
 	
 	/**
-	 * Creates a random parameter configuration.
+	 * Creates <code>n</code> random parameter configurations. The result is the same as that of
+	 * <code>n</code> calls of {@link #getRandomConfiguration(Random)}, but the work arrays of the
+	 * graph traversal are only allocated once.
+	 * @param n number of configurations
 	 * @param rng Random number generator instance
-	 * @return random parameter configuration
+	 * @return list of random parameter configurations
 	 */
-	public ParameterConfiguration getRandomConfiguration(Random rng) {
-		ParameterConfiguration config = new ParameterConfiguration(this.parameters);
-		
-		for (Parameter fp: fixedParameters.keySet()) {
-		    config.setParameterValue(fp, fixedParameters.get(fp));
-		}
-		
-		Set<AndNode> done_and = new HashSet<AndNode>();
-		done_and.add(this.startNode);
-		Set<OrNode> done_or = new HashSet<OrNode>();
-		
-		Set<OrNode> L = new HashSet<OrNode>();
-		for (Node n: adjacentNodes(this.startNode)) {
-			L.add((OrNode)n);
-		}
-		
-		while (true) {
-			Set<OrNode> openOrNodes = new HashSet<OrNode>();
-			for (OrNode n: L) 
-				if (incomingEdgesDone(n, done_and))
-					openOrNodes.add(n);
-			if (openOrNodes.isEmpty()) break;
-			OrNode or_node = randomElement(openOrNodes, rng);
-			L.remove(or_node);
-			done_or.add(or_node);
+	public List<ParameterConfiguration> sampleConfigurations(int n, Random rng) {
+		CompiledGraph g = compiled();
+		ConfigurationSampler sampler = sampler(g);
+		List<ParameterConfiguration> configs = new ArrayList<ParameterConfiguration>(n);
+		for (int i = 0; i < n; i++) configs.add(configuration(g, sampler.sample(rng)));
+		return configs;
+	}
+	
+	/**
+	 * Appends <code>n</code> random parameter configurations to the batch, see {@link ConfigurationBatch}.
+	 * No configuration objects are created.
+	 * @param n number of configurations
+	 * @param rng Random number generator instance
+	 * @param batch batch created from {@link #getParameterSet()}
+	 */
+	public void sampleConfigurations(int n, Random rng, ConfigurationBatch batch) {
+		CompiledGraph g = compiled();
+		if (batch.getParameterIndex() != g.parameterIndex)
+			throw new IllegalArgumentException("The batch has to be created from the parameter set of this graph");
+		ConfigurationSampler sampler = sampler(g);
+		for (int i = 0; i < n; i++) batch.add(sampler.sample(rng));
+	}
+	
+	/**
+	 * Returns an endless iterator of random parameter configurations that shares the work arrays
+	 * of the graph traversal between the configurations, see {@link #sampleConfigurations(int, Random)}.
+	 * The iterator must only be used by one thread at a time.
+	 * @param rng Random number generator instance
+	 * @return
+	 */
+	public Iterator<ParameterConfiguration> randomConfigurationIterator(final Random rng) {
+		final CompiledGraph g = compiled();
+		final ConfigurationSampler sampler = sampler(g);
+		return new Iterator<ParameterConfiguration>() {
+			@Override
+			public boolean hasNext() {
+				return true;
+			}
 
-			Set<AndNode> adjacentAndNodes = new HashSet<AndNode>();
-			for (Node n: adjacentNodes(or_node)) {
-			    adjacentAndNodes.add((AndNode)n);
-            }
-            AndNode and_node = randomElement(adjacentAndNodes, rng);
+			@Override
+			public ParameterConfiguration next() {
+				return configuration(g, sampler.sample(rng));
+			}
 
-            if (config.getParameterValue(and_node.getParameter()) == null) {
-                config.setParameterValue(and_node.getParameter(), and_node.getDomain().randomValue(rng));
-                done_and.add(and_node);
-                for (Node n : adjacentNodes(and_node)) {
-                    if (n instanceof OrNode)
-                        L.add((OrNode) n);
-                }
-            } else {
-                for (AndNode an : adjacentAndNodes) {
-                    if (an.getDomain().contains(config.getParameterValue(an.getParameter()))) {
-                        done_and.add(an);
-                        for (Node n : adjacentNodes(an)) {
-                            if (n instanceof OrNode)
-                                L.add((OrNode) n);
-                        }
-                    }
-                }
-            }
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+	
+	/** sampler that starts every configuration with the values of the fixed parameters */
+	private ConfigurationSampler sampler(CompiledGraph g) {
+		ParameterConfiguration fixedConfig = new ParameterConfiguration(g.parameterIndex.asSet());
+		for (Parameter fp: fixedParameters.keySet()) {
+		    fixedConfig.setParameterValue(fp, fixedParameters.get(fp));
+		}
+		Object[] fixedValues = new Object[g.parameters.length];
+		for (int p = 0; p < fixedValues.length; p++) fixedValues[p] = fixedConfig.getParameterValue(p);
+		return new ConfigurationSampler(g, fixedValues);
+	}
+	
+	private ParameterConfiguration configuration(CompiledGraph g, Object[] values) {
+		ParameterConfiguration config = new ParameterConfiguration(g.parameterIndex.asSet());
+		for (int p = 0; p < values.length; p++) {
+			if (values[p] != null) config.setParameterValue(g.parameters[p], values[p]);
 		}
-		
-		
-		if (calculateChecksums) config.updateChecksum();
 		return config;
 	}
 	
@@ -277,166 +350,239 @@ public class ParameterGraph {
 	 * @return (constrained) list of all neighbouring configurations
 	 */
 	public List<ParameterConfiguration> getConstrainedNeighbourhood(ParameterConfiguration config) {
-		Set<OrNode> assigned_or_nodes = new HashSet<OrNode>();
-		Set<AndNode> assigned_and_nodes = new HashSet<AndNode>();
-		for (Parameter p: config.getParameter_instances().keySet()) {
-    		for (AndNode n: getAndNodes()) {
-    			if (n == startNode) continue;
-    			if (n.getParameter().equals(p) && n.getDomain().contains(config.getParameterValue(p))) {
-    				assigned_or_nodes.add(preceedingNode(n));
-    				assigned_and_nodes.add(n);
-    			}
-    		}
-		}
-		
+		CompiledGraph g = compiled();
 		List<ParameterConfiguration> nbh = new LinkedList<ParameterConfiguration>();
-		for (AndNode node: assigned_and_nodes) {
-		    if (fixedParameters.containsKey(node.getParameter())) continue;
-			for (Object value: preceedingNode(node).getParameter().getDomain().getDiscreteValues()) {
-				if (node.getDomain().contains(value)) { // same subdomain, different value
-					if (valuesEqual(value, config.getParameterValue(node.getParameter()))) continue;
-					ParameterConfiguration neighbour = new ParameterConfiguration(config);
-					neighbour.setParameterValue(node.getParameter(), value);
-					if (calculateChecksums) neighbour.updateChecksum();
-					nbh.add(neighbour);
-				}
+		for (int p = 0; p < g.parameters.length; p++) {
+			for (Object value: constrainedNeighbourValues(g, config, p)) {
+				ParameterConfiguration neighbour = new ParameterConfiguration(config);
+				neighbour.setParameterValue(g.parameters[p], value);
+				nbh.add(neighbour);
 			}
-			
 		}
 		
 		return nbh;
 	}
 	
+	/**
+	 * Returns the same neighbourhood as {@link #getConstrainedNeighbourhood(ParameterConfiguration)}, but
+	 * without copying the configuration for each neighbour.
+	 * @param config The configuration of which the neighbourhood should be generated. It must not be
+	 * modified while the neighbours are in use.
+	 * @return (constrained) list of all neighbouring configurations
+	 */
+	public List<DeltaConfiguration> getConstrainedNeighbourhoodDeltas(ParameterConfiguration config) {
+		CompiledGraph g = compiled();
+		List<DeltaConfiguration> nbh = new ArrayList<DeltaConfiguration>();
+		for (int p = 0; p < g.parameters.length; p++) {
+			int ordinal = config.getParameterIndex().ordinal(g.parameters[p]);
+			for (Object value: constrainedNeighbourValues(g, config, p)) {
+				nbh.add(new DeltaConfiguration(config, ordinal, value));
+			}
+		}
+		return nbh;
+	}
+	
+	/**
+	 * Lazily generates the neighbourhood of {@link #getConstrainedNeighbourhood(ParameterConfiguration)}.
+	 * @param config The configuration of which the neighbourhood should be generated. It must not be
+	 * modified while the iterator or the neighbours are in use.
+	 * @return iterator over all neighbouring configurations
+	 */
+	public NeighbourhoodIterator constrainedNeighbourhoodIterator(final ParameterConfiguration config) {
+		final CompiledGraph g = compiled();
+		return new NeighbourhoodIterator(g, config, new NeighbourhoodIterator.NeighbourValues() {
+			@Override
+			public List<Object> values(int parameter) {
+				return constrainedNeighbourValues(g, config, parameter);
+			}
+		}, 0, g.parameters.length);
+	}
+	
+	/**
+	 * Returns the values of parameter <code>p</code> that lead to neighbours of <code>config</code>
+	 * in {@link #getConstrainedNeighbourhood(ParameterConfiguration)}.
+	 */
+	private List<Object> constrainedNeighbourValues(CompiledGraph g, ParameterConfiguration config, int p) {
+		List<Object> values = new ArrayList<Object>();
+		if (fixed[p] || !config.getParameter_instances().containsKey(g.parameters[p])) return values;
+		Object currentValue = config.getParameterValue(g.parameters[p]);
+		for (int node: g.andNodesByParameter[p]) {
+			if (!g.andDomain[node].contains(currentValue)) continue;
+			DiscreteGrid grid = g.nodes[g.preceedingOrNode[node]].getParameter().getDomain().getDiscreteGrid();
+			for (int i = 0; i < grid.size(); i++) {
+				Object value = grid.valueAt(i);
+				if (g.andDomain[node].contains(value)) { // same subdomain, different value
+					if (valuesEqual(value, currentValue)) continue;
+					values.add(value);
+				}
+			}
+		}
+		return values;
+	}
+	
 	/**
 	 * Returns all parameter configurations that are considered neighbours of the given configuration.
 	 * @param config The configuration of which the neighbourhood should be generated.
 	 * @return list of all neighbouring configurations
 	 */
 	public List<ParameterConfiguration> getNeighbourhood(ParameterConfiguration config) {
-		//Map<Parameter, OrNode> assigned_or_nodes = new HashMap<Parameter, OrNode>();
-		Map<Parameter, AndNode> old_assigned_and_nodes = new HashMap<Parameter, AndNode>();
-		for (Parameter p: config.getParameter_instances().keySet()) {
-    		for (AndNode n: getAndNodes()) {
-    			if (n == startNode) continue;
-    			if (n.getParameter().equals(p) && n.getDomain().contains(config.getParameterValue(p))) {
-    				//assigned_or_nodes.put(p, preceedingNode(n));
-    				old_assigned_and_nodes.put(p, n);
-    			}
-    		}
-		}
-		
+		CompiledGraph g = compiled();
 		List<ParameterConfiguration> nbh = new LinkedList<ParameterConfiguration>();
-		for (Parameter p: config.getParameter_instances().keySet()) {
-		    if (fixedParameters.containsKey(p)) continue;
-			for (Object v: p.getDomain().getDiscreteValues()) {
-				if (old_assigned_and_nodes.get(p) == null || config.getParameterValue(p) == FlagDomain.FLAGS.OFF) continue; // this parameter wasn't actually set
-				if (old_assigned_and_nodes.get(p).getDomain().contains(v)) { // same AND node
-					if (valuesEqual(v, config.getParameterValue(p))) continue; // same value as current -> skip
-					ParameterConfiguration neighbour = new ParameterConfiguration(config);
-					neighbour.setParameterValue(p, v);
-					if (calculateChecksums) neighbour.updateChecksum();
-					nbh.add(neighbour);
-				}/* else { // different AND node
-					ParameterConfiguration neighbour = new ParameterConfiguration(config);
-					neighbour.setParameterValue(p, v);
-					
-					// find new AND node of this value
-					AndNode new_and_node = null;
-					for (OrNode or_node: getOrNodes()) {
-						if (!or_node.getParameter().equals(p)) continue;
-						for (Node n: adjacentNodes(or_node)) {
-							AndNode and_node = (AndNode)n;
-							if (and_node.getDomain().contains(v)) {
-								new_and_node = and_node;
-								break;
-							}
+		for (int pi = 0; pi < g.parameters.length; pi++) {
+			for (Object v: neighbourValues(g, config, pi)) {
+				ParameterConfiguration neighbour = new ParameterConfiguration(config);
+				neighbour.setParameterValue(g.parameters[pi], v);
+				nbh.add(neighbour);
+			}
+		}
+		return nbh;
+	}
+	
+	/**
+	 * Returns the same neighbourhood as {@link #getNeighbourhood(ParameterConfiguration)}, but
+	 * without copying the configuration for each neighbour.
+	 * @param config The configuration of which the neighbourhood should be generated. It must not be
+	 * modified while the neighbours are in use.
+	 * @return list of all neighbouring configurations
+	 */
+	public List<DeltaConfiguration> getNeighbourhoodDeltas(ParameterConfiguration config) {
+		CompiledGraph g = compiled();
+		List<DeltaConfiguration> nbh = new ArrayList<DeltaConfiguration>();
+		for (int pi = 0; pi < g.parameters.length; pi++) {
+			int ordinal = config.getParameterIndex().ordinal(g.parameters[pi]);
+			for (Object v: neighbourValues(g, config, pi)) {
+				nbh.add(new DeltaConfiguration(config, ordinal, v));
+			}
+		}
+		return nbh;
+	}
+	
+	/**
+	 * Lazily generates the neighbourhood of {@link #getNeighbourhood(ParameterConfiguration)}.
+	 * @param config The configuration of which the neighbourhood should be generated. It must not be
+	 * modified while the iterator or the neighbours are in use.
+	 * @return iterator over all neighbouring configurations
+	 */
+	public NeighbourhoodIterator neighbourhoodIterator(ParameterConfiguration config) {
+		CompiledGraph g = compiled();
+		return new NeighbourhoodIterator(g, config, neighbourValues(config), 0, g.parameters.length);
+	}
+	
+	/**
+	 * Returns the values of parameter <code>pi</code> that lead to neighbours of <code>config</code>
+	 * in {@link #getNeighbourhood(ParameterConfiguration)}.
+	 */
+	private List<Object> neighbourValues(CompiledGraph g, ParameterConfiguration config, int pi) {
+		List<Object> values = new ArrayList<Object>();
+		Parameter p = g.parameters[pi];
+		if (fixed[pi] || !config.getParameter_instances().containsKey(p)) return values;
+		Object currentValue = config.getParameterValue(p);
+		int old_assigned_and_node = assignedAndNode(g, pi, currentValue);
+		if (old_assigned_and_node == -1 || currentValue == FlagDomain.FLAGS.OFF) return values; // this parameter wasn't actually set
+		DiscreteGrid grid = p.getDomain().getDiscreteGrid();
+		for (int i = 0; i < grid.size(); i++) {
+			Object v = grid.valueAt(i);
+			if (g.andDomain[old_assigned_and_node].contains(v)) { // same AND node
+				if (valuesEqual(v, currentValue)) continue; // same value as current -> skip
+				values.add(v);
+			}/* else { // different AND node
+				ParameterConfiguration neighbour = new ParameterConfiguration(config);
+				neighbour.setParameterValue(p, v);
+				
+				// find new AND node of this value
+				AndNode new_and_node = null;
+				for (OrNode or_node: getOrNodes()) {
+					if (!or_node.getParameter().equals(p)) continue;
+					for (Node n: adjacentNodes(or_node)) {
+						AndNode and_node = (AndNode)n;
+						if (and_node.getDomain().contains(v)) {
+							new_and_node = and_node;
+							break;
 						}
-						if (new_and_node != null) break;
 					}
+					if (new_and_node != null) break;
+				}
 
-					Set<AndNode> assigned_and_nodes = new HashSet<AndNode>();
-					// copy over old assigned and nodes except the old one of the current new one
-					for (AndNode n: old_assigned_and_nodes.values()) {
-						if (n != old_assigned_and_nodes.get(p)) {
-							assigned_and_nodes.add(n);
-						}
+				Set<AndNode> assigned_and_nodes = new HashSet<AndNode>();
+				// copy over old assigned and nodes except the old one of the current new one
+				for (AndNode n: old_assigned_and_nodes.values()) {
+					if (n != old_assigned_and_nodes.get(p)) {
+						assigned_and_nodes.add(n);
 					}
-					assigned_and_nodes.add(new_and_node);
-					
-					// find now unsatisfied OR-nodes and reset their parameter values to null
-					System.err.println("Resetting parameters starting from " + p.getName() + " " + old_assigned_and_nodes.get(p).getDomain());
-					AndNode old_and_node = old_assigned_and_nodes.get(p);
-					Set<Node> closure = new HashSet<Node>();
-					Queue<Node> Q = new LinkedList<Node>();
-					closure.add(old_and_node);
-					Q.add(old_and_node);
-					while (!Q.isEmpty()) {
-						Node n = Q.remove();
-						if (n instanceof OrNode) {
-							if (incomingEdgesDone(n, assigned_and_nodes) == false) {
-								// this is a now unsatisified OR node, remove its AND-node
-								// from the assigned_and_nodes set
-								neighbour.unsetParameter(n.getParameter());
-								for (Node an: adjacentNodes(n))	assigned_and_nodes.remove(an);
-							}
-						}
-						for (Node an: adjacentNodes(n)) {
-							if (closure.contains(an)) continue; // already visited
-							closure.add(an);
-							Q.add(an);
+				}
+				assigned_and_nodes.add(new_and_node);
+				
+				// find now unsatisfied OR-nodes and reset their parameter values to null
+				System.err.println("Resetting parameters starting from " + p.getName() + " " + old_assigned_and_nodes.get(p).getDomain());
+				AndNode old_and_node = old_assigned_and_nodes.get(p);
+				Set<Node> closure = new HashSet<Node>();
+				Queue<Node> Q = new LinkedList<Node>();
+				closure.add(old_and_node);
+				Q.add(old_and_node);
+				while (!Q.isEmpty()) {
+					Node n = Q.remove();
+					if (n instanceof OrNode) {
+						if (incomingEdgesDone(n, assigned_and_nodes) == false) {
+							// this is a now unsatisified OR node, remove its AND-node
+							// from the assigned_and_nodes set
+							neighbour.unsetParameter(n.getParameter());
+							for (Node an: adjacentNodes(n))	assigned_and_nodes.remove(an);
 						}
-
 					}
+					for (Node an: adjacentNodes(n)) {
+						if (closure.contains(an)) continue; // already visited
+						closure.add(an);
+						Q.add(an);
+					}
+
+				}
+				
+				// now build the partial configuration starting at the new AND node
+				// instead of making random decisions, always choose the 'first' option
+				// this constrains the neighbourhood a little, but makes this deterministic
+				Set<AndNode> done_and = new HashSet<AndNode>();
+				done_and.add(this.startNode);
+				done_and.addAll(assigned_and_nodes);
+				Set<OrNode> done_or = new HashSet<OrNode>();
+				for (AndNode n: assigned_and_nodes) {
+					done_or.add(preceedingNode(n));
+				}
+				
+				Set<OrNode> L = new HashSet<OrNode>();
+				for (Node n: adjacentNodes(new_and_node)) {
+					if (n instanceof OrNode) L.add((OrNode)n);
+				}
+				
+				while (true) {
+					Set<OrNode> openOrNodes = new HashSet<OrNode>();
+					for (OrNode n: L) 
+						if (incomingEdgesDone(n, done_and))
+							openOrNodes.add(n);
+					if (openOrNodes.isEmpty()) break;
+					OrNode or_node = openOrNodes.iterator().next(); // randomElement(openOrNodes, rng);
+					L.remove(or_node);
+					done_or.add(or_node);
 					
-					// now build the partial configuration starting at the new AND node
-					// instead of making random decisions, always choose the 'first' option
-					// this constrains the neighbourhood a little, but makes this deterministic
-					Set<AndNode> done_and = new HashSet<AndNode>();
-					done_and.add(this.startNode);
-					done_and.addAll(assigned_and_nodes);
-					Set<OrNode> done_or = new HashSet<OrNode>();
-					for (AndNode n: assigned_and_nodes) {
-						done_or.add(preceedingNode(n));
+					Set<AndNode> adjacentAndNodes = new HashSet<AndNode>();
+					for (Node n: adjacentNodes(or_node)) {
+						if (n instanceof AndNode) adjacentAndNodes.add((AndNode)n);
 					}
+					AndNode and_node = adjacentAndNodes.iterator().next(); // randomElement(adjacentAndNodes, rng);
 					
-					Set<OrNode> L = new HashSet<OrNode>();
-					for (Node n: adjacentNodes(new_and_node)) {
-						if (n instanceof OrNode) L.add((OrNode)n);
+					if (neighbour.getParameterValue(and_node.getParameter()) == null) {
+						neighbour.setParameterValue(and_node.getParameter(), and_node.getDomain().getDiscreteValues().get(0)); // simply first value for now 
 					}
+					done_and.add(and_node);
 					
-					while (true) {
-						Set<OrNode> openOrNodes = new HashSet<OrNode>();
-						for (OrNode n: L) 
-							if (incomingEdgesDone(n, done_and))
-								openOrNodes.add(n);
-						if (openOrNodes.isEmpty()) break;
-						OrNode or_node = openOrNodes.iterator().next(); // randomElement(openOrNodes, rng);
-						L.remove(or_node);
-						done_or.add(or_node);
-						
-						Set<AndNode> adjacentAndNodes = new HashSet<AndNode>();
-						for (Node n: adjacentNodes(or_node)) {
-							if (n instanceof AndNode) adjacentAndNodes.add((AndNode)n);
-						}
-						AndNode and_node = adjacentAndNodes.iterator().next(); // randomElement(adjacentAndNodes, rng);
-						
-						if (neighbour.getParameterValue(and_node.getParameter()) == null) {
-							neighbour.setParameterValue(and_node.getParameter(), and_node.getDomain().getDiscreteValues().get(0)); // simply first value for now 
-						}
-						done_and.add(and_node);
-						
-						for (Node n: adjacentNodes(and_node)) {
-							if (n instanceof OrNode) L.add((OrNode)n);
-						}
+					for (Node n: adjacentNodes(and_node)) {
+						if (n instanceof OrNode) L.add((OrNode)n);
 					}
+				}
 
-					if (calculateChecksums) neighbour.updateChecksum();
-					nbh.add(neighbour);
-				}*/
-			}
+				nbh.add(neighbour);
+			}*/
 		}
-
-		return nbh;
+		return values;
 	}
 	
     /**
@@ -454,138 +600,180 @@ public class ParameterGraph {
      */
     public List<ParameterConfiguration> getGaussianNeighbourhood(ParameterConfiguration config,
             Random rng, Map<Parameter, Float> standardDeviation, int numSamples, Map<Parameter, Float> samplesFactor, boolean gaussianOrdinal) {
-        Map<Parameter, AndNode> old_assigned_and_nodes = new HashMap<Parameter, AndNode>();
-        for (Parameter p: config.getParameter_instances().keySet()) {
-            for (AndNode n: getAndNodes()) {
-                if (n == startNode) continue;
-                if (n.getParameter().equals(p) && n.getDomain().contains(config.getParameterValue(p))) {
-                    old_assigned_and_nodes.put(p, n);
-                }
+        CompiledGraph g = compiled();
+        List<ParameterConfiguration> nbh = new LinkedList<ParameterConfiguration>();
+        for (int pi = 0; pi < g.parameters.length; pi++) {
+            for (Object v: gaussianNeighbourValues(g, config, pi, rng, standardDeviation, numSamples, samplesFactor, gaussianOrdinal)) {
+                ParameterConfiguration neighbour = new ParameterConfiguration(config);
+                neighbour.setParameterValue(g.parameters[pi], v);
+                nbh.add(neighbour);
             }
         }
-        
-        List<ParameterConfiguration> nbh = new LinkedList<ParameterConfiguration>();
-        for (Parameter p: config.getParameter_instances().keySet()) {
-            if (fixedParameters.containsKey(p)) continue;
-            List<Object> domain_vals;
-            if (!gaussianOrdinal && (p.getDomain() instanceof OrdinalDomain)) {
-                domain_vals = p.getDomain().getDiscreteValues();
+        return nbh;
+    }
+    
+    /**
+     * Returns the same neighbourhood as {@link #getGaussianNeighbourhood(ParameterConfiguration, Random, Map, int, Map, boolean)},
+     * but without copying the configuration for each neighbour.
+     * @param config The configuration of which the neighbourhood should be generated. It must not be
+     * modified while the neighbours are in use.
+     * @return list of all neighbouring configurations
+     */
+    public List<DeltaConfiguration> getGaussianNeighbourhoodDeltas(ParameterConfiguration config,
+            Random rng, Map<Parameter, Float> standardDeviation, int numSamples, Map<Parameter, Float> samplesFactor, boolean gaussianOrdinal) {
+        CompiledGraph g = compiled();
+        List<DeltaConfiguration> nbh = new ArrayList<DeltaConfiguration>();
+        for (int pi = 0; pi < g.parameters.length; pi++) {
+            int ordinal = config.getParameterIndex().ordinal(g.parameters[pi]);
+            for (Object v: gaussianNeighbourValues(g, config, pi, rng, standardDeviation, numSamples, samplesFactor, gaussianOrdinal)) {
+                nbh.add(new DeltaConfiguration(config, ordinal, v));
             }
-            else {
-                float stdDev = standardDeviation.get(p);
-                int samples = Math.round(numSamples * (samplesFactor.get(p) == null ? 1.0f : samplesFactor.get(p)));
-                domain_vals = p.getDomain().getGaussianDiscreteValues(rng, config.getParameterValue(p), stdDev, samples);
+        }
+        return nbh;
+    }
+    
+    /**
+     * Lazily generates the neighbourhood of {@link #getGaussianNeighbourhood(ParameterConfiguration, Random, Map, int, Map, boolean)}.
+     * The values of a parameter are sampled when the iterator reaches it.
+     * @param config The configuration of which the neighbourhood should be generated. It must not be
+     * modified while the iterator or the neighbours are in use.
+     * @return iterator over all neighbouring configurations
+     */
+    public NeighbourhoodIterator gaussianNeighbourhoodIterator(final ParameterConfiguration config, final Random rng,
+            final Map<Parameter, Float> standardDeviation, final int numSamples, final Map<Parameter, Float> samplesFactor, final boolean gaussianOrdinal) {
+        final CompiledGraph g = compiled();
+        return new NeighbourhoodIterator(g, config, new NeighbourhoodIterator.NeighbourValues() {
+            @Override
+            public List<Object> values(int parameter) {
+                return gaussianNeighbourValues(g, config, parameter, rng, standardDeviation, numSamples, samplesFactor, gaussianOrdinal);
             }
-             
-            for (Object v: domain_vals) {
-                if (old_assigned_and_nodes.get(p) == null || config.getParameterValue(p) == FlagDomain.FLAGS.OFF) continue; // this parameter wasn't actually set
-                if (old_assigned_and_nodes.get(p).getDomain().contains(v)) { // same AND node
-                    if (valuesEqual(v, config.getParameterValue(p))) continue; // same value as current -> skip
-                    ParameterConfiguration neighbour = new ParameterConfiguration(config);
-                    neighbour.setParameterValue(p, v);
-                    if (calculateChecksums) neighbour.updateChecksum();
-                    nbh.add(neighbour);
-                }/* else { // different AND node
-                    ParameterConfiguration neighbour = new ParameterConfiguration(config);
-                    neighbour.setParameterValue(p, v);
-                    
-                    // find new AND node of this value
-                    AndNode new_and_node = null;
-                    for (OrNode or_node: getOrNodes()) {
-                        if (!or_node.getParameter().equals(p)) continue;
-                        for (Node n: adjacentNodes(or_node)) {
-                            AndNode and_node = (AndNode)n;
-                            if (and_node.getDomain().contains(v)) {
-                                new_and_node = and_node;
-                                break;
-                            }
+        }, 0, g.parameters.length);
+    }
+    
+    /**
+     * Returns the values of parameter <code>pi</code> that lead to neighbours of <code>config</code>
+     * in {@link #getGaussianNeighbourhood(ParameterConfiguration, Random, Map, int, Map, boolean)}.
+     */
+    private List<Object> gaussianNeighbourValues(CompiledGraph g, ParameterConfiguration config, int pi,
+            Random rng, Map<Parameter, Float> standardDeviation, int numSamples, Map<Parameter, Float> samplesFactor, boolean gaussianOrdinal) {
+        List<Object> values = new ArrayList<Object>();
+        Parameter p = g.parameters[pi];
+        if (fixed[pi] || !config.getParameter_instances().containsKey(p)) return values;
+        Object currentValue = config.getParameterValue(p);
+        List<Object> domain_vals;
+        if (!gaussianOrdinal && (p.getDomain() instanceof OrdinalDomain)) {
+            domain_vals = p.getDomain().getDiscreteValues();
+        }
+        else {
+            float stdDev = standardDeviation.get(p);
+            int samples = Math.round(numSamples * (samplesFactor.get(p) == null ? 1.0f : samplesFactor.get(p)));
+            domain_vals = p.getDomain().getGaussianDiscreteValues(rng, currentValue, stdDev, samples);
+        }
+        
+        int old_assigned_and_node = assignedAndNode(g, pi, currentValue);
+        if (old_assigned_and_node == -1 || currentValue == FlagDomain.FLAGS.OFF) return values; // this parameter wasn't actually set
+        for (Object v: domain_vals) {
+            if (g.andDomain[old_assigned_and_node].contains(v)) { // same AND node
+                if (valuesEqual(v, currentValue)) continue; // same value as current -> skip
+                values.add(v);
+            }/* else { // different AND node
+                ParameterConfiguration neighbour = new ParameterConfiguration(config);
+                neighbour.setParameterValue(p, v);
+                
+                // find new AND node of this value
+                AndNode new_and_node = null;
+                for (OrNode or_node: getOrNodes()) {
+                    if (!or_node.getParameter().equals(p)) continue;
+                    for (Node n: adjacentNodes(or_node)) {
+                        AndNode and_node = (AndNode)n;
+                        if (and_node.getDomain().contains(v)) {
+                            new_and_node = and_node;
+                            break;
                         }
-                        if (new_and_node != null) break;
                     }
+                    if (new_and_node != null) break;
+                }
 
-                    Set<AndNode> assigned_and_nodes = new HashSet<AndNode>();
-                    // copy over old assigned and nodes except the old one of the current new one
-                    for (AndNode n: old_assigned_and_nodes.values()) {
-                        if (n != old_assigned_and_nodes.get(p)) {
-                            assigned_and_nodes.add(n);
-                        }
+                Set<AndNode> assigned_and_nodes = new HashSet<AndNode>();
+                // copy over old assigned and nodes except the old one of the current new one
+                for (AndNode n: old_assigned_and_nodes.values()) {
+                    if (n != old_assigned_and_nodes.get(p)) {
+                        assigned_and_nodes.add(n);
                     }
-                    assigned_and_nodes.add(new_and_node);
-                    
-                    // find now unsatisfied OR-nodes and reset their parameter values to null
-                    System.err.println("Resetting parameters starting from " + p.getName() + " " + old_assigned_and_nodes.get(p).getDomain());
-                    AndNode old_and_node = old_assigned_and_nodes.get(p);
-                    Set<Node> closure = new HashSet<Node>();
-                    Queue<Node> Q = new LinkedList<Node>();
-                    closure.add(old_and_node);
-                    Q.add(old_and_node);
-                    while (!Q.isEmpty()) {
-                        Node n = Q.remove();
-                        if (n instanceof OrNode) {
-                            if (incomingEdgesDone(n, assigned_and_nodes) == false) {
-                                // this is a now unsatisified OR node, remove its AND-node
-                                // from the assigned_and_nodes set
-                                neighbour.unsetParameter(n.getParameter());
-                                for (Node an: adjacentNodes(n)) assigned_and_nodes.remove(an);
-                            }
-                        }
-                        for (Node an: adjacentNodes(n)) {
-                            if (closure.contains(an)) continue; // already visited
-                            closure.add(an);
-                            Q.add(an);
+                }
+                assigned_and_nodes.add(new_and_node);
+                
+                // find now unsatisfied OR-nodes and reset their parameter values to null
+                System.err.println("Resetting parameters starting from " + p.getName() + " " + old_assigned_and_nodes.get(p).getDomain());
+                AndNode old_and_node = old_assigned_and_nodes.get(p);
+                Set<Node> closure = new HashSet<Node>();
+                Queue<Node> Q = new LinkedList<Node>();
+                closure.add(old_and_node);
+                Q.add(old_and_node);
+                while (!Q.isEmpty()) {
+                    Node n = Q.remove();
+                    if (n instanceof OrNode) {
+                        if (incomingEdgesDone(n, assigned_and_nodes) == false) {
+                            // this is a now unsatisified OR node, remove its AND-node
+                            // from the assigned_and_nodes set
+                            neighbour.unsetParameter(n.getParameter());
+                            for (Node an: adjacentNodes(n)) assigned_and_nodes.remove(an);
                         }
-
                     }
+                    for (Node an: adjacentNodes(n)) {
+                        if (closure.contains(an)) continue; // already visited
+                        closure.add(an);
+                        Q.add(an);
+                    }
+
+                }
+                
+                // now build the partial configuration starting at the new AND node
+                // instead of making random decisions, always choose the 'first' option
+                // this constrains the neighbourhood a little, but makes this deterministic
+                Set<AndNode> done_and = new HashSet<AndNode>();
+                done_and.add(this.startNode);
+                done_and.addAll(assigned_and_nodes);
+                Set<OrNode> done_or = new HashSet<OrNode>();
+                for (AndNode n: assigned_and_nodes) {
+                    done_or.add(preceedingNode(n));
+                }
+                
+                Set<OrNode> L = new HashSet<OrNode>();
+                for (Node n: adjacentNodes(new_and_node)) {
+                    if (n instanceof OrNode) L.add((OrNode)n);
+                }
+                
+                while (true) {
+                    Set<OrNode> openOrNodes = new HashSet<OrNode>();
+                    for (OrNode n: L) 
+                        if (incomingEdgesDone(n, done_and))
+                            openOrNodes.add(n);
+                    if (openOrNodes.isEmpty()) break;
+                    OrNode or_node = openOrNodes.iterator().next(); // randomElement(openOrNodes, rng);
+                    L.remove(or_node);
+                    done_or.add(or_node);
                     
-                    // now build the partial configuration starting at the new AND node
-                    // instead of making random decisions, always choose the 'first' option
-                    // this constrains the neighbourhood a little, but makes this deterministic
-                    Set<AndNode> done_and = new HashSet<AndNode>();
-                    done_and.add(this.startNode);
-                    done_and.addAll(assigned_and_nodes);
-                    Set<OrNode> done_or = new HashSet<OrNode>();
-                    for (AndNode n: assigned_and_nodes) {
-                        done_or.add(preceedingNode(n));
+                    Set<AndNode> adjacentAndNodes = new HashSet<AndNode>();
+                    for (Node n: adjacentNodes(or_node)) {
+                        if (n instanceof AndNode) adjacentAndNodes.add((AndNode)n);
                     }
+                    AndNode and_node = adjacentAndNodes.iterator().next(); // randomElement(adjacentAndNodes, rng);
                     
-                    Set<OrNode> L = new HashSet<OrNode>();
-                    for (Node n: adjacentNodes(new_and_node)) {
-                        if (n instanceof OrNode) L.add((OrNode)n);
+                    if (neighbour.getParameterValue(and_node.getParameter()) == null) {
+                        neighbour.setParameterValue(and_node.getParameter(), and_node.getDomain().getDiscreteValues().get(0)); // simply first value for now 
                     }
+                    done_and.add(and_node);
                     
-                    while (true) {
-                        Set<OrNode> openOrNodes = new HashSet<OrNode>();
-                        for (OrNode n: L) 
-                            if (incomingEdgesDone(n, done_and))
-                                openOrNodes.add(n);
-                        if (openOrNodes.isEmpty()) break;
-                        OrNode or_node = openOrNodes.iterator().next(); // randomElement(openOrNodes, rng);
-                        L.remove(or_node);
-                        done_or.add(or_node);
-                        
-                        Set<AndNode> adjacentAndNodes = new HashSet<AndNode>();
-                        for (Node n: adjacentNodes(or_node)) {
-                            if (n instanceof AndNode) adjacentAndNodes.add((AndNode)n);
-                        }
-                        AndNode and_node = adjacentAndNodes.iterator().next(); // randomElement(adjacentAndNodes, rng);
-                        
-                        if (neighbour.getParameterValue(and_node.getParameter()) == null) {
-                            neighbour.setParameterValue(and_node.getParameter(), and_node.getDomain().getDiscreteValues().get(0)); // simply first value for now 
-                        }
-                        done_and.add(and_node);
-                        
-                        for (Node n: adjacentNodes(and_node)) {
-                            if (n instanceof OrNode) L.add((OrNode)n);
-                        }
+                    for (Node n: adjacentNodes(and_node)) {
+                        if (n instanceof OrNode) L.add((OrNode)n);
                     }
+                }
 
-                    if (calculateChecksums) neighbour.updateChecksum();
-                    nbh.add(neighbour);
-                }*/
-            }
+                nbh.add(neighbour);
+            }*/
         }
-
-        return nbh;
+        return values;
     }
     
     public List<ParameterConfiguration> getGaussianNeighbourhood(ParameterConfiguration config,
@@ -627,37 +815,45 @@ public class ParameterGraph {
 	 * @return random neighbour of the passed configuration
 	 */
 	public ParameterConfiguration getRandomNeighbour(ParameterConfiguration config, Random rng) {
-		Set<OrNode> assigned_or_nodes = new HashSet<OrNode>();
-		Set<AndNode> assigned_and_nodes = new HashSet<AndNode>();
-		Set<Parameter> params = new HashSet<Parameter>(config.getParameter_instances().keySet());
-		params.removeAll(fixedParameters.keySet());
-		for (Parameter p: params) {
-    		for (AndNode n: getAndNodes()) {
-    			if (n == startNode) continue;
-    			if (n.getParameter().equals(p) && n.getDomain().contains(config.getParameterValue(p))) {
-    				assigned_or_nodes.add(preceedingNode(n));
-    				assigned_and_nodes.add(n);
-    			}
-    		}
-		}
+		CompiledGraph g = compiled();
+		int[] assigned_and_nodes = assignedAndNodes(g, config);
 		
-		AndNode node = randomElement(assigned_and_nodes, rng);
-		List<Object> vals = node.getDomain().getDiscreteValues();
+		AndNode node = (AndNode)g.nodes[assigned_and_nodes[rng.nextInt(assigned_and_nodes.length)]];
 		ParameterConfiguration n = new ParameterConfiguration(config);
-		
-		int tried = 0;
-		int num_vals = vals.size();
-		while (tried++ < num_vals) {
-			Object val = vals.get(rng.nextInt(vals.size()));
-			vals.remove(val);
-			if (valuesEqual(val, config.getParameterValue(node.getParameter()))) continue;
-			n.setParameterValue(node.getParameter(), val);
-			break;
-		}
-		if (calculateChecksums) n.updateChecksum();
+		Object val = randomOtherValue(node.getDomain().getDiscreteGrid(), config.getParameterValue(node.getParameter()), rng);
+		if (val != null) n.setParameterValue(node.getParameter(), val);
 		return n;
 	}
 	
+	/**
+	 * Draws values of the grid without replacement until one differs from <code>currentValue</code>.
+	 * Only the drawn values that are equal to the current value are remembered, so this takes
+	 * constant time and space unless the grid contains the current value several times.
+	 * @return the drawn value or null if all values are equal to the current value
+	 */
+	private Object randomOtherValue(DiscreteGrid grid, Object currentValue, Random rng) {
+		int[] drawn = null; // sorted grid indices of the drawn values
+		int numDrawn = 0;
+		int size = grid.size();
+		while (numDrawn < size) {
+			// the i-th value of the grid without the drawn values
+			int i = rng.nextInt(size - numDrawn);
+			int pos = 0;
+			while (pos < numDrawn && drawn[pos] <= i) {
+				i++;
+				pos++;
+			}
+			Object val = grid.valueAt(i);
+			if (!valuesEqual(val, currentValue)) return val;
+			if (drawn == null) drawn = new int[4];
+			else if (numDrawn == drawn.length) drawn = Arrays.copyOf(drawn, 2 * numDrawn);
+			System.arraycopy(drawn, pos, drawn, pos + 1, numDrawn - pos);
+			drawn[pos] = i;
+			numDrawn++;
+		}
+		return null;
+	}
+	
     /**
      * Generates a random neighbour where real, integer and ordinal parameters are sampled according
      * to a gaussian distribution around their old value (see getGaussianNeighbourhood)
@@ -668,39 +864,19 @@ public class ParameterGraph {
      */
     public ParameterConfiguration getGaussianRandomNeighbour(ParameterConfiguration config, Random rng,
             Map<Parameter, Float> standardDeviation, int numSamples, boolean gaussianOrdinal) {
-        Set<OrNode> assigned_or_nodes = new HashSet<OrNode>();
-        Set<AndNode> assigned_and_nodes = new HashSet<AndNode>();
-        Set<Parameter> params = new HashSet<Parameter>(config.getParameter_instances().keySet());
-        params.removeAll(fixedParameters.keySet());
-        for (Parameter p: params) {
-            for (AndNode n: getAndNodes()) {
-                if (n == startNode) continue;
-                if (n.getParameter().equals(p) && n.getDomain().contains(config.getParameterValue(p))) {
-                    assigned_or_nodes.add(preceedingNode(n));
-                    assigned_and_nodes.add(n);
-                }
-            }
-        }
+        CompiledGraph g = compiled();
+        int[] assigned_and_nodes = assignedAndNodes(g, config);
         
-        AndNode node = randomElement(assigned_and_nodes, rng);
-        List<Object> vals;
+        AndNode node = (AndNode)g.nodes[assigned_and_nodes[rng.nextInt(assigned_and_nodes.length)]];
+        DiscreteGrid vals;
         if (!gaussianOrdinal && node.getDomain() instanceof OrdinalDomain) {
-            vals = node.getDomain().getDiscreteValues();
+            vals = node.getDomain().getDiscreteGrid();
         } else {
-            vals = node.getDomain().getGaussianDiscreteValues(rng, config.getParameterValue(node.getParameter()), standardDeviation.get(node.getParameter()), numSamples);
+            vals = DiscreteGrid.of(node.getDomain().getGaussianDiscreteValues(rng, config.getParameterValue(node.getParameter()), standardDeviation.get(node.getParameter()), numSamples));
         }
         ParameterConfiguration n = new ParameterConfiguration(config);
-        
-        int tried = 0;
-        int num_vals = vals.size();
-        while (tried++ < num_vals) {
-            Object val = vals.get(rng.nextInt(vals.size()));
-            vals.remove(val);
-            if (valuesEqual(val, config.getParameterValue(node.getParameter()))) continue;
-            n.setParameterValue(node.getParameter(), val);
-            break;
-        }
-        if (calculateChecksums) n.updateChecksum();
+        Object val = randomOtherValue(vals, config.getParameterValue(node.getParameter()), rng);
+        if (val != null) n.setParameterValue(node.getParameter(), val);
         return n;
     }
     
@@ -733,21 +909,23 @@ public class ParameterGraph {
 	 * @param mutationProb the probability of mutation each parameter
 	 */
 	public void mutateParameterConfiguration(Random rng, ParameterConfiguration config, float stdDevFactor, float mutationProb) {
-		Set<AndNode> assigned_and_nodes = new HashSet<AndNode>();
-		for (Node n: this.nodes) {
-			if (n == startNode || !(n instanceof AndNode)) continue;
-			if (config.getParameter_instances().containsKey(((AndNode)n).parameter) &&
-				((AndNode)n).getDomain().contains(config.getParameterValue(((AndNode)n).parameter))) {
-				assigned_and_nodes.add((AndNode)n);
+		CompiledGraph g = compiled();
+		int[] assigned = new int[0]; // AND nodes of the parameter whose domain contains the original value
+		for (int p = 0; p < g.parameters.length; p++) {
+			if (!config.getParameter_instances().containsKey(g.parameters[p])) continue;
+			Object value = config.getParameterValue(g.parameters[p]);
+			int[] andNodes = g.andNodesByParameter[p];
+			if (assigned.length < andNodes.length) assigned = new int[andNodes.length];
+			int numAssigned = 0;
+			for (int n: andNodes) {
+				if (g.andDomain[n].contains(value)) assigned[numAssigned++] = n;
+			}
+			for (int i = 0; i < numAssigned; i++) {
+			    if (rng.nextFloat() < mutationProb) {
+			        config.setParameterValue(g.parameters[p], g.andDomain[assigned[i]].mutatedValue(rng, config.getParameterValue(g.parameters[p]), stdDevFactor));
+			    }
 			}
 		}
-		
-		for (AndNode n: assigned_and_nodes) {
-		    if (rng.nextFloat() < mutationProb) {
-		        config.setParameterValue(n.getParameter(), n.getDomain().mutatedValue(rng, config.getParameterValue(n.getParameter()), stdDevFactor));
-		    }
-		}
-		if (calculateChecksums) config.updateChecksum();
 	}
 	
     public void mutateParameterConfiguration(Random rng, ParameterConfiguration config) {
@@ -765,36 +943,26 @@ public class ParameterGraph {
 	 * @return
 	 */
 	public Pair<ParameterConfiguration, ParameterConfiguration> crossover(ParameterConfiguration config1, ParameterConfiguration config2, Random rng) {
-		Map<Node, Integer> colors = new HashMap<Node, Integer>();
-		int currentColor = 1;
-		for (Node node: adjacentNodes(startNode)) {
-			int c = colorDFS(node, currentColor, colors);
-			if (c == currentColor) currentColor++;
-		}
+		CompiledGraph g = compiled();
+		int currentColor = g.componentCount + 1;
 
-		ParameterConfiguration c1 = new ParameterConfiguration(parameters);
-		ParameterConfiguration c2 = new ParameterConfiguration(parameters);
+		ParameterConfiguration c1 = new ParameterConfiguration(getParameterSet());
+		ParameterConfiguration c2 = new ParameterConfiguration(getParameterSet());
 		
 		for (int col = 1; col < currentColor; col++) {
 			if (rng.nextFloat() < 0.5) {
-				for (Node n: colors.keySet()) {
-					if (colors.get(n) == col) {
-						c1.setParameterValue(n.getParameter(), config2.getParameterValue(n.getParameter()));
-						c2.setParameterValue(n.getParameter(), config1.getParameterValue(n.getParameter()));
-					}
+				for (int p: g.componentParameters[col]) {
+					c1.setParameterValue(g.parameters[p], config2.getParameterValue(g.parameters[p]));
+					c2.setParameterValue(g.parameters[p], config1.getParameterValue(g.parameters[p]));
 				}
 			} else {
-				for (Node n: colors.keySet()) {
-					if (colors.get(n) == col) {
-						c1.setParameterValue(n.getParameter(), config1.getParameterValue(n.getParameter()));
-                        c2.setParameterValue(n.getParameter(), config2.getParameterValue(n.getParameter()));
-					}
+				for (int p: g.componentParameters[col]) {
+					c1.setParameterValue(g.parameters[p], config1.getParameterValue(g.parameters[p]));
+					c2.setParameterValue(g.parameters[p], config2.getParameterValue(g.parameters[p]));
 				}
 			}
 		}
 		
-		if (calculateChecksums) c1.updateChecksum();
-		if (calculateChecksums) c2.updateChecksum();
 		return new Pair<ParameterConfiguration, ParameterConfiguration>(c1, c2);
 	}
 	
@@ -806,109 +974,61 @@ public class ParameterGraph {
 	 * @return
 	 */
 	public Pair<ParameterConfiguration, ParameterConfiguration> crossover2Point(ParameterConfiguration config1, ParameterConfiguration config2, Random rng) {
-        Map<Node, Integer> colors = new HashMap<Node, Integer>();
-        int currentColor = 1;
-        for (Node node: adjacentNodes(startNode)) {
-            int c = colorDFS(node, currentColor, colors);
-            if (c == currentColor) currentColor++;
-        }
+        CompiledGraph g = compiled();
+        int currentColor = g.componentCount + 1;
 
-        ParameterConfiguration c1 = new ParameterConfiguration(parameters);
-        ParameterConfiguration c2 = new ParameterConfiguration(parameters);
+        ParameterConfiguration c1 = new ParameterConfiguration(getParameterSet());
+        ParameterConfiguration c2 = new ParameterConfiguration(getParameterSet());
         int crossoverFirstColor = rng.nextInt(currentColor / 2) + 1;
         int crossoverSecondColor = rng.nextInt(currentColor / 2 + 1) + 1 + currentColor / 2;
         
         for (int col = 1; col < currentColor; col++) {
-            for (Node n: colors.keySet()) {
-                if (colors.get(n) == col) {
-                    if (col <= crossoverFirstColor) { // first section (unchanged)
-                        c1.setParameterValue(n.getParameter(), config1.getParameterValue(n.getParameter()));
-                        c2.setParameterValue(n.getParameter(), config2.getParameterValue(n.getParameter()));
-                    } else if (col <= crossoverSecondColor) { // second section (swap)
-                        c1.setParameterValue(n.getParameter(), config2.getParameterValue(n.getParameter()));
-                        c2.setParameterValue(n.getParameter(), config1.getParameterValue(n.getParameter()));
-                    } else { // third section (unchanged)
-                        c1.setParameterValue(n.getParameter(), config1.getParameterValue(n.getParameter()));
-                        c2.setParameterValue(n.getParameter(), config2.getParameterValue(n.getParameter()));
-                    }
+            for (int p: g.componentParameters[col]) {
+                Parameter param = g.parameters[p];
+                if (col <= crossoverFirstColor) { // first section (unchanged)
+                    c1.setParameterValue(param, config1.getParameterValue(param));
+                    c2.setParameterValue(param, config2.getParameterValue(param));
+                } else if (col <= crossoverSecondColor) { // second section (swap)
+                    c1.setParameterValue(param, config2.getParameterValue(param));
+                    c2.setParameterValue(param, config1.getParameterValue(param));
+                } else { // third section (unchanged)
+                    c1.setParameterValue(param, config1.getParameterValue(param));
+                    c2.setParameterValue(param, config2.getParameterValue(param));
                 }
             }
         }
         
-        if (calculateChecksums) c1.updateChecksum();
-        if (calculateChecksums) c2.updateChecksum();
 	    return new Pair<ParameterConfiguration, ParameterConfiguration>(c1, c2);
 	}
 	
+	/**
+	 * @see #validate(ConfigurationView)
+	 */
 	public boolean validateParameterConfiguration(ParameterConfiguration config) {
-        Set<OrNode> assigned_or_nodes = new HashSet<OrNode>();
-        Set<AndNode> assigned_and_nodes = new HashSet<AndNode>();
-        Set<Parameter> params = new HashSet<Parameter>(config.getParameter_instances().keySet());
-
-        /*for (Parameter p: params) {
-            for (AndNode n: getAndNodes()) {
-                if (n == startNode) continue;
-                if (n.getParameter().equals(p) && n.getDomain().contains(config.getParameterValue(p))) {
-                    assigned_or_nodes.add(preceedingNode(n));
-                    assigned_and_nodes.add(n);
-                }
-            }
-        }
-        
-        boolean valid = true; 
-        for (Node n: adjacentNodes(startNode)) {
-            if (!assigned_or_nodes.contains(n)) {
-                System.err.println("Mandatory parameter " + n.getParameter().getName() + " has no value.");
-                valid = false;;
-            }
-        }*/
-        
-        Set<Parameter> checkedParameters = new HashSet<Parameter>();
-        
-        assigned_and_nodes.add(startNode);
-        Queue<Node> q = new LinkedList<Node>();
-        q.addAll(adjacentNodes(startNode));
-        while (!q.isEmpty()) {
-            Node n = q.remove();
-            checkedParameters.add(n.getParameter());
-            
-            if (incomingEdgesDone(n, assigned_and_nodes)) {
-                boolean parameterSet = false;
-                for (Node subNode: adjacentNodes(n)) {
-                    AndNode subAndNode = (AndNode)subNode;
-                    if (subAndNode.getDomain().contains(config.getParameterValue(subAndNode.getParameter()))) {
-                        assigned_and_nodes.add(subAndNode);
-                        q.addAll(adjacentNodes(subAndNode));
-                        parameterSet = true;
-                    }
-                }
-                if (!parameterSet) {
-                    System.err.println("Parameter " + n.getParameter().getName() + " missing value.");
-                    return false;
-                }
-            }
-        }
-        
-        for (Parameter p: config.getParameter_instances().keySet()) {
-            if (!checkedParameters.contains(p) && config.getParameterValue(p) != null && config.getParameterValue(p) != FlagDomain.FLAGS.OFF) {
-                System.err.println("Parameter " + p.getName() + " is set but shouldn't be. Value: " + config.getParameterValue(p));
-                return false;
-            }
-        }
-        
-        
-        
-        /*assigned_and_nodes.add(startNode);
-        
-        for (OrNode n: assigned_or_nodes) {
-            if (!incomingEdgesDone(n, assigned_and_nodes)) {
-                System.err.println("Parameter " + n.getParameter().getName() + " is conditional but parent has wrong value.");
-                valid = false;
-            }
-            
-        }*/
-
-        return true;
+		return validate(config).isValid();
+	}
+	
+	/**
+	 * Validates the configuration with a validator that is kept per thread, see {@link #getValidator()}.
+	 * @param config
+	 * @return {@link ValidationResult#VALID} or the first violation of the configuration
+	 */
+	public ValidationResult validate(ConfigurationView config) {
+		CompiledGraph g = compiled();
+		ConfigurationValidator v = validators.get();
+		if (v == null || v.g != g) {
+			v = new ConfigurationValidator(g);
+			validators.set(v);
+		}
+		return v.validate(config);
+	}
+	
+	/**
+	 * Returns a new validator of this graph. It reuses its work arrays for every configuration and
+	 * must only be used by one thread; it has to be replaced when the graph is modified.
+	 */
+	public ConfigurationValidator getValidator() {
+		return new ConfigurationValidator(compiled());
 	}
 	
 	/**
@@ -919,118 +1039,228 @@ public class ParameterGraph {
 	 * @return
 	 */
     public Domain getConstrainedParameterDomain(ParameterConfiguration config, Parameter variableParameter) {
-        Set<AndNode> assigned_and_nodes = new HashSet<AndNode>();
-        Set<Parameter> params = new HashSet<Parameter>(config.getParameter_instances().keySet());
-        params.removeAll(fixedParameters.keySet());
-        for (Parameter p : params) {
-            for (AndNode n : getAndNodes()) {
-                if (n == startNode)
-                    continue;
-                if (n.getParameter().equals(p) && n.getDomain().contains(config.getParameterValue(p))) {
-                    assigned_and_nodes.add(n);
-                }
-            }
+        CompiledGraph g = compiled();
+        int p = g.parameterNumber(variableParameter);
+        if (p == -1 || fixed[p] || !config.getParameter_instances().containsKey(variableParameter)) return null;
+        Object value = config.getParameterValue(variableParameter);
+        for (int n: g.andNodesByParameter[p]) {
+            if (g.andDomain[n].contains(value)) return g.andDomain[n];
         }
-
-        for (AndNode n: assigned_and_nodes) {
-            if (n.getParameter().equals(variableParameter)) return n.getDomain();
-        }
-        
         return null;
     }
 	
+	/**
+	 * Returns the conditional parents of the parameters for the random forest code in the layout
+	 * {int[][] condParents, int[][][] condParentVals}, see {@link #getConditionalParents(List)}.
+	 * @param orderedParameters
+	 * @return
+	 */
 	public Object[] conditionalParentsForRF(List<Parameter> orderedParameters) {
-	    // TODO: for now we assume each parameter only appears once in the graph
-	    
-	    // number parameters in the same order they are used in the RF, i.e. the order they are passed in
-	    Map<Parameter, Integer> paramIndex = new HashMap<Parameter, Integer>();
-	    for (Parameter p: orderedParameters) paramIndex.put(p, orderedParameters.indexOf(p));
-	    int[][] condParents = new int[orderedParameters.size()][];
-	    int[][][]  condParentVals = new int[orderedParameters.size()][][];
-	    for (OrNode orNode: getOrNodes()) {
-	        if (!orderedParameters.contains(orNode.getParameter())) continue;
-	        int paramIx = paramIndex.get(orNode.getParameter());
-	        if (adjacentNodes(startNode).contains(orNode)) {
-	            // this node is adjacent to the start node, i.e. unconditional
-	            condParents[paramIx] = null;
-	            condParentVals[paramIx] = null;
-	        }
-	        else {
-	            // this parameter is somewhere in the graph
-	            int numParents = incomingEdges(orNode).size();
-	            
-	            for (Edge e: incomingEdges(orNode)) {
-	                AndNode andNode = (AndNode)e.getSource();
-	                if (!orderedParameters.contains(andNode.getParameter())) {
-	                    numParents--;
-	                    continue;
-	                }
-	            }
-	            
-	            int parentNum = 0;
-	            condParents[paramIx] = new int[numParents];
-	            condParentVals[paramIx] = new int[numParents][];
-	            for (Edge e: incomingEdges(orNode)) {
-	                AndNode andNode = (AndNode)e.getSource();
-	                if (!orderedParameters.contains(andNode.getParameter())) continue;
-
-	                int parentIx = paramIndex.get(andNode.getParameter());
-	                condParents[paramIx][parentNum] = parentIx;
-	                condParentVals[paramIx][parentNum] = new int[andNode.getDomain().getDiscreteValues().size()];
-                    Domain parentDomain = andNode.getParameter().getDomain();
-                    Domain constrainedParentDomain = andNode.getDomain();
-                    
-					if (parentDomain instanceof CategoricalDomain) {
-                        List<String> sortedValues = new LinkedList<String>(((CategoricalDomain)parentDomain).getCategories());
-                        Collections.sort(sortedValues);
-                        
-                        for (int i = 0; i < condParentVals[paramIx][parentNum].length; i++) {
-                            condParentVals[paramIx][parentNum][i] = sortedValues.indexOf(constrainedParentDomain.getDiscreteValues().get(i)) + 1;
-                        }
-                    } else if (parentDomain instanceof OrdinalDomain) {
-                        for (int i = 0; i < condParentVals[paramIx][parentNum].length; i++) {
-                            condParentVals[paramIx][parentNum][i] = ((OrdinalDomain)parentDomain).getOrdered_list().indexOf(constrainedParentDomain.getDiscreteValues().get(i)) + 1;
-                        }
-                    } else if (parentDomain instanceof FlagDomain) {
-                        if (constrainedParentDomain.contains(FlagDomain.FLAGS.OFF) && constrainedParentDomain.contains(FlagDomain.FLAGS.ON)) {
-                            condParentVals[paramIx][parentNum][0] = 1;
-                            condParentVals[paramIx][parentNum][1] = 2;
-                        } else if (constrainedParentDomain.contains(FlagDomain.FLAGS.OFF)) {
-                            condParentVals[paramIx][parentNum][0] = 1;
-                        } else { // only contains ON
-                            condParentVals[paramIx][parentNum][0] = 2;
-                        }
-                    } else {
-                        throw new RuntimeException("Encountered non-categorical parent parameter when building conditional parents datastructure");
-                    }
-	                parentNum++;
-	            }
-	        }
+	    ConditionalParents cp = getConditionalParents(orderedParameters);
+	    return new Object[] {cp.getConditionalParentsArray(), cp.getConditionalParentValuesArray()};
+	}
+	
+	/**
+	 * Returns the conditional parents of the parameters, with the parameters numbered in the order they
+	 * are passed in. The structure of the last ordering is cached until the graph is modified.
+	 * @param orderedParameters
+	 * @return
+	 */
+	public ConditionalParents getConditionalParents(List<Parameter> orderedParameters) {
+	    CompiledGraph g = compiled();
+	    ConditionalParents cp = conditionalParents;
+	    if (cp == null || cp.g != g || !cp.getParameters().equals(orderedParameters)) {
+	        cp = new ConditionalParents(this, g, orderedParameters);
+	        conditionalParents = cp;
 	    }
-	    return new Object[] {condParents, condParentVals};
+	    return cp;
 	}
 
 	public List<ParameterConfiguration> getGaussianNeighbourhoodFast(ParameterConfiguration config,
             Random rng, float stdDevFactor, int numSamples, boolean gaussianOrdinal) {
 	    List<ParameterConfiguration> nbh = new ArrayList<ParameterConfiguration>();
-	    for (Parameter p: config.getParameter_instances().keySet()) {
-	        if (fixedParameters.containsKey(p)) continue;
-            for (Object v:  p.getDomain().getGaussianDiscreteValues(rng, config.getParameterValue(p), stdDevFactor, numSamples)) {
-                if (valuesEqual(v, config.getParameterValue(p))) continue; // same value as current -> skip
+	    CompiledGraph g = compiled();
+	    ParameterIndex index = config.getParameterIndex();
+	    for (int i = 0; i < index.size(); i++) {
+	        for (Object v: gaussianFastNeighbourValues(g, config, i, rng, stdDevFactor, numSamples)) {
                 ParameterConfiguration neighbour = new ParameterConfiguration(config);
-                neighbour.setParameterValueFast(p, v);
-                if (calculateChecksums) neighbour.updateChecksum();
+                neighbour.setParameterValueFast(i, v);
                 nbh.add(neighbour);
-            }
+	        }
 	    }
 	    return nbh;
 	}
 	
+	/**
+	 * Returns the same neighbourhood as {@link #getGaussianNeighbourhoodFast(ParameterConfiguration, Random, float, int, boolean)},
+	 * but without copying the configuration for each neighbour.
+	 * @param config The configuration of which the neighbourhood should be generated. It must not be
+	 * modified while the neighbours are in use.
+	 */
+	public List<DeltaConfiguration> getGaussianNeighbourhoodFastDeltas(ParameterConfiguration config,
+            Random rng, float stdDevFactor, int numSamples, boolean gaussianOrdinal) {
+	    List<DeltaConfiguration> nbh = new ArrayList<DeltaConfiguration>();
+	    CompiledGraph g = compiled();
+	    ParameterIndex index = config.getParameterIndex();
+	    for (int i = 0; i < index.size(); i++) {
+	        for (Object v: gaussianFastNeighbourValues(g, config, i, rng, stdDevFactor, numSamples)) {
+	            nbh.add(new DeltaConfiguration(config, i, v));
+	        }
+	    }
+	    return nbh;
+	}
+	
+	/**
+	 * Returns the values of the parameter with ordinal <code>i</code> in the index of <code>config</code>
+	 * that lead to neighbours in {@link #getGaussianNeighbourhoodFast(ParameterConfiguration, Random, float, int, boolean)}.
+	 */
+	private List<Object> gaussianFastNeighbourValues(CompiledGraph g, ParameterConfiguration config, int i,
+	        Random rng, float stdDevFactor, int numSamples) {
+	    List<Object> values = new ArrayList<Object>();
+	    Parameter p = config.getParameterIndex().get(i);
+	    int pn = g.parameterNumber(p);
+	    if (pn != -1 && fixed[pn]) return values;
+	    Object currentValue = config.getParameterValue(i);
+	    for (Object v: p.getDomain().getGaussianDiscreteValues(rng, currentValue, stdDevFactor, numSamples)) {
+	        if (valuesEqual(v, currentValue)) continue; // same value as current -> skip
+	        values.add(v);
+	    }
+	    return values;
+	}
+	
+	/**
+	 * Generates the neighbourhood of {@link #getNeighbourhood(ParameterConfiguration)} in parallel.
+	 * The work is partitioned by parameter; the neighbours are returned in the same order as
+	 * in the sequential method.
+	 * @param config The configuration of which the neighbourhood should be generated. It must not be
+	 * modified while the neighbours are in use.
+	 * @param executor executes the generation tasks
+	 * @return list of all neighbouring configurations
+	 * @throws InterruptedException
+	 */
+	public List<DeltaConfiguration> getNeighbourhoodParallel(ParameterConfiguration config, ExecutorService executor) throws InterruptedException {
+		return unscored(generateParallel(config, neighbourValues(config), null, executor));
+	}
+	
+	/**
+	 * Generates the neighbourhood of {@link #getNeighbourhood(ParameterConfiguration)} in parallel and
+	 * scores each neighbour in the task that generated it.
+	 * @param config The configuration of which the neighbourhood should be generated. It must not be
+	 * modified while the neighbours are in use.
+	 * @param scorer thread-safe scoring function
+	 * @param executor executes the generation tasks
+	 * @return list of all neighbouring configurations and their scores
+	 * @throws InterruptedException
+	 */
+	public List<Pair<DeltaConfiguration, Double>> getNeighbourhoodParallel(ParameterConfiguration config, NeighbourScorer scorer,
+			ExecutorService executor) throws InterruptedException {
+		if (scorer == null) throw new IllegalArgumentException("scorer can't be null");
+		return generateParallel(config, neighbourValues(config), scorer, executor);
+	}
+	
+	/**
+	 * Generates the neighbourhood of {@link #getGaussianNeighbourhood(ParameterConfiguration, Random, Map, int, Map, boolean)}
+	 * in parallel. Each parameter samples its values from its own random number generator, the stream
+	 * of its parameter number for <code>seed</code> (see {@link SplittableMersenneTwister#forStream(long, long)}),
+	 * so the result only depends on the seed and not on the number of threads or the order in which
+	 * the tasks are executed.
+	 * @param config The configuration of which the neighbourhood should be generated. It must not be
+	 * modified while the neighbours are in use.
+	 * @param seed
+	 * @param executor executes the generation tasks
+	 * @return list of all neighbouring configurations
+	 * @throws InterruptedException
+	 */
+	public List<DeltaConfiguration> getGaussianNeighbourhoodParallel(ParameterConfiguration config, long seed,
+			Map<Parameter, Float> standardDeviation, int numSamples, Map<Parameter, Float> samplesFactor, boolean gaussianOrdinal,
+			ExecutorService executor) throws InterruptedException {
+		return unscored(generateParallel(config, gaussianNeighbourValues(config, seed, standardDeviation, numSamples, samplesFactor, gaussianOrdinal), null, executor));
+	}
+	
+	/**
+	 * Like {@link #getGaussianNeighbourhoodParallel(ParameterConfiguration, long, Map, int, Map, boolean, ExecutorService)},
+	 * but scores each neighbour in the task that generated it.
+	 * @param scorer thread-safe scoring function
+	 * @return list of all neighbouring configurations and their scores
+	 * @throws InterruptedException
+	 */
+	public List<Pair<DeltaConfiguration, Double>> getGaussianNeighbourhoodParallel(ParameterConfiguration config, long seed,
+			Map<Parameter, Float> standardDeviation, int numSamples, Map<Parameter, Float> samplesFactor, boolean gaussianOrdinal,
+			NeighbourScorer scorer, ExecutorService executor) throws InterruptedException {
+		if (scorer == null) throw new IllegalArgumentException("scorer can't be null");
+		return generateParallel(config, gaussianNeighbourValues(config, seed, standardDeviation, numSamples, samplesFactor, gaussianOrdinal), scorer, executor);
+	}
+	
+	private NeighbourhoodIterator.NeighbourValues neighbourValues(final ParameterConfiguration config) {
+		final CompiledGraph g = compiled();
+		return new NeighbourhoodIterator.NeighbourValues() {
+			@Override
+			public List<Object> values(int parameter) {
+				return neighbourValues(g, config, parameter);
+			}
+		};
+	}
+	
+	private NeighbourhoodIterator.NeighbourValues gaussianNeighbourValues(final ParameterConfiguration config, final long seed,
+			final Map<Parameter, Float> standardDeviation, final int numSamples, final Map<Parameter, Float> samplesFactor, final boolean gaussianOrdinal) {
+		final CompiledGraph g = compiled();
+		return new NeighbourhoodIterator.NeighbourValues() {
+			@Override
+			public List<Object> values(int parameter) {
+				Random rng = SplittableMersenneTwister.forStream(seed, parameter);
+				return gaussianNeighbourValues(g, config, parameter, rng, standardDeviation, numSamples, samplesFactor, gaussianOrdinal);
+			}
+		};
+	}
+	
+	/**
+	 * Generates (and scores, if <code>scorer</code> isn't null) the neighbours of each parameter in its own task.
+	 */
+	private List<Pair<DeltaConfiguration, Double>> generateParallel(final ParameterConfiguration config,
+			final NeighbourhoodIterator.NeighbourValues generator, final NeighbourScorer scorer, ExecutorService executor) throws InterruptedException {
+		final CompiledGraph g = compiled();
+		List<Callable<List<Pair<DeltaConfiguration, Double>>>> tasks = new ArrayList<Callable<List<Pair<DeltaConfiguration, Double>>>>(g.parameters.length);
+		for (int p = 0; p < g.parameters.length; p++) {
+			final int parameter = p;
+			tasks.add(new Callable<List<Pair<DeltaConfiguration, Double>>>() {
+				@Override
+				public List<Pair<DeltaConfiguration, Double>> call() {
+					List<Pair<DeltaConfiguration, Double>> nbh = new ArrayList<Pair<DeltaConfiguration, Double>>();
+					int ordinal = config.getParameterIndex().ordinal(g.parameters[parameter]);
+					for (Object v: generator.values(parameter)) {
+						DeltaConfiguration neighbour = new DeltaConfiguration(config, ordinal, v);
+						nbh.add(new Pair<DeltaConfiguration, Double>(neighbour, scorer == null ? null : scorer.score(neighbour)));
+					}
+					return nbh;
+				}
+			});
+		}
+		
+		List<Pair<DeltaConfiguration, Double>> nbh = new ArrayList<Pair<DeltaConfiguration, Double>>();
+		for (Future<List<Pair<DeltaConfiguration, Double>>> f: executor.invokeAll(tasks)) {
+			try {
+				nbh.addAll(f.get());
+			} catch (ExecutionException e) {
+				if (e.getCause() instanceof RuntimeException) throw (RuntimeException)e.getCause();
+				if (e.getCause() instanceof Error) throw (Error)e.getCause();
+				throw new RuntimeException(e.getCause());
+			}
+		}
+		return nbh;
+	}
+	
+	private static List<DeltaConfiguration> unscored(List<Pair<DeltaConfiguration, Double>> scored) {
+		List<DeltaConfiguration> nbh = new ArrayList<DeltaConfiguration>(scored.size());
+		for (Pair<DeltaConfiguration, Double> p: scored) nbh.add(p.getFirst());
+		return nbh;
+	}
+	
 	public ParameterConfiguration getRandomConfigurationFast(Random rng) {
-	    ParameterConfiguration config = new ParameterConfiguration(this.parameters);
-	    for (Parameter p: this.parameters) {
-	        if (fixedParameters.containsKey(p)) continue; // will be set by API anyway
-	        config.setParameterValueFast(p, p.getDomain().randomValue(rng));
+	    CompiledGraph g = compiled();
+	    ParameterConfiguration config = new ParameterConfiguration(getParameterSet());
+	    for (int p = 0; p < g.parameters.length; p++) {
+	        if (fixed[p]) continue; // will be set by API anyway
+	        config.setParameterValueFast(g.parameters[p], g.parameters[p].getDomain().randomValue(rng));
 	    }
 	    return config;
 	}
@@ -0,0 +1,341 @@
+package edacc.parameterspace.graph;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import edacc.parameterspace.Parameter;
+import edacc.parameterspace.domain.CategoricalDomain;
+import edacc.parameterspace.domain.Domain;
+import edacc.parameterspace.domain.FlagDomain;
+import edacc.parameterspace.domain.IntegerDomain;
+import edacc.parameterspace.domain.LogIntegerDomain;
+import edacc.parameterspace.domain.LogRealDomain;
+import edacc.parameterspace.domain.MixedDomain;
+import edacc.parameterspace.domain.OptionalDomain;
+import edacc.parameterspace.domain.OrdinalDomain;
+import edacc.parameterspace.domain.RealDomain;
+
+/**
+ * Compact binary format of parameter graphs, an alternative to the XML of {@link ParameterGraph#getJAXBContext()}
+ * that is smaller and much faster to load. {@link ParameterGraph#load(java.io.InputStream)} reads both formats.
+ *
+ * Layout (big-endian): the magic bytes "EPGB" and a format version (short), the string table (count, then
+ * length and UTF-8 bytes of each string; all names, node IDs and values refer to it by index), the parameters
+ * (name and domain), the nodes (kind, ID, parameter and domain of AND nodes, with the number of the start
+ * node first) and the edges in CSR form: one offset per node into the arrays of the edge targets and groups.
+ *
+ * A graph read back has the same parameters, nodes and edges as the written one; its edge list is ordered
+ * by source node, keeping the order of the edges of each node.
+ *
+ * Version 2 adds the logarithmic domains and the resolution of real and integer domains (-1 if it isn't
+ * set); graphs of version 1 can still be read.
+ */
+public final class ParameterGraphBinary {
+	private static final byte[] MAGIC = {'E', 'P', 'G', 'B'};
+	/** version of the format written by this class */
+	public static final short VERSION = 2;
+
+	private static final byte AND_NODE = 0, OR_NODE = 1;
+	private static final byte NO_DOMAIN = 0, REAL = 1, INTEGER = 2, CATEGORICAL = 3, ORDINAL = 4, FLAG = 5, OPTIONAL = 6, MIXED = 7, LOG_REAL = 8, LOG_INTEGER = 9;
+	private static final byte FLAG_ON = 1, FLAG_OFF = 2;
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private ParameterGraphBinary() {
+
+	}
+
+	/**
+	 * @param header the first bytes of a serialized graph, the position is not changed
+	 * @return whether the bytes start with the magic bytes of the binary format
+	 */
+	public static boolean isBinary(ByteBuffer header) {
+		if (header.remaining() < MAGIC.length) return false;
+		for (int i = 0; i < MAGIC.length; i++) {
+			if (header.get(header.position() + i) != MAGIC[i]) return false;
+		}
+		return true;
+	}
+
+	public static byte[] toByteArray(ParameterGraph graph) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		write(graph, out);
+		return out.toByteArray();
+	}
+
+	/**
+	 * Writes the graph in the binary format.
+	 * @param graph
+	 * @param out
+	 * @throws IOException
+	 * @throws IllegalArgumentException if the graph contains a domain the format doesn't support
+	 */
+	public static void write(ParameterGraph graph, OutputStream out) throws IOException {
+		Writer w = new Writer(graph);
+		DataOutputStream data = new DataOutputStream(out);
+		data.write(MAGIC);
+		data.writeShort(VERSION);
+		data.writeInt(w.strings.size());
+		for (String s: w.strings) {
+			byte[] bytes = s.getBytes(UTF8);
+			data.writeInt(bytes.length);
+			data.write(bytes);
+		}
+		data.write(w.body.toByteArray());
+		data.flush();
+	}
+
+	/**
+	 * Reads a graph in the binary format from the current position of the buffer, which is left after
+	 * the graph. The data is read directly from the buffer, e.g. from a memory-mapped file.
+	 * @param buf
+	 * @return the graph with its adjacency lists built
+	 * @throws IOException if the data isn't a graph in a supported version of the format
+	 */
+	public static ParameterGraph read(ByteBuffer buf) throws IOException {
+		if (!isBinary(buf)) throw new IOException("Not a binary parameter graph");
+		buf.position(buf.position() + MAGIC.length);
+		try {
+			short version = buf.getShort();
+			if (version < 1 || version > VERSION) throw new IOException("Unsupported binary parameter graph version " + version);
+			return new Reader(buf, version).read();
+		} catch (BufferUnderflowException e) {
+			throw new IOException("Truncated binary parameter graph");
+		} catch (IndexOutOfBoundsException e) {
+			throw new IOException("Corrupt binary parameter graph");
+		} catch (IllegalArgumentException e) {
+			throw new IOException("Corrupt binary parameter graph: " + e.getMessage());
+		}
+	}
+
+	/** collects the string table while encoding the rest of the graph */
+	private static final class Writer {
+		final List<String> strings = new ArrayList<String>();
+		final Map<String, Integer> stringIndex = new HashMap<String, Integer>();
+		final ByteArrayOutputStream body = new ByteArrayOutputStream();
+		final DataOutputStream out = new DataOutputStream(body);
+
+		Writer(ParameterGraph graph) throws IOException {
+			CompiledGraph g = graph.compiled();
+			Map<Parameter, Integer> parameterNumber = new HashMap<Parameter, Integer>();
+			List<Parameter> parameters = new ArrayList<Parameter>(graph.parameters);
+			out.writeInt(parameters.size());
+			for (Parameter p: parameters) {
+				parameterNumber.put(p, parameterNumber.size());
+				out.writeInt(string(p.getName()));
+				domain(p.getDomain());
+			}
+
+			out.writeInt(g.size());
+			out.writeInt(g.start);
+			for (int n = 0; n < g.size(); n++) {
+				Node node = g.nodes[n];
+				out.writeByte(node instanceof OrNode ? OR_NODE : AND_NODE);
+				out.writeInt(string(node.getId()));
+				Integer p = node.getParameter() == null ? null : parameterNumber.get(node.getParameter());
+				out.writeInt(p == null ? -1 : p);
+				if (node instanceof AndNode) domain(((AndNode)node).getDomain());
+			}
+
+			// edges bucketed by source, in the order of the edge list
+			int[] offset = new int[g.size() + 1];
+			for (Edge e: graph.edges) offset[g.nodeIndex.get(e.getSource()) + 1]++;
+			for (int n = 0; n < g.size(); n++) offset[n + 1] += offset[n];
+			int[] target = new int[graph.edges.size()];
+			int[] group = new int[graph.edges.size()];
+			int[] pos = offset.clone();
+			for (Edge e: graph.edges) {
+				int i = pos[g.nodeIndex.get(e.getSource())]++;
+				target[i] = g.nodeIndex.get(e.getTarget());
+				group[i] = e.getGroup();
+			}
+			out.writeInt(target.length);
+			for (int o: offset) out.writeInt(o);
+			for (int t: target) out.writeInt(t);
+			for (int gr: group) out.writeInt(gr);
+			out.flush();
+		}
+
+		private int string(String s) {
+			if (s == null) return -1;
+			Integer i = stringIndex.get(s);
+			if (i == null) {
+				i = strings.size();
+				strings.add(s);
+				stringIndex.put(s, i);
+			}
+			return i;
+		}
+
+		private void domain(Domain d) throws IOException {
+			if (d == null) {
+				out.writeByte(NO_DOMAIN);
+			} else if (d instanceof RealDomain) {
+				RealDomain real = (RealDomain)d;
+				out.writeByte(d instanceof LogRealDomain ? LOG_REAL : REAL);
+				out.writeDouble(real.getLow());
+				out.writeDouble(real.getHigh());
+				out.writeInt(real.getResolution() == null ? -1 : real.getResolution());
+			} else if (d instanceof IntegerDomain) {
+				IntegerDomain integer = (IntegerDomain)d;
+				out.writeByte(d instanceof LogIntegerDomain ? LOG_INTEGER : INTEGER);
+				out.writeInt(integer.getLow());
+				out.writeInt(integer.getHigh());
+				out.writeInt(integer.getResolution() == null ? -1 : integer.getResolution());
+			} else if (d instanceof CategoricalDomain) {
+				out.writeByte(CATEGORICAL);
+				strings(((CategoricalDomain)d).getCategories());
+			} else if (d instanceof OrdinalDomain) {
+				out.writeByte(ORDINAL);
+				strings(((OrdinalDomain)d).getOrdered_list());
+			} else if (d instanceof FlagDomain) {
+				out.writeByte(FLAG);
+				Set<FlagDomain.FLAGS> values = ((FlagDomain)d).getValues();
+				out.writeByte((values.contains(FlagDomain.FLAGS.ON) ? FLAG_ON : 0) | (values.contains(FlagDomain.FLAGS.OFF) ? FLAG_OFF : 0));
+			} else if (d instanceof OptionalDomain) {
+				out.writeByte(OPTIONAL);
+			} else if (d instanceof MixedDomain) {
+				out.writeByte(MIXED);
+				List<Domain> domains = ((MixedDomain)d).getDomains();
+				out.writeInt(domains.size());
+				for (Domain sub: domains) domain(sub);
+			} else {
+				throw new IllegalArgumentException("Domain " + d.getName() + " is not supported by the binary format");
+			}
+		}
+
+		private void strings(Iterable<String> values) throws IOException {
+			List<Integer> indexes = new ArrayList<Integer>();
+			for (String s: values) indexes.add(string(s));
+			out.writeInt(indexes.size());
+			for (int i: indexes) out.writeInt(i);
+		}
+	}
+
+	private static final class Reader {
+		final ByteBuffer buf;
+		final short version;
+		String[] strings;
+
+		Reader(ByteBuffer buf, short version) {
+			this.buf = buf;
+			this.version = version;
+		}
+
+		ParameterGraph read() throws IOException {
+			strings = new String[count()];
+			for (int i = 0; i < strings.length; i++) {
+				int length = count();
+				ByteBuffer bytes = buf.duplicate();
+				bytes.limit(bytes.position() + length);
+				strings[i] = UTF8.decode(bytes).toString();
+				buf.position(buf.position() + length);
+			}
+
+			Parameter[] parameters = new Parameter[count()];
+			Set<Parameter> parameterSet = new HashSet<Parameter>();
+			for (int i = 0; i < parameters.length; i++) {
+				parameters[i] = new Parameter(string(), domain());
+				parameterSet.add(parameters[i]);
+			}
+
+			Node[] nodes = new Node[count()];
+			int start = buf.getInt();
+			Set<Node> nodeSet = new HashSet<Node>();
+			for (int n = 0; n < nodes.length; n++) {
+				byte kind = buf.get();
+				String id = string();
+				int p = buf.getInt();
+				Parameter param = p == -1 ? null : parameters[p];
+				if (kind == OR_NODE) nodes[n] = new OrNode(param);
+				else if (kind == AND_NODE) nodes[n] = new AndNode(param, domain());
+				else throw new IOException("Unknown node kind " + kind);
+				nodes[n].setId(id);
+				nodeSet.add(nodes[n]);
+			}
+			if (start < 0 || start >= nodes.length || !(nodes[start] instanceof AndNode)) throw new IOException("Invalid start node");
+
+			int numEdges = count();
+			int[] offset = new int[nodes.length + 1];
+			for (int n = 0; n <= nodes.length; n++) offset[n] = buf.getInt();
+			int[] target = new int[numEdges];
+			for (int i = 0; i < numEdges; i++) target[i] = buf.getInt();
+			List<Edge> edges = new ArrayList<Edge>(numEdges);
+			for (int n = 0; n < nodes.length; n++) {
+				for (int i = offset[n]; i < offset[n + 1]; i++) edges.add(new Edge(nodes[n], nodes[target[i]], 0));
+			}
+			for (int i = 0; i < numEdges; i++) edges.get(i).setGroup(buf.getInt());
+
+			return new ParameterGraph(nodeSet, edges, parameterSet, (AndNode)nodes[start]);
+		}
+
+		private int count() throws IOException {
+			int n = buf.getInt();
+			if (n < 0 || n > buf.capacity()) throw new IOException("Corrupt binary parameter graph");
+			return n;
+		}
+
+		private String string() {
+			int i = buf.getInt();
+			return i == -1 ? null : strings[i];
+		}
+
+		private Integer resolution() throws IOException {
+			if (version < 2) return null;
+			int resolution = buf.getInt();
+			if (resolution == -1) return null;
+			if (resolution < 1) throw new IOException("Corrupt binary parameter graph");
+			return resolution;
+		}
+
+		private Domain domain() throws IOException {
+			byte type = buf.get();
+			switch (type) {
+			case NO_DOMAIN:
+				return null;
+			case REAL:
+				return new RealDomain(buf.getDouble(), buf.getDouble(), resolution());
+			case INTEGER:
+				return new IntegerDomain(buf.getInt(), buf.getInt(), resolution());
+			case LOG_REAL:
+				return new LogRealDomain(buf.getDouble(), buf.getDouble(), resolution());
+			case LOG_INTEGER:
+				return new LogIntegerDomain(buf.getInt(), buf.getInt(), resolution());
+			case CATEGORICAL: {
+				Set<String> categories = new HashSet<String>();
+				for (int i = count(); i > 0; i--) categories.add(string());
+				return new CategoricalDomain(categories);
+			}
+			case ORDINAL: {
+				List<String> values = new ArrayList<String>();
+				for (int i = count(); i > 0; i--) values.add(string());
+				return new OrdinalDomain(values);
+			}
+			case FLAG: {
+				byte flags = buf.get();
+				return new FlagDomain((flags & FLAG_ON) != 0, (flags & FLAG_OFF) != 0);
+			}
+			case OPTIONAL:
+				return new OptionalDomain();
+			case MIXED: {
+				List<Domain> domains = new ArrayList<Domain>();
+				for (int i = count(); i > 0; i--) domains.add(domain());
+				return new MixedDomain(domains);
+			}
+			default:
+				throw new IOException("Unknown domain type " + type);
+			}
+		}
+	}
+}
@@ -0,0 +1,61 @@
+package edacc.parameterspace.graph;
+
+import edacc.parameterspace.Parameter;
+
+/**
+ * Result of validating a configuration against a parameter graph, see {@link ConfigurationValidator}:
+ * either valid or the first violation that was found.
+ */
+public final class ValidationResult {
+	public static enum Reason {
+		/** the parameter is active, but its value is missing or not in the domain of any of its AND nodes */
+		MISSING_VALUE,
+		/** the parameter is inactive (or not part of the graph), but has a value */
+		INACTIVE_PARAMETER_SET
+	}
+
+	/** the result of all valid configurations */
+	public static final ValidationResult VALID = new ValidationResult(null, null, null);
+
+	private final Parameter parameter;
+	private final Reason reason;
+	private final Object value;
+
+	ValidationResult(Parameter parameter, Reason reason, Object value) {
+		this.parameter = parameter;
+		this.reason = reason;
+		this.value = value;
+	}
+
+	public boolean isValid() {
+		return reason == null;
+	}
+
+	/**
+	 * @return the parameter of the violation, null if the configuration is valid
+	 */
+	public Parameter getParameter() {
+		return parameter;
+	}
+
+	/**
+	 * @return the kind of the violation, null if the configuration is valid
+	 */
+	public Reason getReason() {
+		return reason;
+	}
+
+	/**
+	 * @return the value of the parameter in the configuration
+	 */
+	public Object getValue() {
+		return value;
+	}
+
+	@Override
+	public String toString() {
+		if (reason == null) return "valid";
+		if (reason == Reason.MISSING_VALUE) return "Parameter " + parameter.getName() + " missing value.";
+		return "Parameter " + parameter.getName() + " is set but shouldn't be. Value: " + value;
+	}
+}
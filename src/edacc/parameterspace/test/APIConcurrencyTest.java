@@ -0,0 +1,71 @@
+package edacc.parameterspace.test;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+import edacc.api.APIImpl;
+import edacc.model.DatabaseConnector;
+import edacc.model.ParameterDAO;
+import edacc.model.ParameterInstanceDAO;
+import edacc.parameterspace.ParameterConfiguration;
+
+/**
+ * Needs an EDACC database with a configuration experiment, which is given by the system properties
+ * edacc.test.host, edacc.test.port, edacc.test.database, edacc.test.user, edacc.test.password and
+ * edacc.test.experiment. The tests are skipped if edacc.test.host isn't set.
+ */
+public class APIConcurrencyTest {
+	private static final int THREADS = 8;
+
+	@Test
+	public void testGetParameterConfigurationConcurrently() throws Exception {
+		String host = System.getProperty("edacc.test.host");
+		assumeNotNull(host);
+		final int idExperiment = Integer.getInteger("edacc.test.experiment");
+		final APIImpl api = new APIImpl();
+		assertTrue(api.connect(host, Integer.getInteger("edacc.test.port", 3306), System.getProperty("edacc.test.database"),
+				System.getProperty("edacc.test.user"), System.getProperty("edacc.test.password"), false, THREADS));
+		try {
+			List<Integer> solverConfigs = api.getSolverConfigurations(idExperiment);
+			assumeTrue(solverConfigs.size() > 1);
+			// start with empty DAO caches, so the threads fill them at the same time
+			ParameterDAO.clearCache();
+			ParameterInstanceDAO.clearCache();
+
+			ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+			List<Future<ParameterConfiguration>> concurrent = new ArrayList<Future<ParameterConfiguration>>();
+			try {
+				for (final int idSolverConfig: solverConfigs) {
+					concurrent.add(pool.submit(new Callable<ParameterConfiguration>() {
+						@Override
+						public ParameterConfiguration call() throws Exception {
+							try {
+								return api.getParameterConfiguration(idExperiment, idSolverConfig);
+							} finally {
+								DatabaseConnector.getInstance().releaseConnection();
+							}
+						}
+					}));
+				}
+				for (int i = 0; i < solverConfigs.size(); i++) {
+					ParameterConfiguration config = concurrent.get(i).get();
+					assertNotNull(config);
+					assertEquals(config, api.getParameterConfiguration(idExperiment, solverConfigs.get(i)));
+				}
+			} finally {
+				pool.shutdown();
+			}
+		} finally {
+			api.disconnect();
+		}
+	}
+}
@@ -1,21 +1,14 @@
 package edacc.parameterspace.test;
 
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
 import java.util.Random;
 
 import edacc.api.API;
 import edacc.api.APIImpl;
+import edacc.parameterspace.ConfigurationEncoder;
 import edacc.parameterspace.Parameter;
 import edacc.parameterspace.ParameterConfiguration;
-import edacc.parameterspace.domain.CategoricalDomain;
-import edacc.parameterspace.domain.FlagDomain;
-import edacc.parameterspace.domain.IntegerDomain;
-import edacc.parameterspace.domain.OrdinalDomain;
-import edacc.parameterspace.domain.RealDomain;
 import edacc.parameterspace.graph.ParameterGraph;
 import edacc.util.Pair;
 
@@ -29,7 +22,6 @@ public class Benchmark {
 	    Random rng = new edacc.util.MersenneTwister(123456789);
 	    ParameterGraph graph = api
 	            .loadParameterGraphFromFile("src/edacc/parameterspace/test/cplex.graph");
-	    ParameterGraph.calculateChecksums = false;
 	    System.out.println("Benchmarking parameter graphs...");
 
 	    long start = System.currentTimeMillis();
@@ -41,14 +33,14 @@ public class Benchmark {
 
 
 	    List<Parameter> cParams = new LinkedList<Parameter>(graph.getParameterSet());
-	    cacheMap(cParams);
+	    ConfigurationEncoder encoder = new ConfigurationEncoder(graph, cParams);
 	    List<ParameterConfiguration> randomConfigs = new LinkedList<ParameterConfiguration>();
 	    for (int i = 0; i < 10000; i++) randomConfigs.add(graph.getRandomConfiguration(rng));
 	    start = System.currentTimeMillis();
 	    for (ParameterConfiguration config: randomConfigs) {
-	        double[] t = paramConfigToTuple(config, cParams);
+	        double[] t = encoder.encode(config);
 	    }
-	    System.out.println("paramConfigToTuple: "
+	    System.out.println("ConfigurationEncoder.encode: "
 	            + (System.currentTimeMillis() - start) / (double)randomConfigs.size() + " ms");
 	    
 	    ParameterConfiguration randomConfig = graph.getRandomConfiguration(rng);
@@ -107,66 +99,4 @@ public class Benchmark {
 	            + (System.currentTimeMillis() - start) / 100.0f + " ms");
 	        
 	}
-	
-	private Map<Parameter, Map<String, Integer>> catDomainMap = new HashMap<Parameter, Map<String, Integer>>();
-	
-	private void cacheMap( List<Parameter> configurableParameters) {
-	    for (Parameter p: configurableParameters) {
-	        if (p.getDomain() instanceof CategoricalDomain) {
-                Map<String, Integer> valueMap = new HashMap<String, Integer>();
-                int intVal = 1;
-                List<String> sortedValues = new LinkedList<String>(((CategoricalDomain)p.getDomain()).getCategories());
-                Collections.sort(sortedValues);
-                for (String val: sortedValues) {
-                    valueMap.put(val, intVal++);
-                }
-                catDomainMap.put(p, valueMap);
-	        }
-	    }
-	}
-	
-    private double[] paramConfigToTuple(ParameterConfiguration paramConfig, List<Parameter> configurableParameters) {
-        double[] theta = new double[configurableParameters.size()];
-        for (Parameter p: configurableParameters) {
-            int pIx = configurableParameters.indexOf(p);
-            Object paramValue = paramConfig.getParameterValue(p);
-            if (paramValue == null) theta[pIx] = Double.NaN;
-            else {
-                if (p.getDomain() instanceof RealDomain) {
-                    if (paramValue instanceof Float) {
-                        theta[pIx] = (Float)paramValue;
-                    } else if (paramValue instanceof Double) {
-                        theta[pIx] = (Double)paramValue;
-                    }
-                } else if (p.getDomain() instanceof IntegerDomain) {
-                    if (paramValue instanceof Integer) {
-                        theta[pIx] = (Integer)paramValue;
-                    } else if (paramValue instanceof Long) {
-                        theta[pIx] = (Long)paramValue;
-                    }
-                } else if (p.getDomain() instanceof CategoricalDomain) {
-                    theta[pIx] = catDomainMap.get(p).get((String)paramValue);
-                } else if (p.getDomain() instanceof OrdinalDomain) {
-                    // map ordinal parameters to integers 1 through domain.size, 0 = not set
-                    Map<String, Integer> valueMap = new HashMap<String, Integer>();
-                    int intVal = 1;
-                    for (String val: ((OrdinalDomain)p.getDomain()).getOrdered_list()) {
-                        valueMap.put(val, intVal++);
-                    }
-                    
-                    theta[pIx] = valueMap.get((String)paramValue);
-                } else if (p.getDomain() instanceof FlagDomain) {
-                    // map flag parameters to {0, 1}
-                    if (FlagDomain.FLAGS.ON.equals(paramValue)) theta[pIx] = 2;
-                    else theta[pIx] = 1;
-                } else {
-                    // TODO
-                    theta[pIx] = paramValue.hashCode();
-                }
-            }
-            
-        }
-        
-        return theta;
-    }
 }
@@ -2,6 +2,7 @@ package edacc.parameterspace.test;
 
 import static org.junit.Assert.*;
 
+import java.util.List;
 import java.util.Random;
 
 import org.junit.Test;
@@ -31,4 +32,20 @@ public class CategoricalDomainTest {
 		
 	}
 
+	@Test
+	public void testIndexOf() {
+		CategoricalDomain c = new CategoricalDomain(new String[] {"yes", "no", "1", "2"});
+		List<Object> values = c.getDiscreteValues();
+		for (int i = 0; i < values.size(); i++) {
+			assertEquals(i, c.indexOf(values.get(i)));
+		}
+		assertEquals(-1, c.indexOf("abcd"));
+
+		// same draws as picking from the categories in iteration order
+		Random rng = new MersenneTwister(7), expected = new MersenneTwister(7);
+		for (int i = 0; i < 100; i++) {
+			assertSame(values.get(expected.nextInt(values.size())), c.randomValue(rng));
+		}
+	}
+
 }
@@ -0,0 +1,130 @@
+package edacc.parameterspace.test;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+import edacc.api.APIImpl;
+import edacc.parameterspace.ConfigurationBatch;
+import edacc.parameterspace.ConfigurationEncoder;
+import edacc.parameterspace.Parameter;
+import edacc.parameterspace.ParameterConfiguration;
+import edacc.parameterspace.domain.CategoricalDomain;
+import edacc.parameterspace.domain.Domain;
+import edacc.parameterspace.domain.IntegerDomain;
+import edacc.parameterspace.domain.MixedDomain;
+import edacc.parameterspace.domain.RealDomain;
+import edacc.parameterspace.graph.AndNode;
+import edacc.parameterspace.graph.Edge;
+import edacc.parameterspace.graph.Node;
+import edacc.parameterspace.graph.OrNode;
+import edacc.parameterspace.graph.ParameterGraph;
+import edacc.util.MersenneTwister;
+
+public class ConfigurationEncoderTest {
+	private static final String[] GRAPHS = {"sparrow_parameterspace.xml", "complex.xml", "jack.xml", "cplex.graph"};
+
+	@Test
+	public void testEncodeDecode() throws Exception {
+		Random rng = new MersenneTwister(5);
+		for (String name: GRAPHS) {
+			ParameterGraph graph = new APIImpl().loadParameterGraphFromFile("src/edacc/parameterspace/test/" + name);
+			List<Parameter> params = new ArrayList<Parameter>(graph.getParameterSet());
+			Collections.shuffle(params, rng);
+			ConfigurationEncoder encoder = new ConfigurationEncoder(graph, params);
+			assertEquals(params.size(), encoder.getNumColumns());
+
+			List<ParameterConfiguration> configs = new ArrayList<ParameterConfiguration>();
+			for (int i = 0; i < 200; i++) configs.add(graph.getRandomConfiguration(rng));
+			ConfigurationBatch batch = new ConfigurationBatch(graph.getParameterSet(), configs.size());
+			for (ParameterConfiguration config: configs) batch.add(config);
+			double[] matrix = new double[configs.size() * params.size()];
+			encoder.encode(configs, matrix);
+
+			for (int r = 0; r < configs.size(); r++) {
+				ParameterConfiguration config = configs.get(r);
+				double[] row = encoder.encode(config);
+				for (int c = 0; c < params.size(); c++) {
+					Parameter p = params.get(c);
+					// same codes as the batches of the random forest code
+					assertEquals(batch.get(r, batch.getParameterIndex().ordinal(p)), row[c], 0);
+					assertEquals(row[c], matrix[r * params.size() + c], 0);
+					assertEquals(config.getParameterValue(p) == null, Double.isNaN(row[c]));
+				}
+				assertEquals(config, encoder.decode(row));
+				assertEquals(config, encoder.decode(matrix, r * params.size()));
+			}
+		}
+	}
+
+	@Test
+	public void testForeignConfiguration() throws Exception {
+		ParameterGraph graph = new APIImpl().loadParameterGraphFromFile("src/edacc/parameterspace/test/sparrow_parameterspace.xml");
+		List<Parameter> params = new ArrayList<Parameter>(graph.getParameterSet());
+		ConfigurationEncoder encoder = new ConfigurationEncoder(graph, params);
+		ParameterConfiguration config = graph.getRandomConfiguration(new MersenneTwister(3));
+
+		// a configuration of a subset of the parameters that doesn't share the index of the graph
+		Set<Parameter> subset = new HashSet<Parameter>(params.subList(1, params.size()));
+		ParameterConfiguration partial = new ParameterConfiguration(subset);
+		for (Parameter p: subset) partial.setParameterValue(p, config.getParameterValue(p));
+		double[] row = encoder.encode(partial);
+		double[] full = encoder.encode(config);
+		assertTrue(Double.isNaN(row[0]));
+		for (int c = 1; c < params.size(); c++) assertEquals(full[c], row[c], 0);
+	}
+
+	@Test
+	public void testMixedDomain() {
+		List<Domain> domains = new ArrayList<Domain>();
+		domains.add(new IntegerDomain(1, 5));
+		domains.add(new RealDomain(10, 20));
+		domains.add(new CategoricalDomain(new String[] {"a", "b", "c"}));
+		Parameter p = new Parameter("x", new MixedDomain(domains));
+		Set<Parameter> parameters = new HashSet<Parameter>();
+		parameters.add(p);
+		Set<Node> nodes = new HashSet<Node>();
+		AndNode start = new AndNode(null, null); nodes.add(start);
+		OrNode or = new OrNode(p); nodes.add(or);
+		AndNode and = new AndNode(p, p.getDomain()); nodes.add(and);
+		List<Edge> edges = new LinkedList<Edge>();
+		edges.add(new Edge(start, or, 0));
+		edges.add(new Edge(or, and, 0));
+		ParameterGraph graph = new ParameterGraph(nodes, edges, parameters, start);
+		ConfigurationEncoder encoder = new ConfigurationEncoder(graph, new ArrayList<Parameter>(parameters));
+
+		Object[] values = {1, 3, 5, 10.0, 12.5, 20.0, "a", "b", "c"};
+		Set<Double> codes = new HashSet<Double>();
+		ParameterConfiguration config = new ParameterConfiguration(graph.getParameterSet());
+		for (Object v: values) {
+			config.setParameterValue(p, v);
+			double[] row = encoder.encode(config);
+			assertTrue("duplicate code of " + v, codes.add(row[0]));
+			Object decoded = encoder.decode(row).getParameterValue(p);
+			assertEquals(v, decoded);
+			assertEquals(v.getClass(), decoded.getClass());
+		}
+		// not a value of any subdomain
+		try {
+			encoder.decode(new double[] {7.0});
+			fail();
+		} catch (IllegalArgumentException e) {
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testUnknownParameter() throws Exception {
+		ParameterGraph graph = new APIImpl().loadParameterGraphFromFile("src/edacc/parameterspace/test/sparrow_parameterspace.xml");
+		List<Parameter> params = new ArrayList<Parameter>(graph.getParameterSet());
+		params.add(new Parameter("unknown", new IntegerDomain(0, 10)));
+		new ConfigurationEncoder(graph, params);
+	}
+}
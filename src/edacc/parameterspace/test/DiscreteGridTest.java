@@ -0,0 +1,102 @@
+package edacc.parameterspace.test;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+import edacc.parameterspace.Parameter;
+import edacc.parameterspace.ParameterConfiguration;
+import edacc.parameterspace.domain.CategoricalDomain;
+import edacc.parameterspace.domain.DiscreteGrid;
+import edacc.parameterspace.domain.Domain;
+import edacc.parameterspace.domain.FlagDomain;
+import edacc.parameterspace.domain.IntegerDomain;
+import edacc.parameterspace.domain.MixedDomain;
+import edacc.parameterspace.domain.OptionalDomain;
+import edacc.parameterspace.domain.OrdinalDomain;
+import edacc.parameterspace.domain.RealDomain;
+import edacc.parameterspace.graph.AndNode;
+import edacc.parameterspace.graph.Edge;
+import edacc.parameterspace.graph.Node;
+import edacc.parameterspace.graph.OrNode;
+import edacc.parameterspace.graph.ParameterGraph;
+import edacc.util.MersenneTwister;
+
+public class DiscreteGridTest {
+
+	private static void assertSameValues(Domain d) {
+		List<Object> values = d.getDiscreteValues();
+		DiscreteGrid grid = d.getDiscreteGrid();
+		assertSame(grid, d.getDiscreteGrid());
+		assertEquals(values.size(), grid.size());
+		for (int i = 0; i < values.size(); i++) {
+			assertEquals(values.get(i), grid.valueAt(i));
+			assertEquals(values.indexOf(values.get(i)), grid.indexOf(values.get(i)));
+		}
+		assertEquals(-1, grid.indexOf("not a value"));
+	}
+
+	@Test
+	public void testSameValues() {
+		List<Domain> mixed = new LinkedList<Domain>();
+		mixed.add(new IntegerDomain(1, 10));
+		mixed.add(new CategoricalDomain(new String[] {"yes", "1"}));
+		Domain[] domains = {new IntegerDomain(-5, 20), new RealDomain(0.0, 1.0), new RealDomain(-3.5, 17.25), new RealDomain(2.0, 2.0),
+				new CategoricalDomain(new String[] {"a", "b", "c"}), new OrdinalDomain(Arrays.asList("low", "mid", "high")),
+				new FlagDomain(true, true), new OptionalDomain(), new MixedDomain(mixed)};
+		for (Domain d: domains) {
+			if (d instanceof RealDomain && ((RealDomain)d).getLow().equals(((RealDomain)d).getHigh())) {
+				// getDiscreteValues() doesn't terminate for a single value
+				assertEquals(1, d.getDiscreteGrid().size());
+				assertEquals(2.0, d.getDiscreteGrid().valueAt(0));
+				continue;
+			}
+			assertSameValues(d);
+		}
+	}
+
+	@Test
+	public void testIntegerGrid() {
+		IntegerDomain d = new IntegerDomain(10, 1000);
+		DiscreteGrid grid = d.getDiscreteGrid();
+		assertEquals(991, grid.size());
+		assertEquals(10, grid.valueAt(0));
+		assertEquals(1000.0, grid.doubleValueAt(990), 0);
+		assertEquals(5, grid.indexOf(15));
+		assertEquals(5, grid.indexOf(15.0));
+		assertEquals(-1, grid.indexOf(15.5));
+		assertEquals(-1, grid.indexOf(9));
+		assertEquals(-1, grid.indexOf(1001));
+
+		d.setHigh(20);
+		assertEquals(11, d.getDiscreteGrid().size());
+	}
+
+	@Test
+	public void testLargeIntegerDomain() {
+		Parameter p = new Parameter("x", new IntegerDomain(0, 1000000));
+		Set<Parameter> parameters = new HashSet<Parameter>();
+		parameters.add(p);
+		Set<Node> nodes = new HashSet<Node>();
+		AndNode start = new AndNode(null, null); nodes.add(start);
+		OrNode or = new OrNode(p); nodes.add(or);
+		AndNode vals = new AndNode(p, p.getDomain()); nodes.add(vals);
+		List<Edge> edges = new LinkedList<Edge>();
+		edges.add(new Edge(start, or, 0));
+		edges.add(new Edge(or, vals, 0));
+		ParameterGraph graph = new ParameterGraph(nodes, edges, parameters, start);
+
+		ParameterConfiguration config = graph.getRandomConfiguration(new MersenneTwister(4));
+		for (int i = 0; i < 1000; i++) {
+			ParameterConfiguration n = graph.getRandomNeighbour(config, new MersenneTwister(i));
+			assertFalse(config.getParameterValue(p).equals(n.getParameterValue(p)));
+		}
+		assertEquals(1000000, graph.getNeighbourhoodDeltas(config).size());
+	}
+}
@@ -70,4 +70,18 @@ public class IntegerDomainTest {
         
         assertTrue(d1.getGaussianDiscreteValues(rng, 0.5f, 0.1f, 7).size() == 2);
 	}
+
+	@Test(timeout = 1000)
+	public void testGetGaussianDiscreteValuesWithResolution() {
+		Random rng = new MersenneTwister(3);
+		IntegerDomain d = new IntegerDomain(0, 1000000, 10);
+		List<Object> grid = d.getDiscreteValues();
+		assertEquals(11, grid.size());
+		for (int i = 0; i < 100; i++) {
+			List<Object> vals = d.getGaussianDiscreteValues(rng, 1000, 0.005f, 50);
+			assertTrue(vals.size() <= grid.size()); // stops once all grid values are sampled
+			for (Object v: vals) assertTrue(grid.contains(v));
+		}
+		assertEquals(grid, d.getGaussianDiscreteValues(rng, 1000, 0.5f, 11));
+	}
 }
@@ -0,0 +1,86 @@
+package edacc.parameterspace.test;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import edacc.api.cache.CacheStats;
+import edacc.api.cache.LRUCache;
+
+public class LRUCacheTest {
+	/** cache with a clock that is advanced by the test */
+	private static class ManualClockCache extends LRUCache<Integer, String> {
+		long now;
+
+		ManualClockCache(int maxSize, long ttlSeconds) {
+			super(maxSize, ttlSeconds, TimeUnit.SECONDS);
+		}
+
+		@Override
+		protected long nanoTime() {
+			return now;
+		}
+	}
+
+	@Test
+	public void testEvictsLeastRecentlyUsed() {
+		LRUCache<Integer, String> cache = new LRUCache<Integer, String>(2, 0, TimeUnit.SECONDS);
+		cache.put(1, "a");
+		cache.put(2, "b");
+		assertEquals("a", cache.get(1));
+		cache.put(3, "c");
+		assertNull(cache.get(2));
+		assertEquals("a", cache.get(1));
+		assertEquals("c", cache.get(3));
+
+		CacheStats stats = cache.getStats();
+		assertEquals(3, stats.getHits());
+		assertEquals(1, stats.getMisses());
+		assertEquals(1, stats.getEvictions());
+		assertEquals(2, stats.getSize());
+	}
+
+	@Test
+	public void testExpiration() {
+		ManualClockCache cache = new ManualClockCache(0, 10);
+		cache.put(1, "a");
+		cache.now = TimeUnit.SECONDS.toNanos(5);
+		cache.put(2, "b");
+		assertEquals("a", cache.get(1));
+		cache.now = TimeUnit.SECONDS.toNanos(10);
+		assertNull(cache.get(1));
+		assertEquals("b", cache.get(2));
+		assertNull(cache.putIfAbsent(1, "c"));
+		assertEquals("c", cache.putIfAbsent(1, "d"));
+		assertEquals(1, cache.getStats().getEvictions());
+	}
+
+	@Test
+	public void testDropsExpiredLeastRecentlyUsed() {
+		ManualClockCache cache = new ManualClockCache(0, 10);
+		cache.put(1, "a");
+		cache.now = TimeUnit.SECONDS.toNanos(5);
+		cache.put(2, "b");
+		cache.now = TimeUnit.SECONDS.toNanos(12);
+		cache.put(3, "c");
+		assertEquals(1, cache.getStats().getEvictions());
+		assertEquals(2, cache.getStats().getSize());
+		cache.now = TimeUnit.SECONDS.toNanos(16);
+		assertEquals(1, cache.getStats().getSize());
+	}
+
+	@Test
+	public void testInvalidate() {
+		LRUCache<Integer, String> cache = new LRUCache<Integer, String>(0, 0, TimeUnit.SECONDS);
+		cache.put(1, "a");
+		cache.put(2, "b");
+		cache.invalidate(1);
+		assertNull(cache.get(1));
+		assertEquals("b", cache.get(2));
+		cache.invalidateAll();
+		assertEquals(0, cache.getStats().getSize());
+		assertEquals(0, cache.getStats().getEvictions());
+	}
+}
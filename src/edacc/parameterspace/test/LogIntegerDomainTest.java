@@ -0,0 +1,62 @@
+package edacc.parameterspace.test;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import edacc.parameterspace.domain.IntegerDomain;
+import edacc.parameterspace.domain.LogIntegerDomain;
+import edacc.util.MersenneTwister;
+
+public class LogIntegerDomainTest {
+
+	@Test
+	public void test() {
+		Random rng = new MersenneTwister(1);
+		LogIntegerDomain d = new LogIntegerDomain(1, 100000);
+		int below100 = 0;
+		for (int i = 0; i < 1000; i++) {
+			Object v = d.randomValue(rng);
+			assertTrue(d.contains(v));
+			assertTrue(d.contains(d.mutatedValue(rng, v)));
+			if ((Integer)v < 100) below100++;
+		}
+		// 2 of the 5 decades are below 100
+		assertTrue(below100 > 300 && below100 < 500);
+	}
+	
+	@Test
+	public void testDiscreteValues() {
+		LogIntegerDomain d = new LogIntegerDomain(1, 100000);
+		List<Object> values = d.getDiscreteValues();
+		assertTrue(values.size() <= 101);
+		assertEquals(1, values.get(0));
+		assertEquals(100000, values.get(values.size() - 1));
+		for (int i = 1; i < values.size(); i++) assertTrue((Integer)values.get(i - 1) < (Integer)values.get(i));
+		assertEquals(values.size(), d.getDiscreteGrid().size());
+		assertEquals(values.indexOf(10), d.getDiscreteGrid().indexOf(10));
+		
+		// small domains keep all integers
+		assertEquals(50, new LogIntegerDomain(1, 50).getDiscreteValues().size());
+		assertEquals(3, d.getMidValueOrNull(1, 10));
+	}
+	
+	@Test
+	public void testResolution() {
+		IntegerDomain d = new IntegerDomain(0, 1000, 10);
+		List<Object> values = d.getDiscreteValues();
+		assertEquals(11, values.size());
+		assertEquals(500, values.get(5));
+		Random rng = new MersenneTwister(1);
+		for (int i = 0; i < 100; i++) {
+			assertEquals(0, (Integer)d.mutatedValue(rng, 500) % 100);
+		}
+		for (Object v: d.getGaussianDiscreteValues(rng, 500, 0.1f, 5)) assertTrue(values.contains(v));
+		
+		d.setResolution(null);
+		assertEquals(1001, d.getDiscreteValues().size());
+	}
+}
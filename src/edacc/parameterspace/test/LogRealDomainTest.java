@@ -0,0 +1,74 @@
+package edacc.parameterspace.test;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import edacc.parameterspace.domain.LogRealDomain;
+import edacc.parameterspace.domain.RealDomain;
+import edacc.util.MersenneTwister;
+
+public class LogRealDomainTest {
+
+	@Test
+	public void test() {
+		Random rng = new MersenneTwister(1);
+		LogRealDomain d = new LogRealDomain(1e-6, 1e3);
+		assertTrue(d.contains(1e-6));
+		assertTrue(d.contains(1e3));
+		assertFalse(d.contains(0.0));
+		
+		int below1 = 0;
+		for (int i = 0; i < 1000; i++) {
+			double v = (Double)d.randomValue(rng);
+			assertTrue(d.contains(v));
+			assertTrue(d.contains(d.mutatedValue(rng, v)));
+			if (v < 1) below1++;
+		}
+		// 6 of the 9 decades are below 1
+		assertTrue(below1 > 550 && below1 < 780);
+	}
+	
+	@Test
+	public void testDiscreteValues() {
+		LogRealDomain d = new LogRealDomain(1e-6, 1e3);
+		List<Object> values = d.getDiscreteValues();
+		assertEquals(RealDomain.DEFAULT_RESOLUTION + 1, values.size());
+		assertEquals(1e-6, (Double)values.get(0), 0);
+		assertEquals(1e3, (Double)values.get(values.size() - 1), 0);
+		// every decade gets the same number of values
+		int belowOne = 0;
+		for (Object v: values) if ((Double)v < 1 - 1e-9) belowOne++;
+		assertEquals(67, belowOne);
+		
+		LogRealDomain coarse = new LogRealDomain(1e-6, 1e3, 9);
+		assertEquals(10, coarse.getDiscreteGrid().size());
+		assertEquals(1.0, coarse.getDiscreteGrid().doubleValueAt(6), 1e-12);
+		Random rng = new MersenneTwister(1);
+		for (int i = 0; i < 100; i++) {
+			// mutations are snapped to the grid
+			Object v = coarse.mutatedValue(rng, 1.0, 0.2f);
+			assertTrue(coarse.getDiscreteGrid().indexOf(v) != -1);
+		}
+	}
+	
+	@Test
+	public void testUniformDistributedValues() {
+		LogRealDomain d = new LogRealDomain(0.01, 100.0);
+		List<Object> vals = d.getUniformDistributedValues(5);
+		assertEquals(5, vals.size());
+		assertEquals(0.01, (Double)vals.get(0), 0);
+		assertEquals(0.1, (Double)vals.get(1), 1e-12);
+		assertEquals(1.0, (Double)vals.get(2), 1e-12);
+		assertEquals(100.0, (Double)vals.get(4), 0);
+		assertEquals(1.0, (Double)d.getMidValueOrNull(0.01, 100.0), 1e-12);
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testNonPositiveLow() {
+		new LogRealDomain(0.0, 1.0);
+	}
+}
@@ -38,4 +38,26 @@ public class OrdinalDomainTest {
 		assertTrue(o.getDiscreteValues().size() == 5);
 	}
 
+	@Test
+	public void testIndexOf() {
+		List<String> l = new LinkedList<String>();
+		for (int i = 0; i < 1000; i++) l.add("v" + i);
+		OrdinalDomain o = new OrdinalDomain(l);
+		for (int i = 0; i < 1000; i++) {
+			assertEquals(i, o.indexOf("v" + i));
+			assertSame(l.get(i), o.getDiscreteGrid().valueAt(i));
+		}
+		assertEquals(-1, o.indexOf("v1000"));
+		assertFalse(o.contains("v1000"));
+		assertEquals("v50", o.getMidValueOrNull("v0", "v100"));
+		assertNull(o.getMidValueOrNull("v0", "w"));
+
+		List<String> m = new LinkedList<String>();
+		m.add("a");
+		m.add("b");
+		o.setOrdered_list(m);
+		assertEquals(1, o.indexOf("b"));
+		assertFalse(o.contains("v1"));
+	}
+
 }
@@ -2,12 +2,27 @@ package edacc.parameterspace.test;
 
 import static org.junit.Assert.*;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.ObjectStreamField;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
 import org.junit.Test;
 
 import edacc.api.APIImpl;
 import edacc.parameterspace.ParameterConfiguration;
+import edacc.parameterspace.ParameterIndex;
+import edacc.parameterspace.domain.CategoricalDomain;
+import edacc.parameterspace.domain.Domain;
 import edacc.parameterspace.domain.FlagDomain;
+import edacc.parameterspace.domain.OrdinalDomain;
 import edacc.parameterspace.graph.ParameterGraph;
+import edacc.util.MersenneTwister;
 
 public class ParameterConfigurationTest {
 
@@ -28,5 +43,89 @@ public class ParameterConfigurationTest {
 		
 		assertTrue(config.equals(config2));
 	}
+	
+	@Test
+	public void testFingerprint() throws Exception {
+		APIImpl api = new APIImpl();
+		ParameterGraph pspace = api.loadParameterGraphFromFile("src/edacc/parameterspace/test/complex.xml");
+		ParameterConfiguration config = new ParameterConfiguration(pspace.getParameterSet());
+		config.setParameterValue("c1", 5);
+		config.setParameterValue("flag", FlagDomain.FLAGS.ON);
+		config.setParameterValue("ps", 0.1);
+		byte[] checksum = config.getChecksum();
+		
+		ParameterConfiguration config2 = new ParameterConfiguration(config);
+		config2.setParameterValue("c1", 6);
+		assertFalse(config.getFingerprint() == config2.getFingerprint());
+		config2.setParameterValue("c1", 5);
+		assertEquals(config.getFingerprint(), config2.getFingerprint());
+		assertEquals(config.hashCode(), config2.hashCode());
+		assertArrayEquals(checksum, config2.getChecksum());
+		
+		// set in a different order, OFF counts as unset
+		ParameterConfiguration config3 = new ParameterConfiguration(pspace.getParameterSet());
+		config3.setParameterValue("ps", 0.1);
+		config3.setParameterValue("flag", FlagDomain.FLAGS.ON);
+		config3.setParameterValue("c1", 5);
+		assertEquals(config.getFingerprint(), config3.getFingerprint());
+		config3.setParameterValue("flag", FlagDomain.FLAGS.OFF);
+		config.unsetParameter("flag");
+		assertEquals(config.getFingerprint(), config3.getFingerprint());
+		assertFalse(java.util.Arrays.equals(checksum, config.getChecksum()));
+	}
+
+	@Test
+	public void testParameterValueIndex() throws Exception {
+		APIImpl api = new APIImpl();
+		ParameterGraph pspace = api.loadParameterGraphFromFile("src/edacc/parameterspace/test/jack.xml");
+		ParameterConfiguration config = pspace.getRandomConfiguration(new MersenneTwister(2));
+		ParameterIndex index = config.getParameterIndex();
+		int categorical = 0;
+		for (int i = 0; i < index.size(); i++) {
+			Domain d = index.get(i).getDomain();
+			Object v = config.getParameterValue(i);
+			if (!(d instanceof CategoricalDomain || d instanceof OrdinalDomain) || v == null) continue;
+			categorical++;
+			int code = config.getParameterValueIndex(i);
+			assertSame(d.getDiscreteGrid().valueAt(code), v);
+
+			ParameterConfiguration copy = new ParameterConfiguration(config);
+			copy.unsetParameter(index.get(i));
+			copy.setParameterValueIndex(i, code);
+			assertEquals(config, copy);
+			assertEquals(config.getFingerprint(), copy.getFingerprint());
+
+			// equal strings are replaced by the instance of the domain
+			copy.setParameterValue(index.get(i), new String((String)v));
+			assertSame(v, copy.getParameterValue(i));
+		}
+		assertTrue(categorical > 0);
+		config.unsetParameter(index.get(0));
+		assertEquals(-1, config.getParameterValueIndex(0));
+	}
+
+	@Test
+	public void testSerialization() throws Exception {
+		APIImpl api = new APIImpl();
+		ParameterGraph pspace = api.loadParameterGraphFromFile("src/edacc/parameterspace/test/complex.xml");
+		ParameterConfiguration config = pspace.getRandomConfiguration(new MersenneTwister(4));
+		byte[] checksum = config.getChecksum();
+		
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ObjectOutputStream out = new ObjectOutputStream(bytes);
+		out.writeObject(config);
+		out.close();
+		ParameterConfiguration copy = (ParameterConfiguration)new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray())).readObject();
+		assertEquals(config, copy);
+		assertEquals(config.getFingerprint(), copy.getFingerprint());
+		assertArrayEquals(checksum, copy.getChecksum());
+		assertEquals(config.toString(), copy.toString());
+		
+		// the serialized fields are the ones of the map based versions
+		Set<String> fields = new HashSet<String>();
+		for (ObjectStreamField f: ObjectStreamClass.lookup(ParameterConfiguration.class).getFields()) fields.add(f.getName());
+		assertEquals(new HashSet<String>(Arrays.asList("parameter_instances", "checksum", "checksumHashCode")), fields);
+		assertEquals(-8241847198586343570L, ObjectStreamClass.lookup(ParameterConfiguration.class).getSerialVersionUID());
+	}
 
 }
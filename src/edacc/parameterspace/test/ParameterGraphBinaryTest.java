@@ -0,0 +1,150 @@
+package edacc.parameterspace.test;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import javax.xml.XMLConstants;
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.validation.SchemaFactory;
+
+import org.junit.Test;
+
+import edacc.api.APIImpl;
+import edacc.parameterspace.Parameter;
+import edacc.parameterspace.ParameterConfiguration;
+import edacc.parameterspace.ParameterGraphGenerator;
+import edacc.parameterspace.domain.Domain;
+import edacc.parameterspace.domain.IntegerDomain;
+import edacc.parameterspace.domain.LogIntegerDomain;
+import edacc.parameterspace.domain.LogRealDomain;
+import edacc.parameterspace.domain.RealDomain;
+import edacc.parameterspace.graph.AndNode;
+import edacc.parameterspace.graph.Edge;
+import edacc.parameterspace.graph.Node;
+import edacc.parameterspace.graph.OrNode;
+import edacc.parameterspace.graph.ParameterGraph;
+import edacc.parameterspace.graph.ParameterGraphBinary;
+import edacc.util.MersenneTwister;
+
+public class ParameterGraphBinaryTest {
+	private static final String[] GRAPHS = {"sparrow_parameterspace.xml", "complex.xml", "jack.xml", "cplex.graph"};
+
+	private static void assertSameGraph(ParameterGraph expected, ParameterGraph actual) {
+		assertEquals(expected.getParameterSet(), actual.getParameterSet());
+		for (Parameter p: expected.getParameterSet()) {
+			Parameter q = actual.getParameterMap().get(p.getName());
+			assertEquals(p.getDomain().getClass(), q.getDomain().getClass());
+			assertEquals(p.getDomain().toString(), q.getDomain().toString());
+		}
+		assertEquals(expected.nodes.size(), actual.nodes.size());
+		assertEquals(expected.edges.size(), actual.edges.size());
+		Random rng1 = new MersenneTwister(11), rng2 = new MersenneTwister(11);
+		for (int i = 0; i < 100; i++) {
+			ParameterConfiguration config = expected.getRandomConfiguration(rng1);
+			assertEquals(config, actual.getRandomConfiguration(rng2));
+			assertEquals(expected.getNeighbourhood(config).size(), actual.getNeighbourhood(config).size());
+		}
+	}
+
+	@Test
+	public void testRoundTrip() throws Exception {
+		for (String name: GRAPHS) {
+			ParameterGraph xml = new APIImpl().loadParameterGraphFromFile("src/edacc/parameterspace/test/" + name);
+			byte[] binary = ParameterGraphBinary.toByteArray(xml);
+			ParameterGraph loaded = ParameterGraph.load(new ByteArrayInputStream(binary));
+			assertSameGraph(xml, loaded);
+
+			// back to XML
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			ParameterGraphGenerator.writeXML(loaded, out);
+			assertSameGraph(xml, ParameterGraph.load(new ByteArrayInputStream(out.toByteArray())));
+		}
+	}
+
+	@Test
+	public void testSyntheticGraph() throws Exception {
+		ParameterGraphGenerator gen = new ParameterGraphGenerator();
+		gen.setNumParameters(500);
+		gen.setMaxFanIn(3);
+		ParameterGraph g = gen.generate(new MersenneTwister(3));
+		ByteArrayOutputStream xml = new ByteArrayOutputStream();
+		ParameterGraphGenerator.writeXML(g, xml);
+		byte[] binary = ParameterGraphBinary.toByteArray(g);
+		assertTrue(binary.length < xml.size() / 2);
+
+		ByteBuffer direct = ByteBuffer.allocateDirect(binary.length);
+		direct.put(binary).flip();
+		assertSameGraph(g, ParameterGraphBinary.read(direct));
+		assertFalse(direct.hasRemaining());
+	}
+
+	@Test
+	public void testInvalidData() throws Exception {
+		ParameterGraph g = new APIImpl().loadParameterGraphFromFile("src/edacc/parameterspace/test/sparrow_parameterspace.xml");
+		byte[] binary = ParameterGraphBinary.toByteArray(g);
+		assertFalse(ParameterGraphBinary.isBinary(ByteBuffer.wrap("<?xml".getBytes("UTF-8"))));
+		try {
+			ParameterGraph.load(new ByteArrayInputStream(Arrays.copyOf(binary, binary.length / 2)));
+			fail("truncated graph was loaded");
+		} catch (IOException e) {
+		}
+		binary[5] = 99; // version
+		try {
+			ParameterGraphBinary.read(ByteBuffer.wrap(binary));
+			fail("unknown version was loaded");
+		} catch (IOException e) {
+		}
+	}
+
+	@Test
+	public void testScaledDomains() throws Exception {
+		Domain[] domains = {new LogRealDomain(1e-6, 1e3), new LogRealDomain(0.5, 2.0, 30), new LogIntegerDomain(1, 100000),
+				new IntegerDomain(0, 1000, 10), new RealDomain(0.0, 1.0, 20)};
+		Set<Parameter> parameters = new HashSet<Parameter>();
+		Set<Node> nodes = new HashSet<Node>();
+		List<Edge> edges = new ArrayList<Edge>();
+		AndNode start = new AndNode(null, null);
+		start.setId("start");
+		nodes.add(start);
+		for (int i = 0; i < domains.length; i++) {
+			Parameter p = new Parameter("p" + i, domains[i]);
+			parameters.add(p);
+			OrNode or = new OrNode(p);
+			AndNode and = new AndNode(p, domains[i]);
+			or.setId("or" + i);
+			and.setId("and" + i);
+			nodes.add(or);
+			nodes.add(and);
+			edges.add(new Edge(start, or, 0));
+			edges.add(new Edge(or, and, 0));
+		}
+		ParameterGraph g = new ParameterGraph(nodes, edges, parameters, start);
+
+		ByteArrayOutputStream xml = new ByteArrayOutputStream();
+		ParameterGraphGenerator.writeXML(g, xml);
+		SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI).newSchema(new File("src/edacc/parameterspace/test/parametergraph.xsd"))
+				.newValidator().validate(new StreamSource(new ByteArrayInputStream(xml.toByteArray())));
+		ParameterGraph fromXML = ParameterGraph.load(new ByteArrayInputStream(xml.toByteArray()));
+		ParameterGraph fromBinary = ParameterGraphBinary.read(ByteBuffer.wrap(ParameterGraphBinary.toByteArray(g)));
+		for (ParameterGraph loaded: new ParameterGraph[] {fromXML, fromBinary}) {
+			assertSameGraph(g, loaded);
+			for (Parameter p: g.getParameterSet()) {
+				Domain d = p.getDomain(), e = loaded.getParameterMap().get(p.getName()).getDomain();
+				Integer resolution = d instanceof RealDomain ? ((RealDomain)d).getResolution() : ((IntegerDomain)d).getResolution();
+				assertEquals(resolution, e instanceof RealDomain ? ((RealDomain)e).getResolution() : ((IntegerDomain)e).getResolution());
+				assertEquals(d.getDiscreteValues(), e.getDiscreteValues());
+			}
+		}
+	}
+}
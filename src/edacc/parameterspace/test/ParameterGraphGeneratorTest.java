@@ -0,0 +1,85 @@
+package edacc.parameterspace.test;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.Random;
+
+import javax.xml.XMLConstants;
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.validation.Schema;
+import javax.xml.validation.SchemaFactory;
+
+import org.junit.Test;
+
+import edacc.api.APIImpl;
+import edacc.parameterspace.ParameterConfiguration;
+import edacc.parameterspace.ParameterGraphGenerator;
+import edacc.parameterspace.graph.ParameterGraph;
+import edacc.util.MersenneTwister;
+
+public class ParameterGraphGeneratorTest {
+
+	private static ParameterGraphGenerator generator() {
+		ParameterGraphGenerator gen = new ParameterGraphGenerator();
+		gen.setNumParameters(300);
+		gen.setMaxDepth(4);
+		gen.setConditionalProbability(0.7);
+		gen.setMaxFanIn(3);
+		gen.setCategories(2, 8);
+		return gen;
+	}
+
+	@Test
+	public void testGenerate() {
+		ParameterGraph g = generator().generate(new MersenneTwister(1234));
+		assertEquals(300, g.getParameterSet().size());
+		Random rng = new MersenneTwister(42);
+		for (int i = 0; i < 100; i++) {
+			ParameterConfiguration config = g.getRandomConfiguration(rng);
+			assertTrue(g.validateParameterConfiguration(config));
+		}
+
+		// same settings and seed give the same graph
+		ParameterGraph g2 = generator().generate(new MersenneTwister(1234));
+		assertEquals(g.getRandomConfiguration(new MersenneTwister(7)), g2.getRandomConfiguration(new MersenneTwister(7)));
+	}
+
+	@Test
+	public void testUnconditional() {
+		ParameterGraphGenerator gen = generator();
+		gen.setMaxDepth(0);
+		ParameterGraph g = gen.generate(new MersenneTwister(99));
+		ParameterConfiguration config = g.getRandomConfiguration(new MersenneTwister(1));
+		for (Object value: config.getParameter_instances().values()) assertNotNull(value);
+	}
+
+	@Test
+	public void testWriteXML() throws Exception {
+		ParameterGraph g = generator().generate(new MersenneTwister(4711));
+		ByteArrayOutputStream xml = new ByteArrayOutputStream();
+		ParameterGraphGenerator.writeXML(g, xml);
+
+		Schema schema = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI).newSchema(new File("src/edacc/parameterspace/test/parametergraph.xsd"));
+		schema.newValidator().validate(new StreamSource(new ByteArrayInputStream(xml.toByteArray())));
+
+		File f = File.createTempFile("synthetic", ".xml");
+		f.deleteOnExit();
+		FileOutputStream out = new FileOutputStream(f);
+		try {
+			out.write(xml.toByteArray());
+		} finally {
+			out.close();
+		}
+		ParameterGraph loaded = new APIImpl().loadParameterGraphFromFile(f.getPath());
+		assertEquals(g.getParameterSet(), loaded.getParameterSet());
+		Random rng = new MersenneTwister(5);
+		for (int i = 0; i < 100; i++) {
+			assertTrue(loaded.validateParameterConfiguration(g.getRandomConfiguration(rng)));
+			assertTrue(g.validateParameterConfiguration(loaded.getRandomConfiguration(rng)));
+		}
+	}
+}
@@ -2,26 +2,42 @@ package edacc.parameterspace.test;
 
 import static org.junit.Assert.*;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.junit.Before;
 import org.junit.Test;
 
 import edacc.api.API;
 import edacc.api.APIImpl;
+import edacc.parameterspace.ConfigurationBatch;
+import edacc.parameterspace.ConfigurationEncoder;
+import edacc.parameterspace.ConfigurationView;
+import edacc.parameterspace.DeltaConfiguration;
 import edacc.parameterspace.Parameter;
 import edacc.parameterspace.ParameterConfiguration;
 import edacc.parameterspace.domain.CategoricalDomain;
 import edacc.parameterspace.domain.FlagDomain;
+import edacc.parameterspace.domain.IntegerDomain;
 import edacc.parameterspace.graph.AndNode;
+import edacc.parameterspace.graph.ConditionalParents;
 import edacc.parameterspace.graph.Edge;
+import edacc.parameterspace.graph.NeighbourScorer;
+import edacc.parameterspace.graph.NeighbourhoodIterator;
 import edacc.parameterspace.graph.Node;
 import edacc.parameterspace.graph.OrNode;
 import edacc.parameterspace.graph.ParameterGraph;
+import edacc.parameterspace.graph.ValidationResult;
 import edacc.util.MersenneTwister;
 import edacc.util.Pair;
 
@@ -227,5 +243,294 @@ public class ParameterGraphTest {
         assertFalse(nbh.contains(nb3));
         assertTrue(pspace.validateParameterConfiguration(nb3));
 	}
+	
+	@Test
+	public void testGetNeighbourhoodDeltas() throws Exception {
+		API api = new APIImpl();
+		ParameterGraph pspace = api.loadParameterGraphFromFile("src/edacc/parameterspace/test/sparrow_parameterspace.xml");
+		ParameterConfiguration config = new ParameterConfiguration(pspace.getParameterSet());
+		config.setParameterValue("ps", 0.2);
+		config.setParameterValue("c1", 1);
+		config.setParameterValue("c2", 2);
+		config.setParameterValue("c3", 15);
+		
+		List<ParameterConfiguration> nbh = pspace.getNeighbourhood(config);
+		List<DeltaConfiguration> deltas = pspace.getNeighbourhoodDeltas(config);
+		assertEquals(nbh.size(), deltas.size());
+		for (int i = 0; i < deltas.size(); i++) {
+			ParameterConfiguration neighbour = deltas.get(i).materialize();
+			assertEquals(nbh.get(i), neighbour);
+			assertEquals(neighbour.getFingerprint(), deltas.get(i).getFingerprint());
+			assertEquals(neighbour.getParameterValue(deltas.get(i).getParameter()), deltas.get(i).getValue());
+		}
+		assertEquals(pspace.getConstrainedNeighbourhood(config).size(), pspace.getConstrainedNeighbourhoodDeltas(config).size());
+	}
+	
+	@Test
+	public void testNeighbourhoodIterator() throws Exception {
+		API api = new APIImpl();
+		ParameterGraph pspace = api.loadParameterGraphFromFile("src/edacc/parameterspace/test/sparrow_parameterspace.xml");
+		ParameterConfiguration config = new ParameterConfiguration(pspace.getParameterSet());
+		config.setParameterValue("ps", 0.2);
+		config.setParameterValue("c1", 1);
+		config.setParameterValue("c2", 2);
+		config.setParameterValue("c3", 15);
+		
+		List<ParameterConfiguration> nbh = pspace.getNeighbourhood(config);
+		NeighbourhoodIterator it = pspace.neighbourhoodIterator(config);
+		NeighbourhoodIterator second = it.split();
+		assertNotNull(second);
+		List<ParameterConfiguration> generated = new LinkedList<ParameterConfiguration>();
+		while (it.hasNext()) generated.add(it.next().materialize());
+		while (second.hasNext()) generated.add(second.next().materialize());
+		assertEquals(nbh, generated);
+	}
+	
+	@Test
+	public void testNeighbourhoodParallel() throws Exception {
+		API api = new APIImpl();
+		ParameterGraph pspace = api.loadParameterGraphFromFile("src/edacc/parameterspace/test/sparrow_parameterspace.xml");
+		ParameterConfiguration config = new ParameterConfiguration(pspace.getParameterSet());
+		config.setParameterValue("ps", 0.2);
+		config.setParameterValue("c1", 1);
+		config.setParameterValue("c2", 2);
+		config.setParameterValue("c3", 15);
+		
+		ExecutorService single = Executors.newSingleThreadExecutor();
+		ExecutorService pool = Executors.newFixedThreadPool(4);
+		try {
+			List<ParameterConfiguration> nbh = pspace.getNeighbourhood(config);
+			List<DeltaConfiguration> parallel = pspace.getNeighbourhoodParallel(config, pool);
+			assertEquals(nbh.size(), parallel.size());
+			for (int i = 0; i < nbh.size(); i++) assertEquals(nbh.get(i), parallel.get(i).materialize());
+			
+			Map<Parameter, Float> stdDev = new HashMap<Parameter, Float>();
+			for (Parameter p: pspace.getParameterSet()) stdDev.put(p, 0.2f);
+			Map<Parameter, Float> samplesFactor = new HashMap<Parameter, Float>();
+			List<DeltaConfiguration> gaussian1 = pspace.getGaussianNeighbourhoodParallel(config, 42, stdDev, 5, samplesFactor, false, single);
+			List<Pair<DeltaConfiguration, Double>> gaussian2 = pspace.getGaussianNeighbourhoodParallel(config, 42, stdDev, 5, samplesFactor, false,
+					new NeighbourScorer() {
+						@Override
+						public double score(ConfigurationView neighbour) {
+							return neighbour.getFingerprint();
+						}
+					}, pool);
+			assertEquals(gaussian1.size(), gaussian2.size());
+			for (int i = 0; i < gaussian1.size(); i++) {
+				assertEquals(gaussian1.get(i).getFingerprint(), gaussian2.get(i).getFirst().getFingerprint());
+				assertEquals((double)gaussian1.get(i).getFingerprint(), gaussian2.get(i).getSecond(), 0.0);
+			}
+		} finally {
+			single.shutdown();
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void testSampleConfigurations() throws Exception {
+		API api = new APIImpl();
+		ParameterGraph pspace = api.loadParameterGraphFromFile("src/edacc/parameterspace/test/complex.xml");
+		Random rng = new MersenneTwister(77);
+		List<ParameterConfiguration> expected = new LinkedList<ParameterConfiguration>();
+		for (int i = 0; i < 200; i++) expected.add(pspace.getRandomConfiguration(rng));
+		
+		assertEquals(expected, pspace.sampleConfigurations(200, new MersenneTwister(77)));
+		Iterator<ParameterConfiguration> it = pspace.randomConfigurationIterator(new MersenneTwister(77));
+		for (ParameterConfiguration config: expected) assertEquals(config, it.next());
+		
+		ConfigurationBatch batch = new ConfigurationBatch(pspace.getParameterSet(), 16);
+		pspace.sampleConfigurations(200, new MersenneTwister(77), batch);
+		assertEquals(200, batch.size());
+		int row = 0;
+		for (ParameterConfiguration config: expected) {
+			assertEquals(config, batch.getConfiguration(row));
+			for (Parameter p: pspace.getParameterSet()) {
+				double code = batch.getColumn(p)[row];
+				assertEquals(config.getParameterValue(p) == null, Double.isNaN(code));
+			}
+			row++;
+		}
+	}
+
+	@Test
+	public void testWithFixedParameters() throws Exception {
+		API api = new APIImpl();
+		ParameterGraph base = api.loadParameterGraphFromFile("src/edacc/parameterspace/test/sparrow_parameterspace.xml");
+		Parameter c1 = base.getParameterMap().get("c1");
+		Map<Parameter, Object> fixed = new HashMap<Parameter, Object>();
+		fixed.put(c1, 10);
+		ParameterGraph overlay = base.withFixedParameters(fixed);
+		
+		assertSame(base.getParameterSet(), overlay.getParameterSet());
+		Random rng = new MersenneTwister(3);
+		for (int i = 0; i < 50; i++) {
+			assertEquals(10, overlay.getRandomConfiguration(rng).getParameterValue(c1));
+		}
+		ParameterConfiguration config = overlay.getRandomConfiguration(rng);
+		for (ParameterConfiguration n: overlay.getNeighbourhood(config)) {
+			assertEquals(10, n.getParameterValue(c1));
+		}
+		boolean varied = false;
+		for (int i = 0; i < 50; i++) {
+			varied |= !Integer.valueOf(10).equals(base.getRandomConfiguration(rng).getParameterValue(c1));
+		}
+		assertTrue(varied);
+	}
+
+	@Test
+	public void testValidate() throws Exception {
+		API api = new APIImpl();
+		ParameterGraph pspace = api.loadParameterGraphFromFile("src/edacc/parameterspace/test/complex.xml");
+		ParameterConfiguration config = pspace.getRandomConfiguration(new MersenneTwister(8));
+		assertSame(ValidationResult.VALID, pspace.validate(config));
+		
+		ParameterConfiguration missing = new ParameterConfiguration(config);
+		missing.unsetParameter("c1");
+		ValidationResult result = pspace.validate(missing);
+		assertFalse(result.isValid());
+		assertEquals(ValidationResult.Reason.MISSING_VALUE, result.getReason());
+		assertEquals("c1", result.getParameter().getName());
+		
+		ParameterConfiguration inactive = new ParameterConfiguration(config);
+		inactive.setParameterValue("flag", FlagDomain.FLAGS.OFF);
+		inactive.setParameterValue("method", "hybrid");
+		result = pspace.validate(inactive);
+		assertEquals(ValidationResult.Reason.INACTIVE_PARAMETER_SET, result.getReason());
+		assertFalse(pspace.validateParameterConfiguration(inactive));
+		
+		List<ParameterConfiguration> configs = pspace.sampleConfigurations(50, new MersenneTwister(9));
+		configs.add(missing);
+		configs.add(inactive);
+		boolean[] valid = new boolean[configs.size()];
+		assertEquals(50, pspace.getValidator().validate(configs, valid));
+		assertTrue(valid[49]);
+		assertFalse(valid[50]);
+		assertFalse(valid[51]);
+	}
+
+	@Test
+	public void testConditionalParents() throws Exception {
+		API api = new APIImpl();
+		Random rng = new MersenneTwister(10);
+		for (String name: new String[] {"sparrow_parameterspace.xml", "complex.xml", "jack.xml", "cplex.graph"}) {
+			ParameterGraph pspace = api.loadParameterGraphFromFile("src/edacc/parameterspace/test/" + name);
+			List<Parameter> params = new ArrayList<Parameter>(pspace.getParameterSet());
+			ConditionalParents cp = pspace.getConditionalParents(params);
+			assertSame(cp, pspace.getConditionalParents(new ArrayList<Parameter>(params)));
+			
+			Object[] rf = pspace.conditionalParentsForRF(params);
+			int[][] condParents = (int[][])rf[0];
+			for (int c = 0; c < params.size(); c++) {
+				assertEquals(cp.isConditional(c), condParents[c] != null);
+			}
+			
+			// a parameter is active iff the random configurations set it
+			ConfigurationEncoder encoder = new ConfigurationEncoder(pspace, params);
+			for (int i = 0; i < 100; i++) {
+				double[] row = encoder.encode(pspace.getRandomConfiguration(rng));
+				for (int c = 0; c < params.size(); c++) {
+					assertEquals(name + " " + params.get(c).getName(), !Double.isNaN(row[c]), cp.isActive(c, row));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testConditionalParentsEdgeOrder() {
+		// c is active if a = y or if a = x and b = y; the entries follow the incoming edges of c
+		Parameter a = new Parameter("a", new CategoricalDomain(new String[] {"x", "y"}));
+		Parameter b = new Parameter("b", new CategoricalDomain(new String[] {"x", "y"}));
+		Parameter c = new Parameter("c", new IntegerDomain(0, 10));
+		Set<Parameter> parameters = new HashSet<Parameter>();
+		parameters.add(a); parameters.add(b); parameters.add(c);
+		Set<Node> nodes = new LinkedHashSet<Node>();
+		AndNode start = new AndNode(null, null); nodes.add(start);
+		OrNode orA = new OrNode(a); nodes.add(orA);
+		AndNode ax = new AndNode(a, new CategoricalDomain(new String[] {"x"}));
+		AndNode ay = new AndNode(a, new CategoricalDomain(new String[] {"y"}));
+		ax.setId("ax"); // nodes are equal if their IDs and parameters are
+		ay.setId("ay");
+		nodes.add(ax);
+		nodes.add(ay);
+		OrNode orB = new OrNode(b); nodes.add(orB);
+		AndNode by = new AndNode(b, new CategoricalDomain(new String[] {"y"})); nodes.add(by);
+		OrNode orC = new OrNode(c); nodes.add(orC);
+		AndNode and = new AndNode(c, c.getDomain()); nodes.add(and);
+		List<Edge> edges = new LinkedList<Edge>();
+		edges.add(new Edge(start, orA, 0));
+		edges.add(new Edge(start, orB, 0));
+		edges.add(new Edge(orA, ax, 0));
+		edges.add(new Edge(orA, ay, 0));
+		edges.add(new Edge(orB, by, 0));
+		edges.add(new Edge(by, orC, 1));
+		edges.add(new Edge(ay, orC, 0));
+		edges.add(new Edge(ax, orC, 1));
+		edges.add(new Edge(ay, orC, 0));
+		edges.add(new Edge(orC, and, 0));
+		ParameterGraph graph = new ParameterGraph(nodes, edges, parameters, start);
+
+		List<Parameter> params = new ArrayList<Parameter>();
+		params.add(a); params.add(b); params.add(c);
+		Object[] rf = graph.conditionalParentsForRF(params);
+		int[][] condParents = (int[][])rf[0];
+		int[][][] condParentVals = (int[][][])rf[1];
+		assertNull(condParents[0]);
+		assertNull(condParents[1]);
+		assertArrayEquals(new int[] {0, 0, 0, 1}, condParents[2]);
+		assertArrayEquals(new int[] {1}, condParentVals[2][0]);
+		assertArrayEquals(new int[] {2}, condParentVals[2][1]);
+		assertArrayEquals(new int[] {2}, condParentVals[2][2]);
+		assertArrayEquals(new int[] {2}, condParentVals[2][3]);
+
+		ConditionalParents cp = graph.getConditionalParents(params);
+		assertFalse(cp.isActive(2, new double[] {1, 1, Double.NaN}));
+		assertTrue(cp.isActive(2, new double[] {1, 2, 0}));
+		assertTrue(cp.isActive(2, new double[] {2, 1, 0}));
+		assertFalse(cp.isActive(2, new double[] {1, Double.NaN, Double.NaN}));
+	}
 
+	@Test
+	public void testMutateParameterConfiguration() {
+		// two AND nodes of one parameter with overlapping domains: only the node that contains the
+		// original value is mutated, even if the mutated value falls into the other domain
+		Parameter p = new Parameter("x", new IntegerDomain(0, 20));
+		Set<Parameter> parameters = new HashSet<Parameter>();
+		parameters.add(p);
+		Set<Node> nodes = new HashSet<Node>();
+		AndNode start = new AndNode(null, null); nodes.add(start);
+		OrNode or = new OrNode(p); nodes.add(or);
+		AndNode low = new AndNode(p, new IntegerDomain(0, 10)); nodes.add(low);
+		AndNode high = new AndNode(p, new IntegerDomain(5, 20)); nodes.add(high);
+		low.setId("low"); // nodes are equal if their IDs and parameters are
+		high.setId("high");
+		List<Edge> edges = new LinkedList<Edge>();
+		edges.add(new Edge(start, or, 0));
+		edges.add(new Edge(or, low, 0));
+		edges.add(new Edge(or, high, 0));
+		ParameterGraph graph = new ParameterGraph(nodes, edges, parameters, start);
+
+		final int[] draws = new int[1];
+		Random rng = new MersenneTwister(6) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			public float nextFloat() {
+				draws[0]++;
+				return super.nextFloat();
+			}
+		};
+		ParameterConfiguration config = new ParameterConfiguration(graph.getParameterSet());
+		for (int i = 0; i < 200; i++) {
+			config.setParameterValue(p, 2);
+			draws[0] = 0;
+			graph.mutateParameterConfiguration(rng, config, 0.5f, 1.0f);
+			assertEquals(1, draws[0]);
+			assertTrue(low.getDomain().contains(config.getParameterValue(p)));
+
+			config.setParameterValue(p, 7);
+			draws[0] = 0;
+			graph.mutateParameterConfiguration(rng, config, 0.5f, 1.0f);
+			assertEquals(2, draws[0]);
+		}
+	}
 }
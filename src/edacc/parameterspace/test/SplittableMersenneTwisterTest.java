@@ -0,0 +1,64 @@
+package edacc.parameterspace.test;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+
+import org.junit.Test;
+
+import edacc.util.MersenneTwister;
+import edacc.util.SplittableMersenneTwister;
+
+public class SplittableMersenneTwisterTest {
+
+	@Test
+	public void testSameSequenceAsMersenneTwister() {
+		MersenneTwister mt = new MersenneTwister(new int[] {0x123, 0x234, 0x345, 0x456});
+		SplittableMersenneTwister smt = new SplittableMersenneTwister(new int[] {0x123, 0x234, 0x345, 0x456});
+		for (int i = 0; i < 2000; i++) assertEquals(mt.nextInt(), smt.nextInt());
+		
+		mt = new MersenneTwister(4357);
+		smt = new SplittableMersenneTwister(4357);
+		for (int i = 0; i < 1000; i++) {
+			assertEquals(mt.nextDouble(), smt.nextDouble(), 0.0);
+			assertEquals(mt.nextGaussian(), smt.nextGaussian(), 0.0);
+			assertEquals(mt.nextInt(i + 1), smt.nextInt(i + 1));
+		}
+	}
+
+	@Test
+	public void testState() throws Exception {
+		MersenneTwister mt = new MersenneTwister(42);
+		mt.nextGaussian();
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		mt.writeState(new DataOutputStream(bytes));
+		
+		SplittableMersenneTwister smt = new SplittableMersenneTwister();
+		smt.readState(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+		for (int i = 0; i < 1000; i++) assertEquals(mt.nextGaussian(), smt.nextGaussian(), 0.0);
+		
+		ByteArrayOutputStream bytes2 = new ByteArrayOutputStream();
+		smt.writeState(new DataOutputStream(bytes2));
+		mt.readState(new DataInputStream(new ByteArrayInputStream(bytes2.toByteArray())));
+		for (int i = 0; i < 1000; i++) assertEquals(smt.nextLong(), mt.nextLong());
+	}
+
+	@Test
+	public void testBulkAndSplit() {
+		SplittableMersenneTwister a = new SplittableMersenneTwister(7);
+		SplittableMersenneTwister b = new SplittableMersenneTwister(7);
+		double[] values = new double[101];
+		a.nextGaussians(values);
+		for (double v: values) assertEquals(b.nextGaussian(), v, 0.0);
+		a.nextDoubles(values);
+		for (double v: values) assertEquals(b.nextDouble(), v, 0.0);
+		
+		assertTrue(a.split().stateEquals(b.split()));
+		assertTrue(SplittableMersenneTwister.forStream(7, 3).stateEquals(SplittableMersenneTwister.forStream(7, 3)));
+		assertFalse(SplittableMersenneTwister.forStream(7, 3).stateEquals(SplittableMersenneTwister.forStream(7, 4)));
+	}
+
+}
@@ -0,0 +1,301 @@
+package edacc.util;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.Random;
+
+/**
+ * Unsynchronized Mersenne Twister (MT19937) for use by a single thread.
+ *
+ * The generator produces exactly the same numbers as {@link MersenneTwister} for the same seed
+ * and uses the same {@link #readState(DataInputStream)}/{@link #writeState(DataOutputStream)}
+ * format, so checkpoints can be exchanged between both classes. Unlike MersenneTwister none of the
+ * methods are synchronized; every thread has to use its own instance. Independent instances for
+ * parallel workers are obtained by {@link #split()} or, reproducibly from a single experiment seed,
+ * by {@link #forStream(long, long)}.
+ */
+public strictfp class SplittableMersenneTwister extends Random implements Serializable, Cloneable {
+    private static final long serialVersionUID = -2731846518375810942L;
+
+    // Period parameters
+    private static final int N = 624;
+    private static final int M = 397;
+    private static final int MATRIX_A = 0x9908b0df;
+    private static final int UPPER_MASK = 0x80000000;
+    private static final int LOWER_MASK = 0x7fffffff;
+
+    // Tempering parameters
+    private static final int TEMPERING_MASK_B = 0x9d2c5680;
+    private static final int TEMPERING_MASK_C = 0xefc60000;
+
+    private int mt[];
+    private int mti;
+    private int mag01[];
+
+    private double nextNextGaussian;
+    private boolean haveNextNextGaussian;
+
+    public SplittableMersenneTwister() {
+        this(System.currentTimeMillis());
+    }
+
+    /**
+     * Only the lower 32 bits of the seed are used, like in {@link MersenneTwister#MersenneTwister(long)}.
+     */
+    public SplittableMersenneTwister(long seed) {
+        super(seed);
+        setSeed(seed);
+    }
+
+    /**
+     * Seeds the generator with an array of integers, see {@link MersenneTwister#MersenneTwister(int[])}.
+     */
+    public SplittableMersenneTwister(int[] array) {
+        super(0);
+        setSeed(array);
+    }
+
+    /**
+     * Returns the generator of stream <code>stream</code> of the given seed. The same (seed, stream)
+     * pair always yields the same sequence, different streams are seeded independently.
+     * Use this to give each parallel worker (e.g. each parameter) its own reproducible generator.
+     * @param seed
+     * @param stream
+     * @return
+     */
+    public static SplittableMersenneTwister forStream(long seed, long stream) {
+        return new SplittableMersenneTwister(new int[] {(int)(seed >>> 32), (int)seed, (int)(stream >>> 32), (int)stream});
+    }
+
+    /**
+     * Creates a new generator that is seeded from the next 128 bits of this generator.
+     * The result only depends on the state of this generator, so a sequence of splits from
+     * the same seed is reproducible.
+     * @return
+     */
+    public SplittableMersenneTwister split() {
+        return new SplittableMersenneTwister(new int[] {next(32), next(32), next(32), next(32)});
+    }
+
+    @Override
+    public void setSeed(long seed) {
+        haveNextNextGaussian = false;
+
+        mt = new int[N];
+        mag01 = new int[2];
+        mag01[0] = 0x0;
+        mag01[1] = MATRIX_A;
+
+        mt[0] = (int)(seed & 0xffffffff);
+        for (mti = 1; mti < N; mti++) {
+            mt[mti] = (1812433253 * (mt[mti - 1] ^ (mt[mti - 1] >>> 30)) + mti);
+        }
+    }
+
+    public void setSeed(int[] array) {
+        if (array.length == 0)
+            throw new IllegalArgumentException("Array length must be greater than zero");
+        int i, j, k;
+        setSeed(19650218);
+        i = 1;
+        j = 0;
+        k = (N > array.length ? N : array.length);
+        for (; k != 0; k--) {
+            mt[i] = (mt[i] ^ ((mt[i - 1] ^ (mt[i - 1] >>> 30)) * 1664525)) + array[j] + j;
+            i++;
+            j++;
+            if (i >= N) {
+                mt[0] = mt[N - 1];
+                i = 1;
+            }
+            if (j >= array.length) j = 0;
+        }
+        for (k = N - 1; k != 0; k--) {
+            mt[i] = (mt[i] ^ ((mt[i - 1] ^ (mt[i - 1] >>> 30)) * 1566083941)) - i;
+            i++;
+            if (i >= N) {
+                mt[0] = mt[N - 1];
+                i = 1;
+            }
+        }
+        mt[0] = 0x80000000;
+    }
+
+    /** Reads the entire state of the generator from the stream, in the format of {@link MersenneTwister#readState(DataInputStream)} */
+    public void readState(DataInputStream stream) throws IOException {
+        for (int x = 0; x < mt.length; x++) mt[x] = stream.readInt();
+        for (int x = 0; x < mag01.length; x++) mag01[x] = stream.readInt();
+        mti = stream.readInt();
+        nextNextGaussian = stream.readDouble();
+        haveNextNextGaussian = stream.readBoolean();
+    }
+
+    /** Writes the entire state of the generator to the stream, in the format of {@link MersenneTwister#writeState(DataOutputStream)} */
+    public void writeState(DataOutputStream stream) throws IOException {
+        for (int x = 0; x < mt.length; x++) stream.writeInt(mt[x]);
+        for (int x = 0; x < mag01.length; x++) stream.writeInt(mag01[x]);
+        stream.writeInt(mti);
+        stream.writeDouble(nextNextGaussian);
+        stream.writeBoolean(haveNextNextGaussian);
+    }
+
+    @Override
+    public Object clone() {
+        try {
+            SplittableMersenneTwister f = (SplittableMersenneTwister)super.clone();
+            f.mt = mt.clone();
+            f.mag01 = mag01.clone();
+            return f;
+        } catch (CloneNotSupportedException e) {
+            throw new InternalError();
+        }
+    }
+
+    public boolean stateEquals(SplittableMersenneTwister other) {
+        if (other == this) return true;
+        if (other == null) return false;
+        if (mti != other.mti || haveNextNextGaussian != other.haveNextNextGaussian) return false;
+        for (int x = 0; x < mag01.length; x++)
+            if (mag01[x] != other.mag01[x]) return false;
+        for (int x = 0; x < mt.length; x++)
+            if (mt[x] != other.mt[x]) return false;
+        return true;
+    }
+
+    /** generates the next N words of the state */
+    private void twist() {
+        final int[] mt = this.mt;
+        final int[] mag01 = this.mag01;
+        int y, kk;
+        for (kk = 0; kk < N - M; kk++) {
+            y = (mt[kk] & UPPER_MASK) | (mt[kk + 1] & LOWER_MASK);
+            mt[kk] = mt[kk + M] ^ (y >>> 1) ^ mag01[y & 0x1];
+        }
+        for (; kk < N - 1; kk++) {
+            y = (mt[kk] & UPPER_MASK) | (mt[kk + 1] & LOWER_MASK);
+            mt[kk] = mt[kk + (M - N)] ^ (y >>> 1) ^ mag01[y & 0x1];
+        }
+        y = (mt[N - 1] & UPPER_MASK) | (mt[0] & LOWER_MASK);
+        mt[N - 1] = mt[M - 1] ^ (y >>> 1) ^ mag01[y & 0x1];
+        mti = 0;
+    }
+
+    @Override
+    protected int next(int bits) {
+        if (mti >= N) twist();
+        int y = mt[mti++];
+        y ^= y >>> 11;
+        y ^= (y << 7) & TEMPERING_MASK_B;
+        y ^= (y << 15) & TEMPERING_MASK_C;
+        y ^= (y >>> 18);
+        return y >>> (32 - bits);
+    }
+
+    @Override
+    public boolean nextBoolean() {
+        return next(1) != 0;
+    }
+
+    @Override
+    public int nextInt(int n) {
+        if (n <= 0)
+            throw new IllegalArgumentException("n must be positive, got: " + n);
+        if ((n & -n) == n)
+            return (int)((n * (long)next(31)) >> 31);
+        int bits, val;
+        do {
+            bits = next(31);
+            val = bits % n;
+        } while (bits - val + (n - 1) < 0);
+        return val;
+    }
+
+    /**
+     * Returns a long drawn uniformly from 0 to n-1, see {@link MersenneTwister#nextLong(long)}.
+     */
+    public long nextLong(long n) {
+        if (n <= 0)
+            throw new IllegalArgumentException("n must be positive, got: " + n);
+        long bits, val;
+        do {
+            bits = (nextLong() >>> 1);
+            val = bits % n;
+        } while (bits - val + (n - 1) < 0);
+        return val;
+    }
+
+    @Override
+    public double nextDouble() {
+        return (((long)next(26) << 27) + next(27)) / (double)(1L << 53);
+    }
+
+    @Override
+    public float nextFloat() {
+        return next(24) / ((float)(1 << 24));
+    }
+
+    @Override
+    public void nextBytes(byte[] bytes) {
+        for (int x = 0; x < bytes.length; x++) bytes[x] = (byte)next(8);
+    }
+
+    @Override
+    public double nextGaussian() {
+        if (haveNextNextGaussian) {
+            haveNextNextGaussian = false;
+            return nextNextGaussian;
+        }
+        double v1, v2, s;
+        do {
+            v1 = 2 * nextDouble() - 1;
+            v2 = 2 * nextDouble() - 1;
+            s = v1 * v1 + v2 * v2;
+        } while (s >= 1 || s == 0);
+        double multiplier = StrictMath.sqrt(-2 * StrictMath.log(s) / s);
+        nextNextGaussian = v2 * multiplier;
+        haveNextNextGaussian = true;
+        return v1 * multiplier;
+    }
+
+    /**
+     * Fills the array with uniformly distributed doubles in [0, 1). The values are the same as those
+     * of successive calls of {@link #nextDouble()}.
+     * @param values
+     */
+    public void nextDoubles(double[] values) {
+        for (int i = 0; i < values.length; i++) {
+            values[i] = (((long)next(26) << 27) + next(27)) / (double)(1L << 53);
+        }
+    }
+
+    /**
+     * Fills the array with standard normally distributed doubles. The values are the same as those
+     * of successive calls of {@link #nextGaussian()}.
+     * @param values
+     */
+    public void nextGaussians(double[] values) {
+        int i = 0;
+        if (haveNextNextGaussian && values.length > 0) {
+            haveNextNextGaussian = false;
+            values[i++] = nextNextGaussian;
+        }
+        for (; i < values.length; i += 2) {
+            double v1, v2, s;
+            do {
+                v1 = 2 * nextDouble() - 1;
+                v2 = 2 * nextDouble() - 1;
+                s = v1 * v1 + v2 * v2;
+            } while (s >= 1 || s == 0);
+            double multiplier = StrictMath.sqrt(-2 * StrictMath.log(s) / s);
+            values[i] = v1 * multiplier;
+            if (i + 1 < values.length) {
+                values[i + 1] = v2 * multiplier;
+            } else {
+                nextNextGaussian = v2 * multiplier;
+                haveNextNextGaussian = true;
+            }
+        }
+    }
+}